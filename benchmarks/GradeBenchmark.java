@@ -0,0 +1,108 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Client-side grade computation over transcripts of 10 to 10,000 rows.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class GradeBenchmark {
+    private static final MethodHandle CALCULATE_AVERAGES = RepositoryHandles.findStatic(
+        "calculateAverages", MethodType.methodType(void.class, List.class));
+    private static final MethodHandle SUBJECT_FINAL_GRADE = RepositoryHandles.findStatic(
+        "subjectFinalGrade", MethodType.methodType(double.class, Map.class, Map.class));
+    private static final MethodHandle TYPE_INDEX = RepositoryHandles.findStatic(
+        "GradingPlan", "typeIndex", MethodType.methodType(int.class, String.class));
+    private static final MethodHandle PLAN_SUBJECT_FINAL = RepositoryHandles.findBound(
+        "GradingPlan", "DEFAULT", "subjectFinal", MethodType.methodType(double.class, int.class, double[].class, double[].class));
+    // One slot per exam type in a GradingPlan
+    private static final int EXAM_TYPES = 4;
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int rows;
+
+    private List<Map<String, String>> transcript;
+    private int[] subjects;
+    private String[] types;
+    private int[] typeIndexes;
+    private double[] coefficients;
+    private double[] scores;
+
+    @Setup
+    public void setUp() throws Throwable {
+        transcript = SyntheticData.transcript(rows);
+        subjects = new int[rows];
+        types = new String[rows];
+        typeIndexes = new int[rows];
+        coefficients = new double[rows];
+        scores = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            Map<String, String> grade = transcript.get(i);
+            subjects[i] = i / SyntheticData.EXAMS_PER_SUBJECT;
+            types[i] = grade.get("type");
+            typeIndexes[i] = (int) TYPE_INDEX.invokeExact(types[i]);
+            coefficients[i] = Double.parseDouble(grade.get("coefficient"));
+            scores[i] = Double.parseDouble(grade.get("score"));
+        }
+    }
+
+    // calculateAverages first drops the average rows it added on the previous
+    // call, so the same transcript can be reused across invocations
+    @Benchmark
+    public List<Map<String, String>> calculateAverages() throws Throwable {
+        CALCULATE_AVERAGES.invokeExact(transcript);
+        return transcript;
+    }
+
+    // calculateSubjectFinalGrade for every subject of the transcript: the
+    // per-type maps are filled the way its ResultSet loop fills them
+    @Benchmark
+    public double subjectFinalGrades() throws Throwable {
+        double total = 0;
+        int row = 0;
+        while (row < rows) {
+            int subject = subjects[row];
+            Map<String, Double> examScores = new HashMap<>();
+            Map<String, Double> examCoefficients = new HashMap<>();
+            for (; row < rows && subjects[row] == subject; row++) {
+                examScores.put(types[row], scores[row]);
+                examCoefficients.put(types[row], coefficients[row]);
+            }
+            total += (double) SUBJECT_FINAL_GRADE.invokeExact(examScores, examCoefficients);
+        }
+        return total;
+    }
+
+    // The same subjects through a compiled GradingPlan, with the scores
+    // gathered in two reused arrays the way GradeEngine folds a cohort
+    @Benchmark
+    public double planSubjectFinals() throws Throwable {
+        double total = 0;
+        double[] subjectScores = new double[EXAM_TYPES];
+        double[] subjectCoefficients = new double[EXAM_TYPES];
+        int row = 0;
+        while (row < rows) {
+            int subject = subjects[row];
+            int present = 0;
+            for (; row < rows && subjects[row] == subject; row++) {
+                int type = typeIndexes[row];
+                if (type >= 0) {
+                    subjectScores[type] = scores[row];
+                    subjectCoefficients[type] = coefficients[row];
+                    present |= 1 << type;
+                }
+            }
+            total += (double) PLAN_SUBJECT_FINAL.invokeExact(present, subjectScores, subjectCoefficients);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// JMH refuses benchmarks in the default package, and code in a named package
+// cannot name JdbcRepository, so the hot paths are reached through method
+// handles. Held in static final fields they are constants to the JIT and
+// add nothing to the measured time.
+final class RepositoryHandles {
+    private RepositoryHandles() {
+    }
+
+    static MethodHandle findStatic(String name, MethodType type) {
+        return findStatic("JdbcRepository", name, type);
+    }
+
+    static MethodHandle findStatic(String className, String name, MethodType type) {
+        try {
+            Class<?> owner = Class.forName(className);
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                .findStatic(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // A method of the object held in one of the class's own static fields,
+    // bound to that object
+    static MethodHandle findBound(String className, String field, String name, MethodType type) {
+        try {
+            Class<?> owner = Class.forName(className);
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            Object receiver = lookup.findStaticGetter(owner, field, owner).invoke();
+            return lookup.findVirtual(owner, name, type).bindTo(receiver);
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
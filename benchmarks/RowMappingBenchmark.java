@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// ResultSet to HashMap<String, String> mapping as done by getAllStudents.
+// The ResultSet is an in-memory proxy, so readColumns measures its own cost;
+// subtract it from mapStudentRows to get the cost of building the maps.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+    private static final MethodHandle MAP_STUDENT_ROW = RepositoryHandles.findStatic(
+        "mapStudentRow", MethodType.methodType(Map.class, ResultSet.class));
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int rows;
+
+    private ResultSet resultSet;
+
+    @Setup
+    public void setUp() {
+        resultSet = SyntheticData.resultSet(SyntheticData.STUDENT_COLUMNS, SyntheticData.studentRows(rows));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Map<String, String>> mapStudentRows() throws Throwable {
+        resultSet.beforeFirst();
+        List<Map<String, String>> students = new ArrayList<>();
+        while (resultSet.next()) {
+            students.add((Map<String, String>) MAP_STUDENT_ROW.invokeExact(resultSet));
+        }
+        return students;
+    }
+
+    @Benchmark
+    public void readColumns(Blackhole blackhole) throws Throwable {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(resultSet.getInt("student_id"));
+            for (int i = 1; i < SyntheticData.STUDENT_COLUMNS.length; i++) {
+                blackhole.consume(resultSet.getString(SyntheticData.STUDENT_COLUMNS[i]));
+            }
+        }
+    }
+}
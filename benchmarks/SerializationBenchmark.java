@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Java serialization of the List<Map<String, String>> replies ClientHandler
+// sends: SerializationCodec writes ROWS values with a single writeObject,
+// which is what this does.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({ "10", "100", "1000", "10000" })
+    public int rows;
+
+    private List<Map<String, String>> payload;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = SyntheticData.studentMaps(rows);
+        serialized = serialize(payload);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return serialize(payload);
+    }
+
+    @Benchmark
+    public Object read() throws IOException, ClassNotFoundException {
+        return deserialize(serialized);
+    }
+
+    @Benchmark
+    public Object roundTrip() throws IOException, ClassNotFoundException {
+        return deserialize(serialize(payload));
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            output.writeObject(value);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return input.readObject();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+// Deterministic rows shaped like what JdbcRepository reads from the database,
+// so every fork and every run measures the same input.
+final class SyntheticData {
+    static final String[] EXAM_TYPES = { "CONTROLE", "TP", "EXAMEN", "PROJET" };
+    static final String[] STUDENT_COLUMNS = {
+        "student_id", "first_name", "last_name", "school_origin", "phone", "email",
+        "program_name", "academic_year", "registration_date", "final_status"
+    };
+    // A subject typically has a handful of exams
+    static final int EXAMS_PER_SUBJECT = 4;
+
+    private SyntheticData() {
+    }
+
+    // Rows of getStudentTranscript before averages are added
+    static List<Map<String, String>> transcript(int rows) {
+        Random random = new Random(rows);
+        List<Map<String, String>> transcript = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, String> grade = new HashMap<>();
+            grade.put("subject", "Subject " + i / EXAMS_PER_SUBJECT);
+            grade.put("exam", "Exam " + i);
+            grade.put("type", EXAM_TYPES[i % EXAM_TYPES.length]);
+            grade.put("coefficient", String.valueOf(1.0 + random.nextInt(3)));
+            grade.put("score", String.format(Locale.ROOT, "%.2f", random.nextInt(81) / 4.0));
+            grade.put("gradeDate", "2025-01-15 10:00:00");
+            grade.put("program", "Licence Informatique");
+            grade.put("firstName", "Amina");
+            grade.put("lastName", "Benali");
+            grade.put("academicYear", "2024-2025");
+            transcript.add(grade);
+        }
+        return transcript;
+    }
+
+    // Rows of the getAllStudents query, in STUDENT_COLUMNS order
+    static Object[][] studentRows(int rows) {
+        Random random = new Random(rows);
+        Object[][] data = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            data[i] = new Object[] {
+                i + 1, "First" + i, "Last" + i, "Lycee " + random.nextInt(50), "0555" + (100000 + random.nextInt(900000)),
+                "student" + i + "@univ.dz", "Licence Informatique", "2024-2025", "2024-09-15",
+                random.nextInt(4) == 0 ? "ADMIS" : null
+            };
+        }
+        return data;
+    }
+
+    // The maps getAllStudents returns, as sent back in LIST_STUDENTS replies
+    static List<Map<String, String>> studentMaps(int rows) {
+        List<Map<String, String>> students = new ArrayList<>(rows);
+        for (Object[] row : studentRows(rows)) {
+            Map<String, String> student = new HashMap<>();
+            student.put("studentId", String.valueOf(row[0]));
+            student.put("firstName", (String) row[1]);
+            student.put("lastName", (String) row[2]);
+            student.put("schoolOrigin", (String) row[3]);
+            student.put("phone", (String) row[4]);
+            student.put("email", (String) row[5]);
+            student.put("program", (String) row[6]);
+            student.put("academicYear", (String) row[7]);
+            student.put("registrationDate", (String) row[8]);
+            student.put("status", row[9] != null ? (String) row[9] : "Active");
+            students.add(student);
+        }
+        return students;
+    }
+
+    // A forward-only ResultSet over in-memory rows. Only the calls row mapping
+    // makes are implemented; beforeFirst rewinds it for the next invocation.
+    static ResultSet resultSet(String[] columns, Object[][] rows) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            index.put(columns[i], i);
+        }
+        int[] cursor = { -1 };
+        boolean[] wasNull = { false };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next":
+                        return ++cursor[0] < rows.length;
+                    case "beforeFirst":
+                        cursor[0] = -1;
+                        return null;
+                    case "getString": {
+                        Object value = rows[cursor[0]][index.get((String) args[0])];
+                        wasNull[0] = value == null;
+                        return value == null ? null : value.toString();
+                    }
+                    case "getInt": {
+                        Object value = rows[cursor[0]][index.get((String) args[0])];
+                        wasNull[0] = value == null;
+                        return value == null ? 0 : (Integer) value;
+                    }
+                    case "wasNull":
+                        return wasNull[0];
+                    case "close":
+                        return null;
+                    default:
+                        throw new SQLException("Not supported by the synthetic ResultSet: " + method.getName());
+                }
+            });
+    }
+}
@@ -0,0 +1,526 @@
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Sits in front of the client's repository so that the parts of a window
+// asking for the same thing cost one query. A read already running for the
+// same method and arguments is joined instead of sent again, and its result
+// is kept for MEMO_MILLIS, about as long as one UI action and the refreshes
+// it triggers take. Each read names the areas of data it depends on; a
+// write drops every kept result in the areas it changes, so the next read
+// after a createExam or addGrade sees it.
+//
+// Callers get their own copy of a kept list or map. Nulls and failures are
+// never kept, so an error is retried on the next call.
+class CoalescingRepository implements Repository {
+    static final long MEMO_MILLIS = 3000;
+
+    private static final String STUDENTS = "students";
+    private static final String GRADES = "grades";
+    private static final String SUBJECTS = "subjects";
+    private static final String PROGRAMS = "programs";
+    private static final String USERS = "users";
+    private static final String YEARS = "years";
+    private static final Set<String> ALL = areas(STUDENTS, GRADES, SUBJECTS, PROGRAMS, USERS, YEARS);
+
+    private static class Entry {
+        final Set<String> areas;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(Set<String> areas) {
+            this.areas = areas;
+        }
+
+        boolean isFresh(long now) {
+            return !result.isDone() || now - expiresAt < 0;
+        }
+    }
+
+    private final Supplier<Repository> target;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong memoized = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // target is asked on every call, so switching between the server and
+    // local mode takes effect at once
+    CoalescingRepository(Supplier<Repository> target) {
+        this.target = target;
+    }
+
+    // Drops every kept result, for writes made outside the repository such as batches
+    void invalidateAll() {
+        invalidate(ALL);
+    }
+
+    // Calls that went to the target, calls that joined a running one, and
+    // calls answered from a kept result
+    Map<String, String> getStats() {
+        Map<String, String> stats = new LinkedHashMap<>();
+        stats.put("queries", String.valueOf(queries.get()));
+        stats.put("joined", String.valueOf(joined.get()));
+        stats.put("memoized", String.valueOf(memoized.get()));
+        stats.put("invalidations", String.valueOf(invalidations.get()));
+        stats.put("entries", String.valueOf(entries.size()));
+        return stats;
+    }
+
+    private Repository target() {
+        return target.get();
+    }
+
+    private static Set<String> areas(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(String key, Set<String> areas, Supplier<T> query) {
+        long now = System.nanoTime();
+        Entry mine = new Entry(areas);
+        Entry entry = entries.compute(key, (k, existing) -> existing != null && existing.isFresh(now) ? existing : mine);
+        if (entry != mine) {
+            (entry.result.isDone() ? memoized : joined).incrementAndGet();
+            try {
+                return (T) copy(entry.result.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        queries.incrementAndGet();
+        T value;
+        try {
+            value = query.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+        mine.expiresAt = System.nanoTime() + MEMO_MILLIS * 1_000_000;
+        if (value == null) {
+            entries.remove(key, mine);
+        }
+        mine.result.complete(value);
+        return (T) copy(value);
+    }
+
+    // Drops the kept results in the written areas once the write is done;
+    // a read that was running meanwhile still answers its own callers but
+    // is not kept
+    private <T> T write(T result, Set<String> areas) {
+        invalidate(areas);
+        return result;
+    }
+
+    private void invalidate(Set<String> areas) {
+        invalidations.incrementAndGet();
+        entries.entrySet().removeIf(entry -> !Collections.disjoint(entry.getValue().areas, areas));
+    }
+
+    // Kept lists and maps are shared, so every caller gets its own to change
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object value) {
+        if (value instanceof List) {
+            List<Object> rows = new ArrayList<>();
+            for (Object row : (List<Object>) value) {
+                rows.add(row instanceof Map ? new LinkedHashMap<>((Map<Object, Object>) row) : row);
+            }
+            return rows;
+        }
+        if (value instanceof Map) {
+            return new LinkedHashMap<>((Map<Object, Object>) value);
+        }
+        return value;
+    }
+
+    // Students
+    @Override
+    public List<Map<String, String>> getStudentTranscript(int studentId) {
+        return read("getStudentTranscript:" + studentId, areas(GRADES, SUBJECTS, STUDENTS), () -> target().getStudentTranscript(studentId));
+    }
+
+    @Override
+    public Map<String, String> getStudentInfo(int studentId) {
+        return read("getStudentInfo:" + studentId, areas(STUDENTS, PROGRAMS), () -> target().getStudentInfo(studentId));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentGrades(int studentId) {
+        return read("getStudentGrades:" + studentId, areas(GRADES, SUBJECTS), () -> target().getStudentGrades(studentId));
+    }
+
+    @Override
+    public Double calculateSubjectFinalGrade(int studentId, int subjectId) {
+        return read("calculateSubjectFinalGrade:" + studentId + ":" + subjectId, areas(GRADES), () -> target().calculateSubjectFinalGrade(studentId, subjectId));
+    }
+
+    @Override
+    public Double calculateOverallAverage(int studentId) {
+        return read("calculateOverallAverage:" + studentId, areas(GRADES, STUDENTS), () -> target().calculateOverallAverage(studentId));
+    }
+
+    @Override
+    public Double getOverallAverage(int studentId) {
+        return read("getOverallAverage:" + studentId, areas(GRADES, STUDENTS), () -> target().getOverallAverage(studentId));
+    }
+
+    @Override
+    public String getFinalStatus(int studentId) {
+        return read("getFinalStatus:" + studentId, areas(GRADES, STUDENTS), () -> target().getFinalStatus(studentId));
+    }
+
+    @Override
+    public Map<String, Object> getStudentStatistics(int studentId) {
+        return read("getStudentStatistics:" + studentId, areas(GRADES), () -> target().getStudentStatistics(studentId));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentSubjectGrades(int studentId) {
+        return read("getStudentSubjectGrades:" + studentId, areas(GRADES, SUBJECTS), () -> target().getStudentSubjectGrades(studentId));
+    }
+
+    // Teachers, exams and grades
+    @Override
+    public boolean createExam(String examName, String subject, String examType, double coefficient, int teacherId) {
+        return write(target().createExam(examName, subject, examType, coefficient, teacherId), areas(GRADES));
+    }
+
+    @Override
+    public boolean addGrade(String studentId, String examId, double score) {
+        return write(target().addGrade(studentId, examId, score), areas(GRADES));
+    }
+
+    @Override
+    public boolean updateStudentGrade(int gradeId, int teacherId, double newScore) {
+        return write(target().updateStudentGrade(gradeId, teacherId, newScore), areas(GRADES));
+    }
+
+    @Override
+    public boolean updateGrade(int gradeId, double newScore) {
+        return write(target().updateGrade(gradeId, newScore), areas(GRADES));
+    }
+
+    @Override
+    public Map<String, String> getGradeDetails(int gradeId) {
+        return read("getGradeDetails:" + gradeId, areas(GRADES), () -> target().getGradeDetails(gradeId));
+    }
+
+    @Override
+    public Double calculateSubjectAverage(int studentId, int subjectId) {
+        return read("calculateSubjectAverage:" + studentId + ":" + subjectId, areas(GRADES), () -> target().calculateSubjectAverage(studentId, subjectId));
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherSubjects(int teacherId) {
+        return read("getTeacherSubjects:" + teacherId, areas(SUBJECTS, PROGRAMS), () -> target().getTeacherSubjects(teacherId));
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherExams(int teacherId) {
+        return read("getTeacherExams:" + teacherId, areas(GRADES, SUBJECTS), () -> target().getTeacherExams(teacherId));
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherGrades(int teacherId) {
+        return read("getTeacherGrades:" + teacherId, areas(GRADES, SUBJECTS, STUDENTS), () -> target().getTeacherGrades(teacherId));
+    }
+
+    @Override
+    public boolean updateExam(int examId, String examName, double coefficient) {
+        return write(target().updateExam(examId, examName, coefficient), areas(GRADES));
+    }
+
+    @Override
+    public boolean deleteExam(String examId) {
+        return write(target().deleteExam(examId), areas(GRADES));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentResults(int teacherId) {
+        return read("getStudentResults:" + teacherId, areas(GRADES, STUDENTS), () -> target().getStudentResults(teacherId));
+    }
+
+    @Override
+    public Map<String, String> getSubjectRank(int studentId, int subjectId) {
+        return read("getSubjectRank:" + studentId + ":" + subjectId, areas(GRADES, STUDENTS), () -> target().getSubjectRank(studentId, subjectId));
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectLeaderboard(int subjectId, int offset, int limit) {
+        return read("getSubjectLeaderboard:" + subjectId + ":" + offset + ":" + limit, areas(GRADES, STUDENTS),
+            () -> target().getSubjectLeaderboard(subjectId, offset, limit));
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherStudents(int teacherId) {
+        return read("getTeacherStudents:" + teacherId, areas(STUDENTS, SUBJECTS), () -> target().getTeacherStudents(teacherId));
+    }
+
+    @Override
+    public Map<String, Object> getTeacherStatistics(int teacherId) {
+        return read("getTeacherStatistics:" + teacherId, ALL, () -> target().getTeacherStatistics(teacherId));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentsBySubject(int subjectId) {
+        return read("getStudentsBySubject:" + subjectId, areas(STUDENTS, SUBJECTS), () -> target().getStudentsBySubject(subjectId));
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsByStudent(int studentId) {
+        return read("getSubjectsByStudent:" + studentId, areas(STUDENTS, SUBJECTS, PROGRAMS), () -> target().getSubjectsByStudent(studentId));
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsByTeacher(int teacherId) {
+        return read("getSubjectsByTeacher:" + teacherId, areas(SUBJECTS, PROGRAMS), () -> target().getSubjectsByTeacher(teacherId));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentsBySubjectForTeacher(int teacherId, int subjectId) {
+        return read("getStudentsBySubjectForTeacher:" + teacherId + ":" + subjectId, areas(STUDENTS, SUBJECTS), () -> target().getStudentsBySubjectForTeacher(teacherId, subjectId));
+    }
+
+    // Student records and registrations
+    @Override
+    public boolean addStudent(String firstName, String lastName, String email, String phone, String schoolOrigin) {
+        return write(target().addStudent(firstName, lastName, email, phone, schoolOrigin), areas(STUDENTS, USERS));
+    }
+
+    @Override
+    public boolean updateStudentInfo(int studentId, Map<String, String> studentData) {
+        return write(target().updateStudentInfo(studentId, studentData), areas(STUDENTS));
+    }
+
+    @Override
+    public Map<String, String> getStudentWithProgram(int studentId) {
+        return read("getStudentWithProgram:" + studentId, areas(STUDENTS, PROGRAMS), () -> target().getStudentWithProgram(studentId));
+    }
+
+    @Override
+    public boolean registerStudentToProgram(int studentId, int programId, String academicYear) {
+        return write(target().registerStudentToProgram(studentId, programId, academicYear), areas(STUDENTS));
+    }
+
+    @Override
+    public boolean registerStudent(int studentId, int programId, int yearId) {
+        return write(target().registerStudent(studentId, programId, yearId), areas(STUDENTS));
+    }
+
+    @Override
+    public List<Map<String, String>> getAllStudents() {
+        return read("getAllStudents", areas(STUDENTS, PROGRAMS), () -> target().getAllStudents());
+    }
+
+    @Override
+    public boolean deleteStudent(int studentId) {
+        return write(target().deleteStudent(studentId), areas(STUDENTS, USERS, GRADES));
+    }
+
+    @Override
+    public boolean deleteRegistration(int studentId) {
+        return write(target().deleteRegistration(studentId), areas(STUDENTS));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentRegistrations(int studentId) {
+        return read("getStudentRegistrations:" + studentId, areas(STUDENTS), () -> target().getStudentRegistrations(studentId));
+    }
+
+    @Override
+    public boolean updateStudentStatus(int studentId, String status) {
+        return write(target().updateStudentStatus(studentId, status), areas(STUDENTS));
+    }
+
+    @Override
+    public Map<String, Object> getResponsableStatistics() {
+        return read("getResponsableStatistics", ALL, () -> target().getResponsableStatistics());
+    }
+
+    @Override
+    public List<Map<String, String>> getAcademicYears() {
+        return read("getAcademicYears", areas(YEARS), () -> target().getAcademicYears());
+    }
+
+    @Override
+    public boolean setCurrentAcademicYear(int yearId) {
+        return write(target().setCurrentAcademicYear(yearId), areas(YEARS));
+    }
+
+    // Programs and subjects
+    @Override
+    public boolean addProgram(String programName, int programYear, String description) {
+        return write(target().addProgram(programName, programYear, description), areas(PROGRAMS));
+    }
+
+    @Override
+    public List<Map<String, String>> getAllPrograms() {
+        return read("getAllPrograms", areas(PROGRAMS), () -> target().getAllPrograms());
+    }
+
+    @Override
+    public List<Map<String, String>> getAllProgramsForDropdown() {
+        return read("getAllProgramsForDropdown", areas(PROGRAMS), () -> target().getAllProgramsForDropdown());
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramsWithStats() {
+        return read("getProgramsWithStats", ALL, () -> target().getProgramsWithStats());
+    }
+
+    @Override
+    public Integer getProgramIdByName(String programName) {
+        return read("getProgramIdByName:" + programName, areas(PROGRAMS), () -> target().getProgramIdByName(programName));
+    }
+
+    @Override
+    public Integer getSubjectIdByName(String subjectName) {
+        return read("getSubjectIdByName:" + subjectName, areas(SUBJECTS), () -> target().getSubjectIdByName(subjectName));
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsByProgram(int programId) {
+        return read("getSubjectsByProgram:" + programId, areas(SUBJECTS, PROGRAMS), () -> target().getSubjectsByProgram(programId));
+    }
+
+    @Override
+    public boolean assignTeacherToProgram(int programId, int teacherId, int subjectId, String academicYear) {
+        return write(target().assignTeacherToProgram(programId, teacherId, subjectId, academicYear), areas(SUBJECTS));
+    }
+
+    @Override
+    public boolean addProgramWithTeachers(String programName, int programYear, String description, Map<Integer, Integer> teacherAssignments, String academicYear) {
+        return write(target().addProgramWithTeachers(programName, programYear, description, teacherAssignments, academicYear), areas(PROGRAMS, SUBJECTS));
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramTeachers(int programId) {
+        return read("getProgramTeachers:" + programId, areas(SUBJECTS, PROGRAMS, USERS), () -> target().getProgramTeachers(programId));
+    }
+
+    @Override
+    public boolean createProgramWithStructure(String programName, String programType, int durationYears, int totalCredits, String department, String description) {
+        return write(target().createProgramWithStructure(programName, programType, durationYears, totalCredits, department, description), areas(PROGRAMS, SUBJECTS));
+    }
+
+    @Override
+    public Map<String, Object> getProgramStructure(int programId) {
+        return read("getProgramStructure:" + programId, areas(PROGRAMS, SUBJECTS), () -> target().getProgramStructure(programId));
+    }
+
+    @Override
+    public boolean addSimpleSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient) {
+        return write(target().addSimpleSubjectToProgram(programId, subjectName, objectives, semester, coefficient), areas(SUBJECTS));
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsBySemester(int semesterId) {
+        return read("getSubjectsBySemester:" + semesterId, areas(SUBJECTS), () -> target().getSubjectsBySemester(semesterId));
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramSubjects(int programId) {
+        return read("getProgramSubjects:" + programId, areas(SUBJECTS, PROGRAMS), () -> target().getProgramSubjects(programId));
+    }
+
+    @Override
+    public boolean verifyProgramExists(int programId) {
+        return Boolean.TRUE.equals(read("verifyProgramExists:" + programId, areas(PROGRAMS), () -> target().verifyProgramExists(programId)));
+    }
+
+    @Override
+    public boolean assignTeacherToSubject(int teacherId, int subjectId, String academicYear) {
+        return write(target().assignTeacherToSubject(teacherId, subjectId, academicYear), areas(SUBJECTS));
+    }
+
+    @Override
+    public boolean removeTeacherFromSubject(int subjectId) {
+        return write(target().removeTeacherFromSubject(subjectId), areas(SUBJECTS));
+    }
+
+    @Override
+    public boolean addSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient) {
+        return write(target().addSubjectToProgram(programId, subjectName, objectives, semester, coefficient), areas(SUBJECTS));
+    }
+
+    @Override
+    public boolean doesProgramExist(int programId) {
+        return Boolean.TRUE.equals(read("doesProgramExist:" + programId, areas(PROGRAMS), () -> target().doesProgramExist(programId)));
+    }
+
+    @Override
+    public List<Map<String, String>> getUnassignedSubjects(int programId) {
+        return read("getUnassignedSubjects:" + programId, areas(SUBJECTS, PROGRAMS), () -> target().getUnassignedSubjects(programId));
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramSubjectsWithDetails(int programId) {
+        return read("getProgramSubjectsWithDetails:" + programId, areas(SUBJECTS, PROGRAMS, USERS), () -> target().getProgramSubjectsWithDetails(programId));
+    }
+
+    @Override
+    public boolean updateProgram(int programId, String programName, int programYear, String description) {
+        return write(target().updateProgram(programId, programName, programYear, description), areas(PROGRAMS));
+    }
+
+    @Override
+    public boolean deleteProgram(int programId) {
+        return write(target().deleteProgram(programId), areas(PROGRAMS, SUBJECTS, STUDENTS));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentsByProgram(int programId) {
+        return read("getStudentsByProgram:" + programId, areas(STUDENTS, PROGRAMS), () -> target().getStudentsByProgram(programId));
+    }
+
+    @Override
+    public Map<String, Object> getProgramStatistics(int programId) {
+        return read("getProgramStatistics:" + programId, ALL, () -> target().getProgramStatistics(programId));
+    }
+
+    @Override
+    public Map<String, Object> getProgramSuccessStatistics(int programId) {
+        return read("getProgramSuccessStatistics:" + programId, ALL, () -> target().getProgramSuccessStatistics(programId));
+    }
+
+    // Users and administration
+    @Override
+    public List<Map<String, String>> getAllUsers() {
+        return read("getAllUsers", areas(USERS), () -> target().getAllUsers());
+    }
+
+    @Override
+    public Map<String, Object> getSystemStatistics() {
+        return read("getSystemStatistics", ALL, () -> target().getSystemStatistics());
+    }
+
+    @Override
+    public List<Map<String, String>> getAllTeachers() {
+        return read("getAllTeachers", areas(USERS, SUBJECTS), () -> target().getAllTeachers());
+    }
+
+    @Override
+    public boolean createUser(String username, String password, String userType, Integer studentId, Integer teacherId, String email) {
+        return write(target().createUser(username, password, userType, studentId, teacherId, email), areas(USERS));
+    }
+
+    @Override
+    public boolean updateUserStatus(int userId, boolean isActive) {
+        return write(target().updateUserStatus(userId, isActive), areas(USERS));
+    }
+
+    @Override
+    public boolean resetUserPassword(int userId, String newPassword) {
+        return write(target().resetUserPassword(userId, newPassword), areas(USERS));
+    }
+
+    @Override
+    public Map<String, String> getUserDetails(int userId) {
+        return read("getUserDetails:" + userId, areas(USERS), () -> target().getUserDetails(userId));
+    }
+}
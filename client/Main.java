@@ -4,6 +4,9 @@ public class Main {
     public static void main(String[] args) {
         ClientService clientService = new ClientService();
         
+        // Every view leaves through System.exit, which runs this
+        Runtime.getRuntime().addShutdownHook(new Thread(ClientService::close, "db-pool-shutdown"));
+        
         // Try to connect (will work even without server)
         if (clientService.connect("localhost", 8080)) {
             System.out.println("Connected to server");
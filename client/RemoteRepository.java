@@ -0,0 +1,465 @@
+import java.io.IOException;
+import java.util.*;
+
+// Repository calls as server actions. The server runs them on its own
+// JdbcRepository, so it is the only process that talks to MySQL and the
+// one place where results can be cached or writes serialized.
+//
+// Failures come back the way JdbcRepository reports them to the screens:
+// an ERROR status or a lost connection gives null, false or an empty list.
+class RemoteRepository implements Repository {
+    private final ClientService service;
+    
+    RemoteRepository(ClientService service) {
+        this.service = service;
+    }
+    
+    // Students
+    @Override
+    public List<Map<String, String>> getStudentTranscript(int studentId) {
+        return rows(Action.STUDENT_TRANSCRIPT, studentId);
+    }
+    
+    @Override
+    public Map<String, String> getStudentInfo(int studentId) {
+        return map(Action.STUDENT_INFO, studentId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getStudentGrades(int studentId) {
+        return rows(Action.STUDENT_GRADES, studentId);
+    }
+    
+    @Override
+    public Double calculateSubjectFinalGrade(int studentId, int subjectId) {
+        return number(Action.SUBJECT_FINAL_GRADE, studentId, subjectId);
+    }
+    
+    @Override
+    public Double calculateOverallAverage(int studentId) {
+        return number(Action.OVERALL_AVERAGE, studentId);
+    }
+    
+    @Override
+    public Double getOverallAverage(int studentId) {
+        return calculateOverallAverage(studentId);
+    }
+    
+    @Override
+    public String getFinalStatus(int studentId) {
+        String status = text(Action.FINAL_STATUS, studentId);
+        return status != null ? status : "NOT_SET";
+    }
+    
+    @Override
+    public Map<String, Object> getStudentStatistics(int studentId) {
+        return record(Action.STUDENT_STATISTICS, studentId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getStudentSubjectGrades(int studentId) {
+        return rows(Action.STUDENT_SUBJECT_GRADES, studentId);
+    }
+    
+    // Teachers, exams and grades
+    @Override
+    public boolean createExam(String examName, String subject, String examType, double coefficient, int teacherId) {
+        return ok(Action.CREATE_EXAM_FOR_SUBJECT, examName, subject, examType, coefficient, teacherId);
+    }
+    
+    @Override
+    public boolean addGrade(String studentId, String examId, double score) {
+        return ok(Action.INSERT_GRADE, studentId, examId, score);
+    }
+    
+    @Override
+    public boolean updateStudentGrade(int gradeId, int teacherId, double newScore) {
+        return ok(Action.UPDATE_STUDENT_GRADE, gradeId, teacherId, newScore);
+    }
+    
+    @Override
+    public boolean updateGrade(int gradeId, double newScore) {
+        return updateStudentGrade(gradeId, 0, newScore);
+    }
+    
+    @Override
+    public Map<String, String> getGradeDetails(int gradeId) {
+        return map(Action.GRADE_DETAILS, gradeId);
+    }
+    
+    @Override
+    public Double calculateSubjectAverage(int studentId, int subjectId) {
+        return number(Action.SUBJECT_AVERAGE, studentId, subjectId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getTeacherSubjects(int teacherId) {
+        return getSubjectsByTeacher(teacherId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getTeacherExams(int teacherId) {
+        return rows(Action.TEACHER_EXAMS, teacherId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getTeacherGrades(int teacherId) {
+        return rows(Action.GET_TEACHER_GRADES, teacherId);
+    }
+    
+    @Override
+    public boolean updateExam(int examId, String examName, double coefficient) {
+        return ok(Action.UPDATE_EXAM, examId, examName, coefficient);
+    }
+    
+    @Override
+    public boolean deleteExam(String examId) {
+        return ok(Action.DELETE_EXAM, examId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getStudentResults(int teacherId) {
+        return rows(Action.STUDENT_RESULTS, teacherId);
+    }
+    
+    @Override
+    public Map<String, String> getSubjectRank(int studentId, int subjectId) {
+        return map(Action.SUBJECT_RANK, studentId, subjectId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getSubjectLeaderboard(int subjectId, int offset, int limit) {
+        return rows(Action.SUBJECT_LEADERBOARD, subjectId, offset, limit);
+    }
+    
+    @Override
+    public List<Map<String, String>> getTeacherStudents(int teacherId) {
+        return rows(Action.TEACHER_STUDENTS, teacherId);
+    }
+    
+    @Override
+    public Map<String, Object> getTeacherStatistics(int teacherId) {
+        return record(Action.TEACHER_STATISTICS, teacherId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getStudentsBySubject(int subjectId) {
+        return rows(Action.STUDENTS_BY_SUBJECT, subjectId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getSubjectsByStudent(int studentId) {
+        return rows(Action.SUBJECTS_BY_STUDENT, studentId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getSubjectsByTeacher(int teacherId) {
+        return rows(Action.SUBJECTS_BY_TEACHER, teacherId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getStudentsBySubjectForTeacher(int teacherId, int subjectId) {
+        return rows(Action.STUDENTS_BY_SUBJECT_FOR_TEACHER, teacherId, subjectId);
+    }
+    
+    // Student records and registrations
+    @Override
+    public boolean addStudent(String firstName, String lastName, String email, String phone, String schoolOrigin) {
+        return ok(Action.ADD_STUDENT_WITH_ACCOUNT, firstName, lastName, email, phone, schoolOrigin);
+    }
+    
+    @Override
+    public boolean updateStudentInfo(int studentId, Map<String, String> studentData) {
+        return ok(Action.UPDATE_STUDENT_INFO, studentId, studentData);
+    }
+    
+    @Override
+    public Map<String, String> getStudentWithProgram(int studentId) {
+        return map(Action.STUDENT_WITH_PROGRAM, studentId);
+    }
+    
+    @Override
+    public boolean registerStudentToProgram(int studentId, int programId, String academicYear) {
+        return ok(Action.REGISTER_STUDENT_TO_PROGRAM, studentId, programId, academicYear);
+    }
+    
+    @Override
+    public boolean registerStudent(int studentId, int programId, int yearId) {
+        return ok(Action.REGISTER_STUDENT, studentId, programId, yearId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getAllStudents() {
+        return rows(Action.LIST_STUDENTS);
+    }
+    
+    @Override
+    public boolean deleteStudent(int studentId) {
+        return ok(Action.DELETE_STUDENT, studentId);
+    }
+    
+    @Override
+    public boolean deleteRegistration(int studentId) {
+        return ok(Action.DELETE_REGISTRATION, studentId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getStudentRegistrations(int studentId) {
+        return rows(Action.STUDENT_REGISTRATIONS, studentId);
+    }
+    
+    @Override
+    public boolean updateStudentStatus(int studentId, String status) {
+        return ok(Action.UPDATE_STUDENT_STATUS, studentId, status);
+    }
+    
+    @Override
+    public Map<String, Object> getResponsableStatistics() {
+        return record(Action.RESPONSABLE_STATISTICS);
+    }
+    
+    @Override
+    public List<Map<String, String>> getAcademicYears() {
+        return rows(Action.ACADEMIC_YEARS);
+    }
+    
+    @Override
+    public boolean setCurrentAcademicYear(int yearId) {
+        return ok(Action.SET_CURRENT_ACADEMIC_YEAR, yearId);
+    }
+    
+    // Programs and subjects
+    @Override
+    public boolean addProgram(String programName, int programYear, String description) {
+        return ok(Action.ADD_PROGRAM, programName, programYear, description);
+    }
+    
+    @Override
+    public List<Map<String, String>> getAllPrograms() {
+        return rows(Action.ALL_PROGRAMS);
+    }
+    
+    @Override
+    public List<Map<String, String>> getAllProgramsForDropdown() {
+        return rows(Action.PROGRAMS_FOR_DROPDOWN);
+    }
+    
+    @Override
+    public List<Map<String, String>> getProgramsWithStats() {
+        return rows(Action.PROGRAMS_WITH_STATS);
+    }
+    
+    @Override
+    public Integer getProgramIdByName(String programName) {
+        return id(Action.PROGRAM_ID_BY_NAME, programName);
+    }
+    
+    @Override
+    public Integer getSubjectIdByName(String subjectName) {
+        return id(Action.SUBJECT_ID_BY_NAME, subjectName);
+    }
+    
+    @Override
+    public List<Map<String, String>> getSubjectsByProgram(int programId) {
+        return rows(Action.SUBJECTS_BY_PROGRAM, programId);
+    }
+    
+    @Override
+    public boolean assignTeacherToProgram(int programId, int teacherId, int subjectId, String academicYear) {
+        return ok(Action.ASSIGN_TEACHER_TO_PROGRAM, programId, teacherId, subjectId, academicYear);
+    }
+    
+    @Override
+    public boolean addProgramWithTeachers(String programName, int programYear, String description, Map<Integer, Integer> teacherAssignments, String academicYear) {
+        return ok(Action.ADD_PROGRAM_WITH_TEACHERS, programName, programYear, description, idMap(teacherAssignments), academicYear);
+    }
+    
+    @Override
+    public List<Map<String, String>> getProgramTeachers(int programId) {
+        return rows(Action.PROGRAM_TEACHERS, programId);
+    }
+    
+    @Override
+    public boolean createProgramWithStructure(String programName, String programType, int durationYears, int totalCredits, String department, String description) {
+        return ok(Action.CREATE_PROGRAM_WITH_STRUCTURE, programName, programType, durationYears, totalCredits, department, description);
+    }
+    
+    @Override
+    public Map<String, Object> getProgramStructure(int programId) {
+        return record(Action.PROGRAM_STRUCTURE, programId);
+    }
+    
+    @Override
+    public boolean addSimpleSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient) {
+        return addSubjectToProgram(programId, subjectName, objectives, semester, coefficient);
+    }
+    
+    @Override
+    public List<Map<String, String>> getSubjectsBySemester(int semesterId) {
+        return rows(Action.SUBJECTS_BY_SEMESTER, semesterId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getProgramSubjects(int programId) {
+        return rows(Action.PROGRAM_SUBJECTS, programId);
+    }
+    
+    @Override
+    public boolean verifyProgramExists(int programId) {
+        return doesProgramExist(programId);
+    }
+    
+    @Override
+    public boolean assignTeacherToSubject(int teacherId, int subjectId, String academicYear) {
+        return ok(Action.ASSIGN_TEACHER_TO_SUBJECT, teacherId, subjectId, academicYear);
+    }
+    
+    @Override
+    public boolean removeTeacherFromSubject(int subjectId) {
+        return ok(Action.REMOVE_TEACHER_FROM_SUBJECT, subjectId);
+    }
+    
+    @Override
+    public boolean addSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient) {
+        return ok(Action.ADD_SUBJECT_TO_PROGRAM, programId, subjectName, objectives, semester, coefficient);
+    }
+    
+    @Override
+    public boolean doesProgramExist(int programId) {
+        return ok(Action.PROGRAM_EXISTS, programId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getUnassignedSubjects(int programId) {
+        return rows(Action.UNASSIGNED_SUBJECTS, programId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getProgramSubjectsWithDetails(int programId) {
+        return rows(Action.PROGRAM_SUBJECTS_WITH_DETAILS, programId);
+    }
+    
+    @Override
+    public boolean updateProgram(int programId, String programName, int programYear, String description) {
+        return ok(Action.UPDATE_PROGRAM, programId, programName, programYear, description);
+    }
+    
+    @Override
+    public boolean deleteProgram(int programId) {
+        return ok(Action.DELETE_PROGRAM, programId);
+    }
+    
+    @Override
+    public List<Map<String, String>> getStudentsByProgram(int programId) {
+        return rows(Action.STUDENTS_BY_PROGRAM, programId);
+    }
+    
+    @Override
+    public Map<String, Object> getProgramStatistics(int programId) {
+        return record(Action.PROGRAM_STATISTICS, programId);
+    }
+    
+    @Override
+    public Map<String, Object> getProgramSuccessStatistics(int programId) {
+        return record(Action.PROGRAM_SUCCESS_STATISTICS, programId);
+    }
+    
+    // Users and administration
+    @Override
+    public List<Map<String, String>> getAllUsers() {
+        return rows(Action.LIST_USERS);
+    }
+    
+    @Override
+    public Map<String, Object> getSystemStatistics() {
+        return record(Action.SYSTEM_STATISTICS);
+    }
+    
+    @Override
+    public List<Map<String, String>> getAllTeachers() {
+        return rows(Action.ALL_TEACHERS);
+    }
+    
+    @Override
+    public boolean createUser(String username, String password, String userType, Integer studentId, Integer teacherId, String email) {
+        return ok(Action.CREATE_USER, username, password, userType, optionalId(studentId), optionalId(teacherId), email);
+    }
+    
+    @Override
+    public boolean updateUserStatus(int userId, boolean isActive) {
+        return ok(Action.UPDATE_USER_STATUS, userId, isActive ? 1 : 0);
+    }
+    
+    @Override
+    public boolean resetUserPassword(int userId, String newPassword) {
+        return ok(Action.RESET_USER_PASSWORD, userId, newPassword);
+    }
+    
+    @Override
+    public Map<String, String> getUserDetails(int userId) {
+        return map(Action.USER_DETAILS, userId);
+    }
+    
+    // Null when the server answered with an error or could not be reached
+    private Response call(Action action, Object... args) {
+        try {
+            Response response = service.call(Request.of(action, args));
+            if (response.isSuccess()) {
+                return response;
+            }
+            System.err.println("❌ " + action + ": " + response.getStatus());
+        } catch (IOException e) {
+            System.err.println("❌ " + action + " failed: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    private List<Map<String, String>> rows(Action action, Object... args) {
+        Response response = call(action, args);
+        return response != null ? response.getRows(0) : new ArrayList<>();
+    }
+    
+    private Map<String, String> map(Action action, Object... args) {
+        Response response = call(action, args);
+        return response != null ? response.getMap(0) : null;
+    }
+    
+    private Map<String, Object> record(Action action, Object... args) {
+        Response response = call(action, args);
+        return response != null ? response.getRecord(0) : new HashMap<>();
+    }
+    
+    private Double number(Action action, Object... args) {
+        Response response = call(action, args);
+        return response != null ? response.getDouble(0) : null;
+    }
+    
+    private Integer id(Action action, Object... args) {
+        Response response = call(action, args);
+        return response != null ? response.getInt(0) : null;
+    }
+    
+    private String text(Action action, Object... args) {
+        Response response = call(action, args);
+        return response != null ? response.getString(0) : null;
+    }
+    
+    private boolean ok(Action action, Object... args) {
+        return call(action, args) != null;
+    }
+    
+    private static int optionalId(Integer id) {
+        return id != null ? id : 0;
+    }
+    
+    // Subject id -> teacher id, as a MAP argument
+    private static Map<String, String> idMap(Map<Integer, Integer> ids) {
+        Map<String, String> map = new HashMap<>();
+        if (ids != null) {
+            for (Map.Entry<Integer, Integer> entry : ids.entrySet()) {
+                map.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+            }
+        }
+        return map;
+    }
+}
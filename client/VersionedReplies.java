@@ -0,0 +1,83 @@
+import java.util.*;
+
+// The last reply to each read the server stamped with a version, so the
+// next identical request can send that version and take a NOT_MODIFIED
+// instead of the whole reply again (see Frame.FLAG_VERSIONED). Keyed by the
+// request's action and arguments; the least recently used reply is dropped
+// past MAX_REPLIES. Callers always get their own copy of the rows.
+class VersionedReplies {
+    static final int MAX_REPLIES = 128;
+
+    static class Held {
+        final long version;
+        final Response response;
+
+        Held(long version, Response response) {
+            this.version = version;
+            this.response = response;
+        }
+    }
+
+    // Access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Held> replies = new LinkedHashMap<String, Held>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Held> eldest) {
+            return size() > MAX_REPLIES;
+        }
+    };
+    private long notModified;
+    private long refetched;
+
+    static String key(Request request) {
+        return request.toString();
+    }
+
+    synchronized Held get(String key) {
+        return replies.get(key);
+    }
+
+    synchronized void put(String key, long version, Response response) {
+        replies.put(key, new Held(version, copy(response)));
+        refetched++;
+    }
+
+    // The held reply for a NOT_MODIFIED, or null if it was dropped meanwhile
+    synchronized Response reuse(String key) {
+        Held held = replies.get(key);
+        if (held == null) {
+            return null;
+        }
+        notModified++;
+        return copy(held.response);
+    }
+
+    synchronized void clear() {
+        replies.clear();
+    }
+
+    synchronized Map<String, String> getStats() {
+        Map<String, String> stats = new LinkedHashMap<>();
+        stats.put("notModified", String.valueOf(notModified));
+        stats.put("refetched", String.valueOf(refetched));
+        stats.put("held", String.valueOf(replies.size()));
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Response copy(Response response) {
+        List<Object> values = new ArrayList<>(response.getValues().size());
+        for (Object value : response.getValues()) {
+            if (value instanceof List) {
+                List<Object> rows = new ArrayList<>();
+                for (Object row : (List<Object>) value) {
+                    rows.add(row instanceof Map ? new LinkedHashMap<>((Map<Object, Object>) row) : row);
+                }
+                value = rows;
+            } else if (value instanceof Map) {
+                value = new LinkedHashMap<>((Map<Object, Object>) value);
+            }
+            values.add(value);
+        }
+        return new Response(response.getStatus(), values);
+    }
+}
@@ -3,12 +3,13 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 public class AdminController {
     private ClientService clientService;
     
-    public AdminController() {
-        this.clientService = new ClientService();
+    public AdminController(ClientService clientService) {
+        this.clientService = clientService;
     }
     
     // Program Management
@@ -43,11 +44,24 @@ public class AdminController {
         return clientService.getAllPrograms();
     }
     
+    public CompletableFuture<List<Map<String, String>>> getAllProgramsAsync() {
+        return clientService.getAllProgramsAsync();
+    }
+    
+    // Starts the users stream in the background; rows then arrive as the iterator is read
+    public CompletableFuture<ClientService.RowIterator> streamAllUsersAsync() {
+        return clientService.async(this::streamAllUsers);
+    }
+    
     // User Management
     public List<Map<String, String>> getAllUsers() {
         return clientService.getAllUsers();
     }
     
+    public ClientService.RowIterator streamAllUsers() {
+        return clientService.streamAllUsers();
+    }
+    
    // Update the createUser method in AdminController to include debug
 public boolean createUser(String username, String password, String userType, 
                         Integer studentId, Integer teacherId, String email) {
@@ -130,6 +144,10 @@ public boolean createUser(String username, String password, String userType,
         }
     }
     
+    public CompletableFuture<Map<String, Object>> getSystemStatisticsAsync() {
+        return clientService.async(this::getSystemStatistics);
+    }
+    
     // Subject/Topic Management
     public boolean addSubject(String subjectName, int programId, int semester, double coefficient, String objectives) {
         try {
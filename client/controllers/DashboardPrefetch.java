@@ -0,0 +1,110 @@
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// The queries a role's dashboard shows when it opens, all started at once
+// as soon as login succeeds so they overlap with each other and with
+// building the window. Until the view's first fill is done every part of it
+// built from the same query shares that one result; the view then calls
+// interactive(), which logs the time since login for that role, and from
+// there on refreshes go back to the server.
+public class DashboardPrefetch {
+    private final String role;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, CompletableFuture<?>> loads = new ConcurrentHashMap<>();
+    private volatile long interactiveMillis = -1;
+
+    private DashboardPrefetch(String role) {
+        this.role = role;
+    }
+
+    public static DashboardPrefetch start(ClientService clientService, Map<String, String> userInfo) {
+        String role = userInfo.get("userType");
+        DashboardPrefetch prefetch = new DashboardPrefetch(role);
+        try {
+            switch (String.valueOf(role)) {
+                case "STUDENT": {
+                    int studentId = Integer.parseInt(userInfo.get("studentId"));
+                    StudentController students = new StudentController(clientService);
+                    prefetch.loads.put("info", students.getStudentInfoAsync(studentId));
+                    prefetch.loads.put("grades", students.getStudentGradesAsync(studentId));
+                    prefetch.loads.put("average", students.getOverallAverageAsync(studentId));
+                    prefetch.loads.put("status", students.getFinalStatusAsync(studentId));
+                    prefetch.loads.put("subjects", students.getStudentSubjectsAsync(studentId));
+                    break;
+                }
+                case "TEACHER": {
+                    int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+                    prefetch.loads.put("subjects", clientService.getTeacherSubjectsAsync(teacherId));
+                    prefetch.loads.put("exams", clientService.getTeacherExamsAsync(teacherId));
+                    prefetch.loads.put("grades", clientService.getTeacherGradesAsync(teacherId));
+                    prefetch.loads.put("results", clientService.getStudentResultsAsync(teacherId));
+                    prefetch.loads.put("students", clientService.getTeacherStudentsAsync(teacherId));
+                    prefetch.loads.put("statistics", clientService.getTeacherStatisticsAsync(teacherId));
+                    break;
+                }
+                case "RESPONSABLE": {
+                    ResponsableController responsable = new ResponsableController(clientService);
+                    prefetch.loads.put("students", responsable.getAllStudentsAsync());
+                    prefetch.loads.put("programs", responsable.getAllProgramsAsync());
+                    prefetch.loads.put("programStats", responsable.getProgramsWithStatsAsync());
+                    prefetch.loads.put("statistics", responsable.getResponsableStatisticsAsync());
+                    break;
+                }
+                case "ADMIN": {
+                    AdminController admin = new AdminController(clientService);
+                    prefetch.loads.put("programs", admin.getAllProgramsAsync());
+                    prefetch.loads.put("users", admin.streamAllUsersAsync());
+                    prefetch.loads.put("statistics", admin.getSystemStatisticsAsync());
+                    break;
+                }
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("No prefetch for " + role + ": bad id " + e.getMessage());
+        }
+        System.out.println("🚀 Prefetching " + prefetch.loads.size() + " queries for the " + role + " dashboard");
+        return prefetch;
+    }
+
+    // For a view opened without going through login: nothing is started
+    // early and every take falls through to a fresh query
+    public static DashboardPrefetch none(String role) {
+        return new DashboardPrefetch(role);
+    }
+
+    // The prefetched query until the dashboard is interactive, fresh ones after that
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> take(String name, Supplier<CompletableFuture<T>> fresh) {
+        CompletableFuture<T> load = (CompletableFuture<T>) loads.get(name);
+        return load != null ? load : fresh.get();
+    }
+
+    // For a result that can only be read once, such as a row stream
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> takeOnce(String name, Supplier<CompletableFuture<T>> fresh) {
+        CompletableFuture<T> load = (CompletableFuture<T>) loads.remove(name);
+        return load != null ? load : fresh.get();
+    }
+
+    // Logs time-to-interactive once. Every query the view took has finished
+    // by then; any it never asked for is cancelled.
+    public void interactive() {
+        if (interactiveMillis >= 0) {
+            return;
+        }
+        interactiveMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("⏱️ " + role + " dashboard interactive in " + interactiveMillis + " ms");
+        for (CompletableFuture<?> load : loads.values()) {
+            load.cancel(true);
+        }
+        loads.clear();
+    }
+
+    // Milliseconds from login to interactive, or -1 while still loading
+    public long getInteractiveMillis() {
+        return interactiveMillis;
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Grades pasted out of a spreadsheet as CSV or TSV: one row per grade with
+// a student id, an exam id and a score, with or without a header line. The
+// separator is taken from the first line (tab, then ';', then ','), and a
+// decimal comma is accepted in scores. The file is read as a stream and
+// sent as ADD_GRADE BATCH requests of CHUNK_ROWS rows, each one server
+// transaction on one pooled connection, so a large file never holds the
+// database for long. Rows naming a student or exam outside the given id
+// sets, or with a bad score, are reported by line and skipped. The server
+// cannot say which row rolled a chunk back, so such a chunk is split in
+// halves and each sent again, down to single rows: only the failing rows
+// are lost, each reported with its own error, for about log2(CHUNK_ROWS)
+// extra batches per failing row.
+public class GradeImport {
+    static final int CHUNK_ROWS = 500;
+    private static final String ROLLED_BACK = "Batch rolled back";
+
+    private final ClientService clientService;
+    private final Set<Integer> studentIds;
+    private final Set<Integer> examIds;
+
+    // What an import did
+    public static class Result {
+        public int rows;
+        public int imported;
+        // Error per line number, in line order
+        public final Map<Integer, String> errors = new TreeMap<>();
+        public long millis;
+    }
+
+    private static class Row {
+        final int line;
+        final int studentId;
+        final int examId;
+        final double score;
+
+        Row(int line, int studentId, int examId, double score) {
+            this.line = line;
+            this.studentId = studentId;
+            this.examId = examId;
+            this.score = score;
+        }
+    }
+
+    public GradeImport(ClientService clientService, Set<Integer> studentIds, Set<Integer> examIds) {
+        this.clientService = clientService;
+        this.studentIds = studentIds;
+        this.examIds = examIds;
+    }
+
+    // Row errors go into the result; only a failed connection stops the import
+    public Result importFrom(Reader source) throws IOException {
+        long start = System.currentTimeMillis();
+        Result result = new Result();
+        BufferedReader reader = new BufferedReader(source);
+        List<Row> chunk = new ArrayList<>(CHUNK_ROWS);
+        char separator = 0;
+        int studentColumn = 0, examColumn = 1, scoreColumn = 2;
+        int lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (separator == 0) {
+                separator = line.indexOf('\t') >= 0 ? '\t' : (line.indexOf(';') >= 0 ? ';' : ',');
+                List<String> first = split(line, separator);
+                if (!first.isEmpty() && !isInteger(first.get(0).replace("\uFEFF", ""))) {
+                    // A header: find the columns by name, keeping the default order for any not found
+                    for (int i = 0; i < first.size(); i++) {
+                        String name = first.get(i).toLowerCase(Locale.ROOT);
+                        if (name.contains("student") || name.contains("etudiant") || name.contains("étudiant")) {
+                            studentColumn = i;
+                        } else if (name.contains("exam")) {
+                            examColumn = i;
+                        } else if (name.contains("score") || name.contains("grade") || name.contains("note")) {
+                            scoreColumn = i;
+                        }
+                    }
+                    continue;
+                }
+            }
+
+            result.rows++;
+            List<String> fields = split(line, separator);
+            if (fields.size() <= Math.max(studentColumn, Math.max(examColumn, scoreColumn))) {
+                result.errors.put(lineNumber, "Expected student id, exam id and score");
+                continue;
+            }
+            String studentText = fields.get(studentColumn).replace("\uFEFF", "");
+            String examText = fields.get(examColumn);
+            if (!isInteger(studentText) || !studentIds.contains(Integer.parseInt(studentText))) {
+                result.errors.put(lineNumber, "Unknown student: " + studentText);
+                continue;
+            }
+            if (!isInteger(examText) || !examIds.contains(Integer.parseInt(examText))) {
+                result.errors.put(lineNumber, "Unknown exam: " + examText);
+                continue;
+            }
+            String scoreText = fields.get(scoreColumn).replace(',', '.');
+            double score;
+            try {
+                score = Double.parseDouble(scoreText);
+            } catch (NumberFormatException e) {
+                result.errors.put(lineNumber, "Invalid score: " + fields.get(scoreColumn));
+                continue;
+            }
+            if (!(score >= 0 && score <= 20)) {
+                result.errors.put(lineNumber, "Score must be between 0 and 20: " + fields.get(scoreColumn));
+                continue;
+            }
+
+            chunk.add(new Row(lineNumber, Integer.parseInt(studentText), Integer.parseInt(examText), score));
+            if (chunk.size() == CHUNK_ROWS) {
+                send(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            send(chunk, result);
+        }
+
+        result.millis = System.currentTimeMillis() - start;
+        System.out.println("📥 Grade import: " + result.imported + "/" + result.rows + " rows in "
+            + result.millis + " ms, " + result.errors.size() + " errors");
+        return result;
+    }
+
+    private void send(List<Row> rows, Result result) throws IOException {
+        List<Request> items = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            items.add(Request.of(Action.ADD_GRADE, row.studentId, row.examId, row.score));
+        }
+        List<String> statuses = clientService.executeBatch(items);
+        List<Row> rolledBack = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String status = statuses.get(i);
+            if (status != null && status.startsWith("SUCCESS")) {
+                result.imported++;
+            } else if (rows.size() > 1 && status != null && status.startsWith(ROLLED_BACK)) {
+                rolledBack.add(rows.get(i));
+            } else {
+                // Sent alone, a row's rollback is its own error
+                result.errors.put(rows.get(i).line, String.valueOf(status));
+            }
+        }
+        if (rolledBack.size() == 1) {
+            send(rolledBack, result);
+        } else if (!rolledBack.isEmpty()) {
+            int middle = rolledBack.size() / 2;
+            send(rolledBack.subList(0, middle), result);
+            send(rolledBack.subList(middle, rolledBack.size()), result);
+        }
+    }
+
+    // Fields split on the separator; double quotes may wrap a field and ""
+    // inside them stands for one quote
+    static List<String> split(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static boolean isInteger(String text) {
+        if (text.isEmpty() || text.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,13 +2,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.sql.*;
+import java.util.concurrent.CompletableFuture;
 
 public class ResponsableController {
     private ClientService clientService;
     
-    public ResponsableController() {
-        this.clientService = new ClientService();
+    public ResponsableController(ClientService clientService) {
+        this.clientService = clientService;
     }
     
     // Enhanced Student Management - Fixed with proper database calls
@@ -68,55 +68,36 @@ public class ResponsableController {
     
     // Enhanced student deletion with database integration
     public boolean deleteStudent(int studentId) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = clientService.getConnection();
-            
-            // First delete related records (grades, users)
-            String deleteGradesSql = "DELETE FROM grades WHERE student_id = ?";
-            stmt = conn.prepareStatement(deleteGradesSql);
-            stmt.setInt(1, studentId);
-            stmt.executeUpdate();
-            stmt.close();
-            
-            String deleteUserSql = "DELETE FROM users WHERE student_id = ?";
-            stmt = conn.prepareStatement(deleteUserSql);
-            stmt.setInt(1, studentId);
-            stmt.executeUpdate();
-            stmt.close();
-            
-            // Then delete the student
-            String deleteStudentSql = "DELETE FROM students WHERE student_id = ?";
-            stmt = conn.prepareStatement(deleteStudentSql);
-            stmt.setInt(1, studentId);
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                System.out.println("✅ Student deleted successfully!");
-                return true;
-            } else {
-                System.err.println("❌ Failed to delete student");
-                return false;
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error deleting student: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        return clientService.deleteStudent(studentId);
     }
     
     // Get all students - Fixed with database call
+    // Background versions for the views, with the same fallbacks
+    public CompletableFuture<List<Map<String, String>>> getAllStudentsAsync() {
+        return clientService.async(this::getAllStudents);
+    }
+    
+    public CompletableFuture<List<Map<String, String>>> getAllProgramsAsync() {
+        return clientService.async(this::getAllPrograms);
+    }
+    
+    public CompletableFuture<List<Map<String, String>>> getProgramsWithStatsAsync() {
+        return clientService.async(this::getProgramsWithStats);
+    }
+    
+    public CompletableFuture<Map<String, Object>> getResponsableStatisticsAsync() {
+        return clientService.async(this::getResponsableStatistics);
+    }
+    
+    // The deliberation runs on the server; these only start it and read its progress
+    public CompletableFuture<Map<String, String>> startDeliberationAsync() {
+        return clientService.async(clientService::startDeliberation);
+    }
+    
+    public CompletableFuture<Map<String, String>> getDeliberationProgressAsync() {
+        return clientService.async(clientService::getDeliberationProgress);
+    }
+    
     public List<Map<String, String>> getAllStudents() {
         try {
             // Call the actual service method
@@ -201,82 +182,14 @@ public class ResponsableController {
     
     // Enhanced registration deletion
     public boolean deleteRegistration(int studentId) {
-        try {
-            System.out.println("🔄 [DEBUG] Deleting registration for student ID: " + studentId);
-            
-            // Remove program assignment by setting program_id to NULL
-            Connection conn = null;
-            PreparedStatement stmt = null;
-            
-            try {
-                conn = clientService.getConnection();
-                String sql = "UPDATE students SET program_id = NULL, academic_year = NULL WHERE student_id = ?";
-                stmt = conn.prepareStatement(sql);
-                stmt.setInt(1, studentId);
-                
-                int rowsAffected = stmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    System.out.println("✅ Registration deleted successfully!");
-                    return true;
-                } else {
-                    System.err.println("❌ Failed to delete registration");
-                    return false;
-                }
-            } finally {
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Error deleting registration: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        return clientService.deleteRegistration(studentId);
     }
     
  
     
     // Get student registrations
     public List<Map<String, String>> getStudentRegistrations(int studentId) {
-        try {
-            List<Map<String, String>> registrations = new ArrayList<>();
-            
-            Connection conn = null;
-            PreparedStatement stmt = null;
-            ResultSet rs = null;
-            
-            try {
-                conn = clientService.getConnection();
-                String sql = "SELECT s.student_id, s.first_name, s.last_name, p.program_name, s.academic_year " +
-                           "FROM students s " +
-                           "LEFT JOIN programs p ON s.program_id = p.program_id " +
-                           "WHERE s.student_id = ? AND s.program_id IS NOT NULL";
-                
-                stmt = conn.prepareStatement(sql);
-                stmt.setInt(1, studentId);
-                rs = stmt.executeQuery();
-                
-                while (rs.next()) {
-                    Map<String, String> registration = new HashMap<>();
-                    registration.put("studentId", String.valueOf(rs.getInt("student_id")));
-                    registration.put("studentName", rs.getString("first_name") + " " + rs.getString("last_name"));
-                    registration.put("programName", rs.getString("program_name"));
-                    registration.put("academicYear", rs.getString("academic_year"));
-                    registrations.add(registration);
-                }
-                
-                System.out.println("✅ Retrieved " + registrations.size() + " registrations for student ID: " + studentId);
-            } finally {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            }
-            
-            return registrations;
-        } catch (Exception e) {
-            System.err.println("❌ Error getting registrations: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return clientService.getStudentRegistrations(studentId);
     }
     
     // Program Information
@@ -310,80 +223,7 @@ public class ResponsableController {
     
     // Enhanced program statistics with database integration
     public Map<String, Object> getProgramStatistics(int programId) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-        
-        try {
-            conn = clientService.getConnection();
-            
-            Map<String, Object> stats = new HashMap<>();
-            
-            // Total students in program
-            String studentsSql = "SELECT COUNT(*) as total FROM students WHERE program_id = ?";
-            stmt = conn.prepareStatement(studentsSql);
-            stmt.setInt(1, programId);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                stats.put("totalStudents", rs.getInt("total"));
-            }
-            rs.close();
-            stmt.close();
-            
-            // Success rate
-            String successRateSql = "SELECT ROUND(AVG(CASE WHEN g.score >= 10 THEN 1 ELSE 0 END) * 100, 2) as success_rate " +
-                                  "FROM grades g " +
-                                  "JOIN exams e ON g.exam_id = e.exam_id " +
-                                  "JOIN subjects s ON e.subject_id = s.subject_id " +
-                                  "JOIN students st ON g.student_id = st.student_id " +
-                                  "WHERE st.program_id = ?";
-            stmt = conn.prepareStatement(successRateSql);
-            stmt.setInt(1, programId);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                stats.put("successRate", rs.getDouble("success_rate"));
-            } else {
-                stats.put("successRate", 0.0);
-            }
-            rs.close();
-            stmt.close();
-            
-            // Average grade
-            String avgGradeSql = "SELECT ROUND(AVG(g.score), 2) as average FROM grades g " +
-                               "JOIN students s ON g.student_id = s.student_id " +
-                               "WHERE s.program_id = ?";
-            stmt = conn.prepareStatement(avgGradeSql);
-            stmt.setInt(1, programId);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                stats.put("averageGrade", rs.getDouble("average"));
-            } else {
-                stats.put("averageGrade", 0.0);
-            }
-            
-            // Completion rate (estimated)
-            stats.put("completionRate", 78.0); // This would require more complex calculation
-            
-            System.out.println("✅ Retrieved statistics for program ID: " + programId);
-            return stats;
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error getting program statistics: " + e.getMessage());
-            return Map.of(
-                "totalStudents", 0,
-                "successRate", 0.0,
-                "averageGrade", 0.0,
-                "completionRate", 0.0
-            );
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        return clientService.getProgramSuccessStatistics(programId);
     }
     
     // Get responsable statistics
@@ -405,107 +245,12 @@ public class ResponsableController {
     
     // Academic Year Management
     public List<Map<String, String>> getAcademicYears() {
-        try {
-            List<Map<String, String>> years = new ArrayList<>();
-            
-            Connection conn = null;
-            PreparedStatement stmt = null;
-            ResultSet rs = null;
-            
-            try {
-                conn = clientService.getConnection();
-                String sql = "SELECT year_id, start_year, end_year, is_current FROM academic_years ORDER BY start_year DESC";
-                stmt = conn.prepareStatement(sql);
-                rs = stmt.executeQuery();
-                
-                while (rs.next()) {
-                    Map<String, String> year = new HashMap<>();
-                    year.put("yearId", String.valueOf(rs.getInt("year_id")));
-                    year.put("startYear", String.valueOf(rs.getInt("start_year")));
-                    year.put("endYear", String.valueOf(rs.getInt("end_year")));
-                    year.put("yearName", rs.getInt("start_year") + "-" + rs.getInt("end_year"));
-                    year.put("isCurrent", rs.getBoolean("is_current") ? "Yes" : "No");
-                    years.add(year);
-                }
-                
-                // If no years in database, create default ones
-                if (years.isEmpty()) {
-                    for (int i = 0; i < 3; i++) {
-                        Map<String, String> year = new HashMap<>();
-                        int startYear = 2024 + i;
-                        year.put("yearId", String.valueOf(i + 1));
-                        year.put("startYear", String.valueOf(startYear));
-                        year.put("endYear", String.valueOf(startYear + 1));
-                        year.put("yearName", startYear + "-" + (startYear + 1));
-                        year.put("isCurrent", i == 0 ? "Yes" : "No");
-                        years.add(year);
-                    }
-                }
-                
-                System.out.println("✅ Retrieved " + years.size() + " academic years");
-            } finally {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            }
-            
-            return years;
-        } catch (Exception e) {
-            System.err.println("❌ Error getting academic years: " + e.getMessage());
-            
-            // Return default years if database error
-            List<Map<String, String>> years = new ArrayList<>();
-            for (int i = 0; i < 3; i++) {
-                Map<String, String> year = new HashMap<>();
-                int startYear = 2024 + i;
-                year.put("yearId", String.valueOf(i + 1));
-                year.put("yearName", startYear + "-" + (startYear + 1));
-                years.add(year);
-            }
-            return years;
-        }
+        return clientService.getAcademicYears();
     }
     
     // Set current academic year
     public boolean setCurrentAcademicYear(int yearId) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = clientService.getConnection();
-            
-            // First, set all years to not current
-            String resetSql = "UPDATE academic_years SET is_current = FALSE";
-            stmt = conn.prepareStatement(resetSql);
-            stmt.executeUpdate();
-            stmt.close();
-            
-            // Then set the selected year as current
-            String setSql = "UPDATE academic_years SET is_current = TRUE WHERE year_id = ?";
-            stmt = conn.prepareStatement(setSql);
-            stmt.setInt(1, yearId);
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                System.out.println("✅ Set current academic year to ID: " + yearId);
-                return true;
-            } else {
-                System.err.println("❌ Failed to set current academic year");
-                return false;
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error setting academic year: " + e.getMessage());
-            return false;
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        return clientService.setCurrentAcademicYear(yearId);
     }
     
     // Bulk Operations
@@ -617,97 +362,12 @@ public class ResponsableController {
     
     // Update student status
     public boolean updateStudentStatus(int studentId, String status) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = clientService.getConnection();
-            
-            String sql = "UPDATE students SET final_status = ? WHERE student_id = ?";
-            stmt = conn.prepareStatement(sql);
-            stmt.setString(1, status);
-            stmt.setInt(2, studentId);
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                System.out.println("✅ Updated student status to: " + status + " for student ID: " + studentId);
-                return true;
-            } else {
-                System.err.println("❌ Failed to update student status");
-                return false;
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error updating student status: " + e.getMessage());
-            return false;
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
+        return clientService.updateStudentStatus(studentId, status);
     }
     
     // Get student grades - NEW METHOD
     public List<Map<String, String>> getStudentGrades(int studentId) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-        List<Map<String, String>> grades = new ArrayList<>();
-        
-        try {
-            conn = clientService.getConnection();
-            
-            // Query to get student grades with subject information
-            String sql = "SELECT " +
-                        "s.subject_name, " +
-                        "s.credits, " +
-                        "g.grade, " +
-                        "g.semester, " +
-                        "g.academic_year, " +
-                        "g.status, " +
-                        "g.exam_date " +
-                        "FROM grades g " +
-                        "JOIN subjects s ON g.subject_id = s.subject_id " +
-                        "WHERE g.student_id = ? " +
-                        "ORDER BY g.academic_year, g.semester, s.subject_name";
-            
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, studentId);
-            rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                Map<String, String> grade = new HashMap<>();
-                grade.put("subjectName", rs.getString("subject_name"));
-                grade.put("credits", String.valueOf(rs.getDouble("credits")));
-                grade.put("grade", rs.getString("grade"));
-                grade.put("semester", rs.getString("semester"));
-                grade.put("academicYear", rs.getString("academic_year"));
-                grade.put("status", rs.getString("status"));
-                grade.put("examDate", rs.getString("exam_date"));
-                
-                grades.add(grade);
-            }
-            
-            System.out.println("✅ Retrieved " + grades.size() + " grades for student ID: " + studentId);
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error getting student grades: " + e.getMessage());
-            e.printStackTrace();
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            }
-        }
-        
-        return grades;
+        return clientService.getStudentSubjectGrades(studentId);
     }
     
     // Get student performance summary
@@ -2,12 +2,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class StudentController {
     private ClientService clientService;
     
-    public StudentController() {
-       this.clientService = new ClientService();
+    public StudentController(ClientService clientService) {
+       this.clientService = clientService;
     }
     
     // Student Information
@@ -19,6 +20,27 @@ public class StudentController {
         return new HashMap<>();
     }
     
+    // Background versions for the views, with the same fallbacks
+    public CompletableFuture<Map<String, String>> getStudentInfoAsync(int studentId) {
+        return clientService.getStudentInfoAsync(studentId).thenApply(info -> info != null ? info : new HashMap<>());
+    }
+    
+    public CompletableFuture<List<Map<String, String>>> getStudentGradesAsync(int studentId) {
+        return clientService.getStudentGradesAsync(studentId).thenApply(grades -> grades != null ? grades : new ArrayList<>());
+    }
+    
+    public CompletableFuture<Double> getOverallAverageAsync(int studentId) {
+        return clientService.getOverallAverageAsync(studentId).thenApply(average -> average != null ? average : 0.0);
+    }
+    
+    public CompletableFuture<String> getFinalStatusAsync(int studentId) {
+        return clientService.getFinalStatusAsync(studentId);
+    }
+    
+    public CompletableFuture<List<Map<String, String>>> getStudentSubjectsAsync(int studentId) {
+        return clientService.async(() -> getStudentSubjects(studentId));
+    }
+    
     // Grades Management
     public List<Map<String, String>> getStudentGrades(int studentId) {
         try {
@@ -48,8 +70,12 @@ public class StudentController {
     }
     
     public Map<String, Double> getSubjectAverages(int studentId) {
+        return getSubjectAverages(getStudentGrades(studentId));
+    }
+    
+    // From grades already loaded, without another round trip
+    public Map<String, Double> getSubjectAverages(List<Map<String, String>> grades) {
         try {
-            List<Map<String, String>> grades = getStudentGrades(studentId);
             Map<String, Double> subjectAverages = new HashMap<>();
             Map<String, Double> subjectTotals = new HashMap<>();
             Map<String, Double> subjectWeights = new HashMap<>();
@@ -132,9 +158,12 @@ public class StudentController {
     }
     
     public Map<String, Object> getAcademicProgress(int studentId) {
+        return getAcademicProgress(getOverallAverage(studentId), getStudentGrades(studentId));
+    }
+    
+    // From an average and grades already loaded, without another round trip
+    public Map<String, Object> getAcademicProgress(double average, List<Map<String, String>> grades) {
         try {
-            double average = getOverallAverage(studentId);
-            List<Map<String, String>> grades = getStudentGrades(studentId);
             int totalExams = grades != null ? grades.size() : 0;
             int passedExams = 0;
             
@@ -6,8 +6,8 @@ import java.util.HashMap;
 public class TeacherController {
     private ClientService clientService;
     
-    public TeacherController() {
-      this.clientService = new ClientService();
+    public TeacherController(ClientService clientService) {
+      this.clientService = clientService;
     }
     
     // Exam Management - FIXED: Now gets actual subject name
@@ -7,12 +7,15 @@ import java.util.Map;
 import java.util.List;
 import java.util.HashMap; 
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
 public class AdminView extends JFrame {
     private AdminController adminController;
     private Map<String, String> userInfo;
+    private UiTasks tasks;
+    private DashboardPrefetch prefetch;
     
     private JTabbedPane tabbedPane;
     private JTable usersTable;
@@ -32,10 +35,17 @@ public class AdminView extends JFrame {
     private final Color PURPLE = new Color(156, 39, 176);
     
     public AdminView(AdminController adminController, Map<String, String> userInfo) {
+        this(adminController, userInfo, DashboardPrefetch.none("ADMIN"));
+    }
+    
+    public AdminView(AdminController adminController, Map<String, String> userInfo, DashboardPrefetch prefetch) {
         this.adminController = adminController;
         this.userInfo = userInfo;
+        this.tasks = new UiTasks(this);
+        this.prefetch = prefetch;
         initializeUI();
         loadData();
+        tasks.whenIdle(prefetch::interactive);
     }
     
     private void initializeUI() {
@@ -363,11 +373,13 @@ public class AdminView extends JFrame {
     private void loadData() {
         loadPrograms();
         loadUsers();
+        
+        // The report tab opens already filled; its button fetches a new one
+        tasks.load(prefetch.take("statistics", adminController::getSystemStatisticsAsync), "statistics", this::showStatistics);
     }
     
     private void loadPrograms() {
-        try {
-            List<Map<String, String>> programs = adminController.getAllPrograms();
+        tasks.load(prefetch.take("programs", adminController::getAllProgramsAsync), "programs", programs -> {
             DefaultTableModel model = (DefaultTableModel) programsTable.getModel();
             model.setRowCount(0);
             
@@ -380,68 +392,103 @@ public class AdminView extends JFrame {
                     "Manage"
                 });
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error loading programs: " + e.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
+    // Rows are added as they arrive from the server instead of after the last one
     private void loadUsers() {
-        try {
-            List<Map<String, String>> users = adminController.getAllUsers();
-            DefaultTableModel model = (DefaultTableModel) usersTable.getModel();
-            model.setRowCount(0);
+        DefaultTableModel model = (DefaultTableModel) usersTable.getModel();
+        model.setRowCount(0);
+        
+        CompletableFuture<ClientService.RowIterator> stream = prefetch.takeOnce("users", adminController::streamAllUsersAsync);
+        // Done once the last row is in the table; tracked like any other load
+        CompletableFuture<Void> loaded = new CompletableFuture<>();
+        tasks.load(loaded, "users", done -> { });
+        
+        SwingWorker<Void, Object[]> worker = new SwingWorker<Void, Object[]>() {
+            @Override
+            protected Void doInBackground() {
+                ClientService.RowIterator users = stream.join();
+                while (users.hasNext()) {
+                    Map<String, String> user = users.next();
+                    publish(new Object[]{
+                        user.get("userId"),
+                        user.get("username"),
+                        user.get("userType"),
+                        user.get("firstName"),
+                        user.get("lastName"),
+                        user.get("status"),
+                        "Manage"
+                    });
+                }
+                return null;
+            }
             
-            for (Map<String, String> user : users) {
-                model.addRow(new Object[]{
-                    user.get("userId"),
-                    user.get("username"),
-                    user.get("userType"),
-                    user.get("firstName"),
-                    user.get("lastName"),
-                    user.get("status"),
-                    "Manage"
-                });
+            @Override
+            protected void process(List<Object[]> rows) {
+                for (Object[] row : rows) {
+                    model.addRow(row);
+                }
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error loading users: " + e.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+            
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    loaded.complete(null);
+                } catch (Exception e) {
+                    loaded.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+                }
+            }
+        };
+        loaded.whenComplete((done, error) -> {
+            if (loaded.isCancelled()) {
+                worker.cancel(true);
+            }
+        });
+        worker.execute();
     }
     
     private void generateStatistics() {
-        try {
-            Map<String, Object> stats = adminController.getSystemStatistics();
-            
-            StringBuilder statsText = new StringBuilder();
-            statsText.append("📊 System Statistics Report\n");
-            statsText.append("Generated on: ").append(new java.util.Date()).append("\n\n");
-            statsText.append("• Total Students: ").append(stats.get("totalStudents")).append("\n");
-            statsText.append("• Total Teachers: ").append(stats.get("totalTeachers")).append("\n");
-            statsText.append("• Total Programs: ").append(stats.get("totalPrograms")).append("\n");
-            statsText.append("• Active Users: ").append(stats.get("activeUsers")).append("\n");
-            statsText.append("• Success Rate: ").append(stats.get("successRate")).append("%\n");
-            statsText.append("• Failure Rate: ").append(stats.get("failureRate")).append("%\n");
-            statsText.append("• Average Grade: ").append(stats.get("averageGrade")).append("/20\n");
-            statsText.append("• System Uptime: ").append(stats.get("systemUptime")).append("%\n\n");
-            
-            if (stats.containsKey("detailedAnalysis")) {
-                statsText.append("📈 Detailed Analysis:\n").append(stats.get("detailedAnalysis"));
+        generateStatsButton.setEnabled(false);
+        tasks.load(adminController.getSystemStatisticsAsync(), stats -> {
+            generateStatsButton.setEnabled(true);
+            if (showStatistics(stats)) {
+                JOptionPane.showMessageDialog(this,
+                    "Statistics generated successfully!",
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
             }
-            
-            statsTextArea.setText(statsText.toString());
-            
-            JOptionPane.showMessageDialog(this,
-                "Statistics generated successfully!",
-                "Success", JOptionPane.INFORMATION_MESSAGE);
-                
-        } catch (Exception e) {
+        }, error -> {
+            generateStatsButton.setEnabled(true);
             JOptionPane.showMessageDialog(this, 
-                "Error generating statistics: " + e.getMessage(), 
+                "Error generating statistics: " + error.getMessage(), 
                 "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+    
+    private boolean showStatistics(Map<String, Object> stats) {
+        if (stats == null) {
+            statsTextArea.setText("No statistics available");
+            return false;
         }
+        StringBuilder statsText = new StringBuilder();
+        statsText.append("📊 System Statistics Report\n");
+        statsText.append("Generated on: ").append(new java.util.Date()).append("\n\n");
+        statsText.append("• Total Students: ").append(stats.get("totalStudents")).append("\n");
+        statsText.append("• Total Teachers: ").append(stats.get("totalTeachers")).append("\n");
+        statsText.append("• Total Programs: ").append(stats.get("totalPrograms")).append("\n");
+        statsText.append("• Active Users: ").append(stats.get("activeUsers")).append("\n");
+        statsText.append("• Success Rate: ").append(stats.get("successRate")).append("%\n");
+        statsText.append("• Failure Rate: ").append(stats.get("failureRate")).append("%\n");
+        statsText.append("• Average Grade: ").append(stats.get("averageGrade")).append("/20\n");
+        statsText.append("• System Uptime: ").append(stats.get("systemUptime")).append("%\n\n");
+        
+        if (stats.containsKey("detailedAnalysis")) {
+            statsText.append("📈 Detailed Analysis:\n").append(stats.get("detailedAnalysis"));
+        }
+        
+        statsTextArea.setText(statsText.toString());
+        return true;
     }
     
 private void showAddUserDialog() {
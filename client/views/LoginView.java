@@ -122,9 +122,17 @@ public class LoginView extends JFrame {
                 // Use database authentication
                 Map<String, String> userInfo = clientService.authenticateWithDatabase(username, password);
                 
+                // Start the dashboard's queries now, while the window is still being built
+                DashboardPrefetch prefetch = null;
+                if (userInfo != null) {
+                    fillMissingIds(userInfo);
+                    prefetch = DashboardPrefetch.start(clientService, userInfo);
+                }
+                DashboardPrefetch started = prefetch;
+                
                 SwingUtilities.invokeLater(() -> {
                     if (userInfo != null) {
-                        navigateToDashboard(userInfo);
+                        navigateToDashboard(userInfo, started);
                     } else {
                         showError("Invalid username or password. Try:\n" +
                                  "• admin / password\n" +
@@ -158,6 +166,11 @@ public class LoginView extends JFrame {
     }
     
     public void navigateToDashboard(Map<String, String> userInfo) {
+        fillMissingIds(userInfo);
+        navigateToDashboard(userInfo, DashboardPrefetch.start(clientService, userInfo));
+    }
+    
+    private void navigateToDashboard(Map<String, String> userInfo, DashboardPrefetch prefetch) {
         String userType = userInfo.get("userType");
         
         System.out.println("Navigating to dashboard for: " + userType);
@@ -165,32 +178,23 @@ public class LoginView extends JFrame {
         
         switch (userType) {
             case "STUDENT":
-                if (userInfo.get("studentId") == null) {
-                    userInfo.put("studentId", "1001");
-                }
-                StudentController studentController = new StudentController();
-                new StudentView(studentController, userInfo).setVisible(true);
+                StudentController studentController = new StudentController(clientService);
+                new StudentView(studentController, userInfo, prefetch).setVisible(true);
                 break;
                 
             case "TEACHER":
-                if (userInfo.get("teacherId") == null) {
-                    userInfo.put("teacherId", "2001");
-                }
                 // Use ClientService directly since we don't have TeacherController
-                new TeacherView(clientService, userInfo).setVisible(true);
+                new TeacherView(clientService, userInfo, prefetch).setVisible(true);
                 break;
                 
             case "RESPONSABLE":
-                if (userInfo.get("responsableId") == null) {
-                    userInfo.put("responsableId", "3001");
-                }
-                ResponsableController responsableController = new ResponsableController();
-                new ResponsableView(responsableController, userInfo).setVisible(true);
+                ResponsableController responsableController = new ResponsableController(clientService);
+                new ResponsableView(responsableController, userInfo, prefetch).setVisible(true);
                 break;
                 
             case "ADMIN":
-                AdminController adminController = new AdminController();
-                new AdminView(adminController, userInfo).setVisible(true);
+                AdminController adminController = new AdminController(clientService);
+                new AdminView(adminController, userInfo, prefetch).setVisible(true);
                 break;
                 
             default:
@@ -201,4 +205,20 @@ public class LoginView extends JFrame {
         }
         this.dispose();
     }
-}
\ No newline at end of file
+    
+    private static void fillMissingIds(Map<String, String> userInfo) {
+        switch (String.valueOf(userInfo.get("userType"))) {
+            case "STUDENT":
+                userInfo.putIfAbsent("studentId", "1001");
+                break;
+            case "TEACHER":
+                userInfo.putIfAbsent("teacherId", "2001");
+                break;
+            case "RESPONSABLE":
+                userInfo.putIfAbsent("responsableId", "3001");
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -6,10 +6,13 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class ResponsableView extends JFrame {
     private ResponsableController responsableController;
     private Map<String, String> userInfo;
+    private UiTasks tasks;
+    private DashboardPrefetch prefetch;
     
     private JTabbedPane tabbedPane;
     private JTable studentsTable;
@@ -19,10 +22,17 @@ public class ResponsableView extends JFrame {
     private JButton addStudentButton, registerStudentButton, refreshButton;
     
     public ResponsableView(ResponsableController responsableController, Map<String, String> userInfo) {
+        this(responsableController, userInfo, DashboardPrefetch.none("RESPONSABLE"));
+    }
+    
+    public ResponsableView(ResponsableController responsableController, Map<String, String> userInfo, DashboardPrefetch prefetch) {
         this.responsableController = responsableController;
         this.userInfo = userInfo;
+        this.tasks = new UiTasks(this);
+        this.prefetch = prefetch;
         initializeUI();
         loadData();
+        tasks.whenIdle(prefetch::interactive);
     }
    
     private void initializeUI() {
@@ -202,6 +212,12 @@ public class ResponsableView extends JFrame {
         refreshButton.addActionListener(e -> loadStudents());
         toolbarPanel.add(refreshButton);
         
+        JButton deliberationButton = new JButton("⚖️ Run Deliberation");
+        deliberationButton.setBackground(new Color(156, 39, 176));
+        deliberationButton.setForeground(Color.WHITE);
+        deliberationButton.addActionListener(e -> runDeliberation(deliberationButton));
+        toolbarPanel.add(deliberationButton);
+        
         // Students Table
         String[] columns = {"Student ID", "First Name", "Last Name", "Email", "Phone", "School Origin", "Program", "Status", "Actions"};
         DefaultTableModel model = new DefaultTableModel(columns, 0) {
@@ -418,6 +434,94 @@ private void registerStudent(ActionEvent e) {
         yearCombo.setSelectedIndex(0);
     }
     
+    // Starts the current year's deliberation on the server, or resumes an
+    // interrupted one, and follows its progress until it is done
+    private void runDeliberation(JButton deliberationButton) {
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Compute the final status, overall average and credits of every student\n" +
+            "registered in the current academic year?\n" +
+            "An interrupted deliberation resumes where it stopped.",
+            "Run Deliberation", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+        deliberationButton.setEnabled(false);
+        
+        JDialog dialog = new JDialog(this, "Deliberation", false);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        JLabel phaseLabel = new JLabel("Starting...");
+        JPanel content = new JPanel(new BorderLayout(10, 10));
+        content.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        content.add(phaseLabel, BorderLayout.NORTH);
+        content.add(progressBar, BorderLayout.CENTER);
+        dialog.add(content);
+        dialog.setSize(420, 130);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+        
+        // Polls once a second, each poll scheduled when the last one has answered
+        Timer poll = new Timer(1000, null);
+        poll.setRepeats(false);
+        java.util.function.Consumer<Map<String, String>> show = progress -> {
+            String phase = progress.get("phase");
+            if (phase == null) {
+                progress.put("error", "Not connected to the server");
+                phase = "FAILED";
+            }
+            switch (phase) {
+                case "READING":
+                    phaseLabel.setText("Reading grades: " + progress.getOrDefault("gradesRead", "0") + " read, "
+                        + progress.getOrDefault("students", "0") + " students");
+                    break;
+                case "DECIDING":
+                    phaseLabel.setText("Computing results of " + progress.getOrDefault("students", "0") + " students...");
+                    break;
+                case "WRITING": {
+                    int students = Integer.parseInt(progress.getOrDefault("students", "0"));
+                    int written = Integer.parseInt(progress.getOrDefault("written", "0"));
+                    progressBar.setIndeterminate(false);
+                    progressBar.setMaximum(Math.max(1, students));
+                    progressBar.setValue(written);
+                    phaseLabel.setText("Saving results: " + written + " / " + students + " students");
+                    break;
+                }
+                case "DONE":
+                case "FAILED":
+                    dialog.dispose();
+                    deliberationButton.setEnabled(true);
+                    if ("DONE".equals(phase)) {
+                        JOptionPane.showMessageDialog(this,
+                            "Deliberation finished in " + progress.getOrDefault("millis", "?") + " ms\n\n" +
+                            "Students with grades: " + progress.getOrDefault("students", "0") +
+                            " of " + progress.getOrDefault("registered", "0") + " registered\n" +
+                            "ADMIS: " + progress.getOrDefault("admis", "0") + "\n" +
+                            "REDOUBLANT: " + progress.getOrDefault("redoublant", "0") + "\n" +
+                            "EXCLU: " + progress.getOrDefault("exclu", "0"),
+                            "Deliberation", JOptionPane.INFORMATION_MESSAGE);
+                        loadStudents();
+                    } else {
+                        JOptionPane.showMessageDialog(this,
+                            "Deliberation stopped: " + progress.get("error") + "\n" +
+                            "Run it again to resume from the last saved student.",
+                            "Deliberation", JOptionPane.ERROR_MESSAGE);
+                    }
+                    return;
+                default:
+                    phaseLabel.setText("Starting...");
+            }
+            poll.restart();
+        };
+        java.util.function.Consumer<Throwable> failed = error -> {
+            dialog.dispose();
+            deliberationButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Error following deliberation: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        };
+        poll.addActionListener(e -> tasks.load(responsableController.getDeliberationProgressAsync(), show, failed));
+        tasks.load(responsableController.startDeliberationAsync(), show, failed);
+    }
+    
     private void loadData() {
         loadStudents();
         loadProgramsToComboBox();
@@ -426,11 +530,9 @@ private void registerStudent(ActionEvent e) {
 private void loadStudents() {
     System.out.println("🔄 ========== STARTING LOAD STUDENTS ==========");
     
-    try {
-        // Get students from database using controller
-        System.out.println("🔍 [DEBUG] Calling responsableController.getAllStudents()");
-        List<Map<String, String>> students = responsableController.getAllStudents();
-        
+    // Get students from database using controller, in the background
+    System.out.println("🔍 [DEBUG] Calling responsableController.getAllStudentsAsync()");
+    tasks.load(prefetch.take("students", responsableController::getAllStudentsAsync), "students", students -> {
         System.out.println("📊 [DEBUG] Received students list size: " + students.size());
         
         // Debug the table model
@@ -487,18 +589,12 @@ private void loadStudents() {
         // Update statistics
         updateStatistics();
         
-    } catch (Exception e) {
-        System.err.println("❌ [DEBUG] Error loading students: " + e.getMessage());
-        e.printStackTrace();
-        JOptionPane.showMessageDialog(this, "Error loading students: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-    }
-    
-    System.out.println("🔄 ========== FINISHED LOAD STUDENTS ==========");
+        System.out.println("🔄 ========== FINISHED LOAD STUDENTS ==========");
+    });
 }
     
     private void loadProgramsToComboBox() {
-        try {
-            List<Map<String, String>> programs = responsableController.getAllPrograms();
+        tasks.load(prefetch.take("programs", responsableController::getAllProgramsAsync), "programs", programs -> {
             programCombo.removeAllItems();
             
             if (programs.isEmpty()) {
@@ -508,14 +604,11 @@ private void loadStudents() {
                     programCombo.addItem(program.get("programName"));
                 }
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading programs: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
     private void loadProgramsToTextArea(JTextArea textArea) {
-        try {
-            List<Map<String, String>> programs = responsableController.getProgramsWithStats();
+        tasks.load(prefetch.take("programStats", responsableController::getProgramsWithStatsAsync), programs -> {
             StringBuilder sb = new StringBuilder("Academic Programs Overview\n\n");
             
             if (programs.isEmpty()) {
@@ -532,9 +625,7 @@ private void loadStudents() {
             }
             
             textArea.setText(sb.toString());
-        } catch (Exception e) {
-            textArea.setText("Error loading programs data: " + e.getMessage());
-        }
+        }, error -> textArea.setText("Error loading programs data: " + error.getMessage()));
     }
     
     private void loadStatistics(JPanel statsPanel) {
@@ -542,9 +633,12 @@ private void loadStudents() {
     }
     
     private void updateStatistics() {
+        tasks.load(prefetch.take("statistics", responsableController::getResponsableStatisticsAsync),
+            this::showStatistics, error -> System.err.println("Error updating statistics: " + error.getMessage()));
+    }
+    
+    private void showStatistics(Map<String, Object> stats) {
         try {
-            Map<String, Object> stats = responsableController.getResponsableStatistics();
-            
             // Update the statistics panel in the programs tab
             Component[] components = tabbedPane.getComponents();
             for (Component comp : components) {
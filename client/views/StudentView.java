@@ -3,11 +3,15 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.Map;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.text.MessageFormat;
 public class StudentView extends JFrame {
     private StudentController studentController;
     private Map<String, String> userInfo;
+    private UiTasks tasks;
+    private DashboardPrefetch prefetch;
     
     private JTabbedPane tabbedPane;
     private JLabel welcomeLabel;
@@ -20,11 +24,20 @@ private JLabel transcriptAverageLabel;
 private JLabel transcriptStatusLabel;
 private JLabel transcriptRankLabel;
 private JLabel transcriptCreditsLabel;
+    private JTextArea statsTextArea;
+    private DefaultTableModel subjectsModel;
     public StudentView(StudentController studentController, Map<String, String> userInfo) {
+        this(studentController, userInfo, DashboardPrefetch.none("STUDENT"));
+    }
+    
+    public StudentView(StudentController studentController, Map<String, String> userInfo, DashboardPrefetch prefetch) {
         this.studentController = studentController;
         this.userInfo = userInfo;
+        this.tasks = new UiTasks(this);
+        this.prefetch = prefetch;
         initializeUI();
         loadStudentData();
+        tasks.whenIdle(prefetch::interactive);
     }
     
     private void initializeUI() {
@@ -543,13 +556,10 @@ private String calculateCredits(List<Map<String, String>> transcript) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
-        JTextArea statsTextArea = new JTextArea();
+        statsTextArea = new JTextArea("Loading statistics...");
         statsTextArea.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         statsTextArea.setEditable(false);
         
-        // Load statistics data
-        loadStudentStatistics(statsTextArea);
-        
         JScrollPane scrollPane = new JScrollPane(statsTextArea);
         panel.add(scrollPane, BorderLayout.CENTER);
         
@@ -557,71 +567,79 @@ private String calculateCredits(List<Map<String, String>> transcript) {
     }
     
 private void loadStudentData() {
+    int studentId;
     try {
-        int studentId = Integer.parseInt(userInfo.get("studentId"));
-        
-        // Load personal info from controller
-        Map<String, String> studentInfo = studentController.getStudentInfo(studentId);
-        if (studentInfo != null) {
-            StringBuilder info = new StringBuilder();
-            info.append("Student ID: ").append(studentInfo.get("studentId")).append("\n");
-            info.append("First Name: ").append(studentInfo.get("firstName")).append("\n");
-            info.append("Last Name: ").append(studentInfo.get("lastName")).append("\n");
-            info.append("School Origin: ").append(studentInfo.get("schoolOrigin")).append("\n");
-            info.append("Email: ").append(studentInfo.get("email")).append("\n");
-            info.append("Phone: ").append(studentInfo.get("phone")).append("\n");
-            info.append("Program: ").append(studentInfo.get("program")).append("\n");
-            info.append("Academic Year: ").append(studentInfo.get("academicYear")).append("\n");
-            info.append("Registration Date: ").append(studentInfo.get("registrationDate")).append("\n");
-            infoTextArea.setText(info.toString());
-        }
-        
-        // Load grades from controller
-        List<Map<String, String>> grades = studentController.getStudentGrades(studentId);
-        if (grades != null && !grades.isEmpty()) {
-            DefaultTableModel model = (DefaultTableModel) gradesTable.getModel();
-            model.setRowCount(0);
-            for (Map<String, String> grade : grades) {
-                model.addRow(new Object[]{
-                    grade.get("subject"),
-                    grade.get("exam"),
-                    grade.get("type"),
-                    grade.get("coefficient"),
-                    grade.get("score")
-                });
-            }
+        studentId = Integer.parseInt(userInfo.get("studentId"));
+    } catch (Exception e) {
+        JOptionPane.showMessageDialog(this, "Error loading student data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        return;
+    }
+    
+    // The loads run in the background side by side, started at login when
+    // the prefetch has them; each fills its part of the window as soon as it
+    // arrives, and the statistics and subjects tabs reuse the same results
+    CompletableFuture<Map<String, String>> details = prefetch.take("info", () -> studentController.getStudentInfoAsync(studentId));
+    CompletableFuture<List<Map<String, String>>> grades = prefetch.take("grades", () -> studentController.getStudentGradesAsync(studentId));
+    CompletableFuture<Double> average = prefetch.take("average", () -> studentController.getOverallAverageAsync(studentId));
+    CompletableFuture<String> status = prefetch.take("status", () -> studentController.getFinalStatusAsync(studentId));
+    CompletableFuture<List<Map<String, String>>> subjects = prefetch.take("subjects", () -> studentController.getStudentSubjectsAsync(studentId));
+    
+    tasks.load(details, "student information", studentInfo -> {
+        StringBuilder info = new StringBuilder();
+        info.append("Student ID: ").append(studentInfo.get("studentId")).append("\n");
+        info.append("First Name: ").append(studentInfo.get("firstName")).append("\n");
+        info.append("Last Name: ").append(studentInfo.get("lastName")).append("\n");
+        info.append("School Origin: ").append(studentInfo.get("schoolOrigin")).append("\n");
+        info.append("Email: ").append(studentInfo.get("email")).append("\n");
+        info.append("Phone: ").append(studentInfo.get("phone")).append("\n");
+        info.append("Program: ").append(studentInfo.get("program")).append("\n");
+        info.append("Academic Year: ").append(studentInfo.get("academicYear")).append("\n");
+        info.append("Registration Date: ").append(studentInfo.get("registrationDate")).append("\n");
+        infoTextArea.setText(info.toString());
+    });
+    
+    tasks.load(grades, "grades", gradeRows -> {
+        DefaultTableModel model = (DefaultTableModel) gradesTable.getModel();
+        model.setRowCount(0);
+        for (Map<String, String> grade : gradeRows) {
+            model.addRow(new Object[]{
+                grade.get("subject"),
+                grade.get("exam"),
+                grade.get("type"),
+                grade.get("coefficient"),
+                grade.get("score")
+            });
         }
-        
-        // Subjects are automatically loaded in createSubjectsPanel()
-        // So no need to load them here separately
-        
-        // Load overall average from controller
-        double average = studentController.getOverallAverage(studentId);
-        averageLabel.setText(String.format("Overall Average: %.2f", average));
-        
-        // Load final status from controller - FIXED NULL CHECK
-        String status = studentController.getFinalStatus(studentId);
+    });
+    
+    tasks.load(average, "overall average",
+        value -> averageLabel.setText(String.format("Overall Average: %.2f", value)));
+    
+    tasks.load(status, "final status", finalStatus -> {
         String statusText = "Status: " + 
-            (status != null ? 
-                (status.equals("ADMIS") ? "Admitted" : 
-                 status.equals("REDOUBLANT") ? "Repeating" : 
-                 status.equals("EXCLU") ? "Excluded" : "Unknown") 
+            (finalStatus != null ? 
+                (finalStatus.equals("ADMIS") ? "Admitted" : 
+                 finalStatus.equals("REDOUBLANT") ? "Repeating" : 
+                 finalStatus.equals("EXCLU") ? "Excluded" : "Unknown") 
                 : "Not Set");
         statusLabel.setText(statusText);
-        
-    } catch (Exception e) {
-        JOptionPane.showMessageDialog(this, "Error loading student data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        e.printStackTrace();
-    }
+    });
+    
+    tasks.load(average.thenCombine(grades, this::statisticsText), statsTextArea::setText,
+        error -> statsTextArea.setText("Error loading statistics: " + error.getMessage()));
+    
+    tasks.load(details.thenCombine(subjects, this::subjectRows), rows -> {
+        for (Object[] row : rows) {
+            subjectsModel.addRow(row);
+        }
+    }, error -> subjectsModel.addRow(new Object[]{"ERROR: " + error.getMessage(), "", "", "", ""}));
 }
     
-    private void loadStudentStatistics(JTextArea statsTextArea) {
+    // Built from the average and grades the dashboard already loaded
+    private String statisticsText(double average, List<Map<String, String>> grades) {
         try {
-            int studentId = Integer.parseInt(userInfo.get("studentId"));
-            
-            // Get statistics from controller
-            Map<String, Object> progress = studentController.getAcademicProgress(studentId);
-            Map<String, Double> subjectAverages = studentController.getSubjectAverages(studentId);
+            Map<String, Object> progress = studentController.getAcademicProgress(average, grades);
+            Map<String, Double> subjectAverages = studentController.getSubjectAverages(grades);
             
             StringBuilder statsText = new StringBuilder();
             statsText.append("Academic Statistics\n\n");
@@ -643,9 +661,9 @@ private void loadStudentData() {
                 statsText.append("• No subject averages available\n");
             }
             
-            statsTextArea.setText(statsText.toString());
+            return statsText.toString();
         } catch (Exception e) {
-            statsTextArea.setText("Error loading statistics: " + e.getMessage());
+            return "Error loading statistics: " + e.getMessage();
         }
     }
  private JPanel createSubjectsPanel() {
@@ -672,31 +690,52 @@ private void loadStudentData() {
     subjectsTable.getColumnModel().getColumn(3).setCellRenderer(centerRenderer); // Credits
     subjectsTable.getColumnModel().getColumn(4).setCellRenderer(centerRenderer); // Volume Horaire
     
-    // Load subjects with debug information
+    // Rows are added by loadStudentData once the student's info and subjects arrive
+    subjectsModel = model;
+    
+    JScrollPane scrollPane = new JScrollPane(subjectsTable);
+    scrollPane.setBorder(BorderFactory.createTitledBorder("My Subjects"));
+    
+    // Add debug button
+    JPanel toolbarPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    JButton refreshButton = new JButton("Refresh Subjects");
+    JButton debugButton = new JButton("Debug Info");
+    
+    refreshButton.addActionListener(e -> refreshSubjectsTable(model));
+    debugButton.addActionListener(e -> showDebugInfo());
+    
+    toolbarPanel.add(refreshButton);
+    toolbarPanel.add(debugButton);
+    
+    panel.add(toolbarPanel, BorderLayout.NORTH);
+    panel.add(scrollPane, BorderLayout.CENTER);
+    
+    return panel;
+}
+
+// Rows of the subjects tab, computed off the event thread
+private List<Object[]> subjectRows(Map<String, String> studentInfo, List<Map<String, String>> subjects) {
+    List<Object[]> rows = new ArrayList<>();
     try {
-        int studentId = Integer.parseInt(userInfo.get("studentId"));
-        System.out.println("🔍 [DEBUG] Loading subjects for student ID: " + studentId);
+        System.out.println("🔍 [DEBUG] Loading subjects for student ID: " + userInfo.get("studentId"));
         
         // First, let's check if the student has a program
-        Map<String, String> studentInfo = studentController.getStudentInfo(studentId);
         if (studentInfo != null) {
             String programName = studentInfo.get("program");
             System.out.println("🔍 [DEBUG] Student program: " + programName);
             
             if (programName == null || programName.equals("Not assigned") || programName.equals("Unknown Program")) {
                 System.out.println("❌ [DEBUG] Student is not assigned to any program!");
-                model.addRow(new Object[]{"NOT ASSIGNED TO PROGRAM", "Contact administrator", "", "", ""});
+                rows.add(new Object[]{"NOT ASSIGNED TO PROGRAM", "Contact administrator", "", "", ""});
             } else {
                 System.out.println("✅ [DEBUG] Student is in program: " + programName);
                 
-                // Now load subjects
-                List<Map<String, String>> subjects = studentController.getStudentSubjects(studentId);
-                
+                // Now the subjects
                 if (subjects != null && !subjects.isEmpty()) {
                     System.out.println("✅ [DEBUG] Found " + subjects.size() + " subjects");
                     for (Map<String, String> subject : subjects) {
                         System.out.println("   - " + subject.get("subjectName") + " (S" + subject.get("semester") + ")");
-                        model.addRow(new Object[]{
+                        rows.add(new Object[]{
                             subject.get("subjectName"),
                             subject.get("semester"),
                             subject.get("coefficient"),
@@ -706,38 +745,20 @@ private void loadStudentData() {
                     }
                 } else {
                     System.out.println("❌ [DEBUG] No subjects returned from controller");
-                    model.addRow(new Object[]{"NO SUBJECTS FOUND", "Check program configuration", "", "", ""});
+                    rows.add(new Object[]{"NO SUBJECTS FOUND", "Check program configuration", "", "", ""});
                 }
             }
         } else {
             System.out.println("❌ [DEBUG] Could not load student info");
-            model.addRow(new Object[]{"ERROR LOADING STUDENT INFO", "", "", "", ""});
+            rows.add(new Object[]{"ERROR LOADING STUDENT INFO", "", "", "", ""});
         }
         
     } catch (Exception e) {
         System.err.println("❌ [DEBUG] Error loading subjects: " + e.getMessage());
         e.printStackTrace();
-        model.addRow(new Object[]{"ERROR: " + e.getMessage(), "", "", "", ""});
+        rows.add(new Object[]{"ERROR: " + e.getMessage(), "", "", "", ""});
     }
-    
-    JScrollPane scrollPane = new JScrollPane(subjectsTable);
-    scrollPane.setBorder(BorderFactory.createTitledBorder("My Subjects"));
-    
-    // Add debug button
-    JPanel toolbarPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-    JButton refreshButton = new JButton("Refresh Subjects");
-    JButton debugButton = new JButton("Debug Info");
-    
-    refreshButton.addActionListener(e -> refreshSubjectsTable(model));
-    debugButton.addActionListener(e -> showDebugInfo());
-    
-    toolbarPanel.add(refreshButton);
-    toolbarPanel.add(debugButton);
-    
-    panel.add(toolbarPanel, BorderLayout.NORTH);
-    panel.add(scrollPane, BorderLayout.CENTER);
-    
-    return panel;
+    return rows;
 }
 
 private void showDebugInfo() {
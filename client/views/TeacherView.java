@@ -3,12 +3,18 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class TeacherView extends JFrame {
     private ClientService clientService;
     private Map<String, String> userInfo;
+    private UiTasks tasks;
+    private DashboardPrefetch prefetch;
+    private JLabel subjectLabel;
     
     private JTabbedPane tabbedPane;
     private JTable examsTable;
@@ -21,13 +27,23 @@ public class TeacherView extends JFrame {
     private JButton createExamButton, addGradeButton, refreshButton;
     
     public TeacherView(ClientService clientService, Map<String, String> userInfo) {
+    this(clientService, userInfo, DashboardPrefetch.none("TEACHER"));
+}
+
+    public TeacherView(ClientService clientService, Map<String, String> userInfo, DashboardPrefetch prefetch) {
     this.clientService = clientService;
     this.userInfo = userInfo;
+    this.tasks = new UiTasks(this);
+    this.prefetch = prefetch;
     initializeUI();
     loadData();
+    tasks.whenIdle(prefetch::interactive);
     
-    // ADD DEBUG HERE - Right after initialization
-    debugTeacherSetup();
+    // ADD DEBUG HERE - Right after initialization, off the event thread
+    clientService.async(() -> {
+        debugTeacherSetup();
+        return null;
+    });
 }
 
 private void debugTeacherSetup() {
@@ -85,9 +101,8 @@ private void debugTeacherSetup() {
         welcomeLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
         welcomeLabel.setForeground(Color.WHITE);
         
-        // Load teacher's subjects from database
-        String subjects = loadTeacherSubjects();
-        JLabel subjectLabel = new JLabel("Subjects: " + subjects);
+        // Filled in when the teacher's subjects arrive
+        subjectLabel = new JLabel("Subjects: loading...");
         subjectLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         subjectLabel.setForeground(Color.YELLOW);
         
@@ -95,6 +110,7 @@ private void debugTeacherSetup() {
         infoPanel.setOpaque(false);
         infoPanel.add(welcomeLabel, BorderLayout.NORTH);
         infoPanel.add(subjectLabel, BorderLayout.SOUTH);
+        loadTeacherSubjects();
         
         JButton logoutButton = new JButton("Logout");
         logoutButton.setFont(new Font("Segoe UI", Font.BOLD, 14));
@@ -245,6 +261,14 @@ private void debugTeacherSetup() {
     refreshGradesButton.addActionListener(e -> loadGrades());
     formPanel.add(refreshGradesButton, gbc);
     
+    // Bulk import from a spreadsheet export
+    gbc.gridx = 1; gbc.gridy = 4;
+    JButton importGradesButton = new JButton("Import CSV/TSV...");
+    importGradesButton.setBackground(new Color(76, 175, 80));
+    importGradesButton.setForeground(Color.WHITE);
+    importGradesButton.addActionListener(e -> importGrades(importGradesButton));
+    formPanel.add(importGradesButton, gbc);
+    
     // Grades Table - FIXED: Now with proper button column
     String[] columns = {"Grade ID", "Student", "Subject", "Exam", "Grade", "Date", "Actions"};
     DefaultTableModel model = new DefaultTableModel(columns, 0) {
@@ -438,6 +462,57 @@ private void debugTeacherSetup() {
     }
 }
     
+    // Reads student id, exam id and score rows from a CSV or TSV file and
+    // writes them in batches; rows for other teachers' students or exams are
+    // reported, not written
+    private void importGrades(JButton importButton) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import grades (student id, exam id, score)");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV / TSV files", "csv", "tsv", "txt"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.io.File file = chooser.getSelectedFile();
+        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+        importButton.setEnabled(false);
+        
+        tasks.load(clientService.async(() -> {
+            Set<Integer> studentIds = new HashSet<>();
+            for (Map<String, String> student : clientService.getTeacherStudents(teacherId)) {
+                studentIds.add(Integer.parseInt(student.get("studentId")));
+            }
+            Set<Integer> examIds = new HashSet<>();
+            for (Map<String, String> exam : clientService.getTeacherExams(teacherId)) {
+                examIds.add(Integer.parseInt(exam.get("examId")));
+            }
+            try (java.io.Reader reader = java.nio.file.Files.newBufferedReader(file.toPath(), java.nio.charset.StandardCharsets.UTF_8)) {
+                return new GradeImport(clientService, studentIds, examIds).importFrom(reader);
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }), result -> {
+            importButton.setEnabled(true);
+            StringBuilder message = new StringBuilder();
+            message.append("Imported ").append(result.imported).append(" of ").append(result.rows)
+                   .append(" rows in ").append(result.millis).append(" ms");
+            if (!result.errors.isEmpty()) {
+                message.append("\n\n").append(result.errors.size()).append(" rows not imported:\n");
+                for (Map.Entry<Integer, String> error : result.errors.entrySet()) {
+                    message.append("Line ").append(error.getKey()).append(": ").append(error.getValue()).append("\n");
+                }
+            }
+            JTextArea report = new JTextArea(message.toString(), Math.min(20, 4 + result.errors.size()), 60);
+            report.setEditable(false);
+            JOptionPane.showMessageDialog(this, new JScrollPane(report), "Grade Import",
+                result.errors.isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+            loadGrades();
+            loadResults();
+        }, error -> {
+            importButton.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Error importing grades: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+    
     private void loadData() {
         loadExams();
         loadGrades();
@@ -445,9 +520,8 @@ private void debugTeacherSetup() {
     }
     
     private void loadExams() {
-        try {
-            int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-            List<Map<String, String>> exams = clientService.getTeacherExams(teacherId);
+        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+        tasks.load(prefetch.take("exams", () -> clientService.getTeacherExamsAsync(teacherId)), "exams", exams -> {
             DefaultTableModel model = (DefaultTableModel) examsTable.getModel();
             model.setRowCount(0);
             
@@ -462,15 +536,12 @@ private void debugTeacherSetup() {
                     "Manage"
                 });
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading exams: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
   private void loadGrades() {
-    try {
-        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-        List<Map<String, String>> grades = clientService.getTeacherGrades(teacherId);
+    int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+    tasks.load(prefetch.take("grades", () -> clientService.getTeacherGradesAsync(teacherId)), "grades", grades -> {
         DefaultTableModel model = (DefaultTableModel) gradesTable.getModel();
         model.setRowCount(0);
         
@@ -485,15 +556,12 @@ private void debugTeacherSetup() {
                 "Manage"  // This will now be a clickable button
             });
         }
-    } catch (Exception e) {
-        JOptionPane.showMessageDialog(this, "Error loading grades: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-    }
+    });
 }
     
     private void loadResults() {
-        try {
-            int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-            List<Map<String, String>> results = clientService.getStudentResults(teacherId);
+        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+        tasks.load(prefetch.take("results", () -> clientService.getStudentResultsAsync(teacherId)), "results", results -> {
             DefaultTableModel model = (DefaultTableModel) studentsTable.getModel();
             model.setRowCount(0);
             
@@ -508,69 +576,67 @@ private void debugTeacherSetup() {
                     result.get("rank")
                 });
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading results: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
-    private String loadTeacherSubjects() {
-        try {
-            int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-            List<Map<String, String>> subjects = clientService.getTeacherSubjects(teacherId);
+    private CompletableFuture<List<Map<String, String>>> teacherSubjects() {
+        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+        return prefetch.take("subjects", () -> clientService.getTeacherSubjectsAsync(teacherId));
+    }
+    
+    private void loadTeacherSubjects() {
+        tasks.load(teacherSubjects(), subjects -> {
             List<String> subjectNames = new ArrayList<>();
             for (Map<String, String> subject : subjects) {
                 subjectNames.add(subject.get("subjectName"));
             }
-            return String.join(", ", subjectNames);
-        } catch (Exception e) {
-            return "Error loading subjects";
-        }
+            subjectLabel.setText("Subjects: " + String.join(", ", subjectNames));
+        }, error -> subjectLabel.setText("Subjects: Error loading subjects"));
     }
     
     private void loadTeacherSubjectsToComboBox() {
-        try {
-            int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-            List<Map<String, String>> subjects = clientService.getTeacherSubjects(teacherId);
+        tasks.load(teacherSubjects(), "subjects", subjects -> {
             subjectCombo.removeAllItems();
             for (Map<String, String> subject : subjects) {
                 subjectCombo.addItem(subject.get("subjectName"));
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading subjects: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
 private void loadStudentsToComboBox(JComboBox<String> comboBox) {
-    try {
-        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-        
-        // DEBUG: Check what's happening
-        System.out.println("🎯 [DEBUG] Loading students for teacher: " + teacherId);
-        
-        List<Map<String, String>> students = clientService.getTeacherStudents(teacherId);
+    int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+    
+    // DEBUG: Check what's happening
+    System.out.println("🎯 [DEBUG] Loading students for teacher: " + teacherId);
+    
+    tasks.load(prefetch.take("students", () -> clientService.getTeacherStudentsAsync(teacherId)), "students", students -> {
         comboBox.removeAllItems();
         
         if (students.isEmpty()) {
             System.out.println("❌ No students found for teacher!");
             
             // Debug why no students are visible
-            List<Map<String, String>> teacherSubjects = clientService.getTeacherSubjects(teacherId);
-            if (teacherSubjects.isEmpty()) {
-                System.out.println("❌ Teacher has no subjects assigned!");
-                JOptionPane.showMessageDialog(this, 
-                    "You are not assigned to any subjects. Please contact administrator.", 
-                    "No Subjects", JOptionPane.WARNING_MESSAGE);
-            } else {
-                System.out.println("✅ Teacher has " + teacherSubjects.size() + " subjects, but no students found.");
-                
-                // Debug each subject
-                for (Map<String, String> subject : teacherSubjects) {
-                    int subjectId = Integer.parseInt(subject.get("subjectId"));
-                    String subjectName = subject.get("subjectName");
-                    System.out.println("🔍 Debugging subject: " + subjectName);
-                    clientService.debugTeacherStudentVisibility(teacherId, subjectId);
+            tasks.load(teacherSubjects(), "subjects", teacherSubjects -> {
+                if (teacherSubjects.isEmpty()) {
+                    System.out.println("❌ Teacher has no subjects assigned!");
+                    JOptionPane.showMessageDialog(this, 
+                        "You are not assigned to any subjects. Please contact administrator.", 
+                        "No Subjects", JOptionPane.WARNING_MESSAGE);
+                } else {
+                    System.out.println("✅ Teacher has " + teacherSubjects.size() + " subjects, but no students found.");
+                    
+                    // Debug each subject, off the event thread
+                    clientService.async(() -> {
+                        for (Map<String, String> subject : teacherSubjects) {
+                            int subjectId = Integer.parseInt(subject.get("subjectId"));
+                            String subjectName = subject.get("subjectName");
+                            System.out.println("🔍 Debugging subject: " + subjectName);
+                            clientService.debugTeacherStudentVisibility(teacherId, subjectId);
+                        }
+                        return null;
+                    });
                 }
-            }
+            });
         }
         
         for (Map<String, String> student : students) {
@@ -582,31 +648,26 @@ private void loadStudentsToComboBox(JComboBox<String> comboBox) {
         }
         
         System.out.println("✅ Loaded " + students.size() + " students for teacher");
-        
-    } catch (Exception e) {
-        JOptionPane.showMessageDialog(this, "Error loading students: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        e.printStackTrace();
-    }
+    });
 }
     
     private void loadExamsToComboBox(JComboBox<String> comboBox) {
-        try {
-            int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-            List<Map<String, String>> exams = clientService.getTeacherExams(teacherId);
+        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+        tasks.load(prefetch.take("exams", () -> clientService.getTeacherExamsAsync(teacherId)), "exams", exams -> {
             comboBox.removeAllItems();
             for (Map<String, String> exam : exams) {
                 comboBox.addItem(exam.get("examName") + " - " + exam.get("subject") + " (" + exam.get("examId") + ")");
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading exams: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
     private void loadTeacherStatistics(JPanel statsPanel) {
-        try {
-            int teacherId = Integer.parseInt(userInfo.get("teacherId"));
-            Map<String, Object> stats = clientService.getTeacherStatistics(teacherId);
-            
+        int teacherId = Integer.parseInt(userInfo.get("teacherId"));
+        tasks.load(prefetch.take("statistics", () -> clientService.getTeacherStatisticsAsync(teacherId)), "statistics", stats -> {
+            if (stats == null) {
+                JOptionPane.showMessageDialog(this, "Error loading statistics: no data", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             statsPanel.removeAll();
             statsPanel.add(createStatCard("Total Students", stats.get("totalStudents").toString(), Color.BLUE));
             statsPanel.add(createStatCard("Average Grade", stats.get("averageGrade").toString(), Color.GREEN));
@@ -615,9 +676,7 @@ private void loadStudentsToComboBox(JComboBox<String> comboBox) {
             
             statsPanel.revalidate();
             statsPanel.repaint();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading statistics: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
     
     private String extractIdFromSelection(String selection) {
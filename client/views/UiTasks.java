@@ -0,0 +1,118 @@
+import javax.swing.*;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Delivers the results of ClientService's *Async calls to one window on the
+// Swing event thread. Loads still running when the window closes are
+// cancelled, and their callbacks never run against the closed window.
+public class UiTasks {
+    private final Window window;
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    // Loads whose callback has not run yet, and what to run once there are none
+    private final AtomicInteger unsettled = new AtomicInteger();
+    private final List<Runnable> idleActions = new ArrayList<>();
+    private volatile boolean closed;
+
+    public UiTasks(Window window) {
+        this.window = window;
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelAll();
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                cancelAll();
+            }
+        });
+    }
+
+    // Failures are shown in an error dialog starting with what
+    public <T> CompletableFuture<T> load(CompletableFuture<T> future, String what, Consumer<T> onResult) {
+        return load(future, onResult, error -> JOptionPane.showMessageDialog(window,
+            "Error loading " + what + ": " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    // onResult or onError runs on the event thread once the future completes,
+    // unless it was cancelled or the window has closed by then
+    public <T> CompletableFuture<T> load(CompletableFuture<T> future, Consumer<T> onResult, Consumer<Throwable> onError) {
+        if (closed) {
+            future.cancel(true);
+            return future;
+        }
+        pending.add(future);
+        unsettled.incrementAndGet();
+        future.whenComplete((result, error) -> {
+            pending.remove(future);
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    if (closed || future.isCancelled()) {
+                        return;
+                    }
+                    if (error == null) {
+                        onResult.accept(result);
+                    } else {
+                        Throwable cause = unwrap(error);
+                        System.err.println("Background load failed: " + cause);
+                        onError.accept(cause);
+                    }
+                } finally {
+                    settled();
+                }
+            });
+        });
+        return future;
+    }
+
+    // Runs action on the event thread once every load started so far,
+    // including those started from their callbacks, has had its callback
+    // run. Call it on the event thread.
+    public void whenIdle(Runnable action) {
+        if (unsettled.get() == 0) {
+            action.run();
+        } else {
+            idleActions.add(action);
+        }
+    }
+
+    // Number of loads still running for this window
+    public int getPending() {
+        return pending.size();
+    }
+
+    public void cancelAll() {
+        closed = true;
+        for (CompletableFuture<?> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    private void settled() {
+        if (unsettled.decrementAndGet() == 0 && !idleActions.isEmpty()) {
+            List<Runnable> actions = new ArrayList<>(idleActions);
+            idleActions.clear();
+            for (Runnable action : actions) {
+                action.run();
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -143,6 +143,24 @@ CREATE TABLE grades (
     UNIQUE KEY unique_student_exam (student_id, exam_id)
 );
 
+-- =============================================
+-- Table: student_subject_scores
+-- The latest exam of each type per student and subject, the one that
+-- counts in the subject's final grade, kept in step with grades by every
+-- grade write of the application
+-- =============================================
+CREATE TABLE student_subject_scores (
+    student_id INT NOT NULL,
+    subject_id INT NOT NULL,
+    exam_type ENUM('CONTROLE', 'EXAMEN', 'PROJET', 'TP') NOT NULL,
+    exam_id INT NOT NULL,
+    score DECIMAL(4,2) NOT NULL,
+    PRIMARY KEY (student_id, subject_id, exam_type),
+    FOREIGN KEY (student_id) REFERENCES students(student_id),
+    FOREIGN KEY (subject_id) REFERENCES subjects(subject_id),
+    FOREIGN KEY (exam_id) REFERENCES exams(exam_id)
+);
+
 -- =============================================
 -- Table: academic_years
 -- =============================================
@@ -227,6 +245,22 @@ CREATE TABLE registrations (
     FOREIGN KEY (semester_id) REFERENCES semesters(semester_id)
 );
 
+-- =============================================
+-- Table: deliberation_runs
+-- One row per end-of-year deliberation, with the last student it saved
+-- so an interrupted run can resume
+-- =============================================
+CREATE TABLE deliberation_runs (
+    run_id INT PRIMARY KEY AUTO_INCREMENT,
+    year_id INT NOT NULL,
+    status ENUM('RUNNING', 'DONE') NOT NULL DEFAULT 'RUNNING',
+    last_student_id INT NOT NULL DEFAULT 0,
+    students_done INT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP NULL,
+    FOREIGN KEY (year_id) REFERENCES academic_years(year_id)
+);
+
 -- =============================================
 -- Table: attendance
 -- =============================================
@@ -436,6 +470,13 @@ INSERT INTO grades (student_id, exam_id, score, comments) VALUES
 (5, 6, 19.0, 'Outstanding'),
 (5, 7, 18.5, 'Excellent');
 
+-- Subject scores of the sample grades
+INSERT INTO student_subject_scores (student_id, subject_id, exam_type, exam_id, score)
+SELECT g.student_id, e.subject_id, e.exam_type, g.exam_id, g.score
+FROM grades g JOIN exams e ON g.exam_id = e.exam_id
+WHERE e.exam_id = (SELECT MAX(e2.exam_id) FROM grades g2 JOIN exams e2 ON g2.exam_id = e2.exam_id
+                   WHERE g2.student_id = g.student_id AND e2.subject_id = e.subject_id AND e2.exam_type = e.exam_type);
+
 -- Insert Users with simple passwords
 INSERT INTO users (username, password_hash, email, user_type, student_id, teacher_id) VALUES 
 -- Admin user
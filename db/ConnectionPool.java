@@ -0,0 +1,461 @@
+import java.io.PrintWriter;
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+// Bounded JDBC connection pool. The server shares one between every
+// ClientHandler and the client keeps one for its direct database calls.
+// Callers borrow a connection and close() it to hand it back; statements the
+// caller left open are closed on return so nothing leaks into the next borrower.
+//
+// Uses a ReentrantLock rather than synchronized so waiting for a connection
+// never pins a virtual thread.
+class ConnectionPool implements DataSource {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+    private static final long IDLE_TIMEOUT_MILLIS = 10 * 60_000;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 15_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // Guarded by lock. Idle connections are reused most-recently-returned first.
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = new HashSet<>();
+    private int total;
+    private int waiting;
+    private boolean closed;
+    // Physical connections opened over the pool's lifetime
+    private final AtomicLong opened = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                   long borrowTimeoutMillis, long leakThresholdMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection pooled = null;
+            lock.lock();
+            try {
+                while (pooled == null) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    pooled = idle.pollFirst();
+                    if (pooled == null && total < maxSize) {
+                        total++;
+                        break;
+                    }
+                    if (pooled == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                                + " ms waiting for a database connection (" + describe() + ")");
+                        }
+                        waiting++;
+                        try {
+                            available.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Interrupted while waiting for a database connection", e);
+                        } finally {
+                            waiting--;
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (pooled == null) {
+                pooled = open();
+            } else if (pooled.idleMillis() > VALIDATE_AFTER_IDLE_MILLIS && !pooled.isValid()) {
+                discard(pooled);
+                continue;
+            }
+
+            pooled.markBorrowed(leakThresholdMillis > 0);
+            lock.lock();
+            try {
+                borrowed.add(pooled);
+            } finally {
+                lock.unlock();
+            }
+            return pooled.newLogicalConnection();
+        }
+    }
+
+    // Called with a slot already reserved in total
+    private PooledConnection open() throws SQLException {
+        try {
+            PooledConnection pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+            opened.incrementAndGet();
+            return pooled;
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooled, List<Statement> statements) {
+        boolean reusable = !pooled.broken;
+        for (Statement statement : statements) {
+            try { statement.close(); } catch (SQLException e) {}
+        }
+        if (reusable) {
+            try {
+                if (!pooled.connection.getAutoCommit()) {
+                    pooled.connection.rollback();
+                    pooled.connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+
+        lock.lock();
+        try {
+            borrowed.remove(pooled);
+            if (reusable && !closed) {
+                pooled.markIdle();
+                idle.addFirst(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(pooled);
+    }
+
+    private void discard(PooledConnection pooled) {
+        pooled.closePhysical();
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reports leaks, trims long-idle connections above minSize and tops the
+    // pool back up to minSize.
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            List<PooledConnection> expired = new ArrayList<>();
+            int missing;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (leakThresholdMillis > 0) {
+                    for (PooledConnection pooled : borrowed) {
+                        if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                            pooled.leakReported = true;
+                            System.err.println("⚠ Possible connection leak: borrowed " + (now - pooled.borrowedAt)
+                                + " ms ago (" + describe() + ")");
+                            if (pooled.borrowStack != null) {
+                                pooled.borrowStack.printStackTrace();
+                            }
+                        }
+                    }
+                }
+                Iterator<PooledConnection> it = idle.descendingIterator();
+                while (it.hasNext() && total - expired.size() > minSize) {
+                    PooledConnection pooled = it.next();
+                    if (now - pooled.returnedAt > IDLE_TIMEOUT_MILLIS) {
+                        it.remove();
+                        expired.add(pooled);
+                    }
+                }
+                missing = Math.max(0, minSize - (total - expired.size()));
+                total += missing;
+            } finally {
+                lock.unlock();
+            }
+
+            for (PooledConnection pooled : expired) {
+                discard(pooled);
+            }
+            for (int i = 0; i < missing; i++) {
+                PooledConnection pooled;
+                try {
+                    pooled = open();
+                } catch (SQLException e) {
+                    System.err.println(" Database connection error: " + e.getMessage());
+                    lock.lock();
+                    try {
+                        total -= missing - i - 1;
+                    } finally {
+                        lock.unlock();
+                    }
+                    break;
+                }
+                lock.lock();
+                try {
+                    pooled.markIdle();
+                    idle.addLast(pooled);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(" Pool housekeeping error: " + e.getMessage());
+        }
+    }
+
+    void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pooled : toClose) {
+            discard(pooled);
+        }
+    }
+
+    // Gauges
+
+    int getActiveConnections() {
+        lock.lock();
+        try { return borrowed.size(); } finally { lock.unlock(); }
+    }
+
+    int getIdleConnections() {
+        lock.lock();
+        try { return idle.size(); } finally { lock.unlock(); }
+    }
+
+    int getWaitingThreads() {
+        lock.lock();
+        try { return waiting; } finally { lock.unlock(); }
+    }
+
+    int getTotalConnections() {
+        lock.lock();
+        try { return total; } finally { lock.unlock(); }
+    }
+
+    long getOpenedConnections() {
+        return opened.get();
+    }
+
+    Map<String, String> getStats() {
+        Map<String, String> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("active", String.valueOf(borrowed.size()));
+            stats.put("idle", String.valueOf(idle.size()));
+            stats.put("waiting", String.valueOf(waiting));
+            stats.put("total", String.valueOf(total));
+            stats.put("min", String.valueOf(minSize));
+            stats.put("max", String.valueOf(maxSize));
+            stats.put("opened", String.valueOf(opened.get()));
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    // Caller must hold lock
+    private String describe() {
+        return "active=" + borrowed.size() + ", idle=" + idle.size() + ", waiting=" + waiting + ", max=" + maxSize;
+    }
+
+    // A physical connection plus its bookkeeping
+    private class PooledConnection {
+        final Connection connection;
+        volatile boolean broken;
+        long borrowedAt;
+        long returnedAt = System.currentTimeMillis();
+        Exception borrowStack;
+        boolean leakReported;
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        long idleMillis() {
+            return System.currentTimeMillis() - returnedAt;
+        }
+
+        boolean isValid() {
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void markBorrowed(boolean captureStack) {
+            borrowedAt = System.currentTimeMillis();
+            borrowStack = captureStack ? new Exception("Connection borrowed here") : null;
+            leakReported = false;
+        }
+
+        void markIdle() {
+            returnedAt = System.currentTimeMillis();
+            borrowStack = null;
+        }
+
+        void closePhysical() {
+            try { connection.close(); } catch (SQLException e) {}
+        }
+
+        Connection newLogicalConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new LogicalConnection(this));
+        }
+    }
+
+    // The handle given to callers: close() returns the connection to the pool,
+    // and any use after that fails instead of touching someone else's session.
+    private class LogicalConnection implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean closed;
+
+        LogicalConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled, statements);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.connection + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                Object result = method.invoke(pooled.connection, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 is a connection exception: don't hand this one out again
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith("08")) {
+                        pooled.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+
+    // DataSource boilerplate
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the configured credentials");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
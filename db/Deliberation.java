@@ -0,0 +1,380 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+
+// The end-of-year jury run: every student registered in the current
+// academic year gets an overall average, credits earned and a final status,
+// written to students and to that year's registrations. Grades carry no
+// year, so the year's grades are all the grades of its registered students.
+//
+// They are read in one streamed query, ordered by student, and folded into
+// per-subject scores as they arrive. Subject finals, averages and statuses
+// are then worked out on the fork-join pool, each student with the
+// GradingPlan of their program, and written back in batched updates of
+// CHUNK_STUDENTS students, one transaction each. Every chunk records in
+// deliberation_runs the last student it wrote, so a run stopped by a crash
+// or a lost database carries on after that student when it is started
+// again. Students without any grade are left as they are.
+class Deliberation {
+    static final int CHUNK_STUDENTS = 500;
+    // Students one fork-join task decides without splitting further
+    static final int SPLIT_THRESHOLD = 256;
+    static final int FETCH_ROWS = 1000;
+
+    static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS deliberation_runs (" +
+        "run_id INT PRIMARY KEY AUTO_INCREMENT, " +
+        "year_id INT NOT NULL, " +
+        "status ENUM('RUNNING', 'DONE') NOT NULL DEFAULT 'RUNNING', " +
+        "last_student_id INT NOT NULL DEFAULT 0, " +
+        "students_done INT NOT NULL DEFAULT 0, " +
+        "started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+        "finished_at TIMESTAMP NULL, " +
+        "FOREIGN KEY (year_id) REFERENCES academic_years(year_id))";
+
+    private static final String GRADES =
+        "SELECT g.student_id, st.program_id, e.subject_id, sub.credits, e.exam_type, e.coefficient, g.score " +
+        "FROM grades g " +
+        "JOIN students st ON g.student_id = st.student_id " +
+        "JOIN exams e ON g.exam_id = e.exam_id " +
+        "JOIN subjects sub ON e.subject_id = sub.subject_id " +
+        "WHERE g.student_id IN (SELECT student_id FROM registrations WHERE year_id = ?) AND g.student_id > ? " +
+        "ORDER BY g.student_id, e.subject_id, e.exam_id";
+    private static final String UPDATE_STUDENT =
+        "UPDATE students SET final_status = ?, total_credits_earned = ? WHERE student_id = ?";
+    private static final String UPDATE_REGISTRATION =
+        "UPDATE registrations SET final_status = ?, overall_average = ?, credits_earned = ? WHERE student_id = ? AND year_id = ?";
+    private static final String CHECKPOINT =
+        "UPDATE deliberation_runs SET last_student_id = ?, students_done = students_done + ? WHERE run_id = ?";
+
+    // One subject's score and coefficient per exam type, as GradeEngine
+    // keeps them; a later exam of a type replaces an earlier one
+    private static class SubjectScores {
+        final int credits;
+        int present;
+        final double[] scores = new double[GradingPlan.TYPES];
+        final double[] coefficients = new double[GradingPlan.TYPES];
+
+        SubjectScores(int credits) {
+            this.credits = credits;
+        }
+    }
+
+    // One student's subjects on the way in, and the jury's decision on the way out
+    private static class Student {
+        final int studentId;
+        final GradingPlan plan;
+        final List<SubjectScores> subjects = new ArrayList<>();
+        double average;
+        int credits;
+        String status;
+
+        Student(int studentId, GradingPlan plan) {
+            this.studentId = studentId;
+            this.plan = plan;
+        }
+    }
+
+    // Decides a range of students, halving it until it is small enough
+    private static class Decide extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized
+        private final transient List<Student> students;
+        private final int from;
+        private final int to;
+
+        Decide(List<Student> students, int from, int to) {
+            this.students = students;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    decide(students.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Decide(students, from, middle), new Decide(students, middle, to));
+        }
+    }
+
+    private final DataSource dataSource;
+    private final GradingPlans plans;
+    // Told the ids of each chunk once it has committed
+    private final Consumer<Collection<Integer>> onWritten;
+    private Thread running;
+    // Progress of the current or last run; replaced whole, read by getProgress()
+    private volatile Map<String, String> progress = Collections.singletonMap("phase", "IDLE");
+
+    Deliberation(DataSource dataSource, GradingPlans plans, Consumer<Collection<Integer>> onWritten) {
+        this.dataSource = dataSource;
+        this.plans = plans;
+        this.onWritten = onWritten;
+    }
+
+    // Starts a run on a background thread, resuming the current year's
+    // unfinished one if there is one. Does nothing while a run is going.
+    synchronized Map<String, String> start() {
+        if (running == null || !running.isAlive()) {
+            progress("STARTING", Collections.emptyMap());
+            running = new Thread(this::run, "deliberation");
+            running.setDaemon(true);
+            running.start();
+        }
+        return getProgress();
+    }
+
+    Map<String, String> getProgress() {
+        return new LinkedHashMap<>(progress);
+    }
+
+    private void run() {
+        long started = System.nanoTime();
+        Map<String, String> counts = new LinkedHashMap<>();
+        try {
+            int yearId;
+            int runId;
+            int resumeAfter;
+            int alreadyDone;
+            Map<Integer, GradingPlan> programPlans;
+            List<Student> students = new ArrayList<>();
+            try (Connection conn = dataSource.getConnection()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(CREATE_TABLE);
+                }
+                yearId = currentYear(conn);
+                counts.put("yearId", String.valueOf(yearId));
+                counts.put("registered", String.valueOf(count(conn,
+                    "SELECT COUNT(DISTINCT student_id) FROM registrations WHERE year_id = ?", yearId)));
+
+                int[] run = unfinishedRun(conn, yearId);
+                if (run != null) {
+                    runId = run[0];
+                    resumeAfter = run[1];
+                    alreadyDone = run[2];
+                    System.out.println("⚖️ Resuming deliberation run " + runId + " after student " + resumeAfter);
+                } else {
+                    runId = newRun(conn, yearId);
+                    resumeAfter = 0;
+                    alreadyDone = 0;
+                    System.out.println("⚖️ Starting deliberation run " + runId + " for year " + yearId);
+                }
+                counts.put("runId", String.valueOf(runId));
+                counts.put("resumedAfter", String.valueOf(resumeAfter));
+
+                // Taken first, so no other query runs while the grades stream
+                programPlans = plans.snapshot(conn);
+                progress("READING", counts);
+                read(conn, yearId, resumeAfter, programPlans, students, counts);
+            }
+
+            progress("DECIDING", counts);
+            ForkJoinPool.commonPool().invoke(new Decide(students, 0, students.size()));
+
+            int done = alreadyDone;
+            counts.put("students", String.valueOf(alreadyDone + students.size()));
+            counts.put("written", String.valueOf(done));
+            progress("WRITING", counts);
+            for (int start = 0; start < students.size(); start += CHUNK_STUDENTS) {
+                List<Student> chunk = students.subList(start, Math.min(students.size(), start + CHUNK_STUDENTS));
+                write(chunk, yearId, runId);
+                List<Integer> ids = new ArrayList<>(chunk.size());
+                for (Student student : chunk) {
+                    ids.add(student.studentId);
+                    counts.merge(student.status.toLowerCase(Locale.ROOT), "1", (a, b) -> String.valueOf(Integer.parseInt(a) + 1));
+                }
+                onWritten.accept(ids);
+                done += chunk.size();
+                counts.put("written", String.valueOf(done));
+                progress("WRITING", counts);
+            }
+
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE deliberation_runs SET status = 'DONE', finished_at = NOW() WHERE run_id = ?")) {
+                stmt.setInt(1, runId);
+                stmt.executeUpdate();
+            }
+            counts.put("millis", String.valueOf((System.nanoTime() - started) / 1_000_000));
+            progress("DONE", counts);
+            System.out.println("⚖️ Deliberation run " + runId + " done: " + counts);
+        } catch (SQLException | RuntimeException e) {
+            counts.put("error", String.valueOf(e.getMessage()));
+            counts.put("millis", String.valueOf((System.nanoTime() - started) / 1_000_000));
+            progress("FAILED", counts);
+            System.err.println("❌ Deliberation failed, start it again to resume: " + e.getMessage());
+        }
+    }
+
+    // The grades of the year's students after resumeAfter, one Student per
+    // student with a grade, in student id order
+    private void read(Connection conn, int yearId, int resumeAfter, Map<Integer, GradingPlan> programPlans,
+                             List<Student> students, Map<String, String> counts) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(GRADES)) {
+            stmt.setFetchSize(FETCH_ROWS);
+            stmt.setInt(1, yearId);
+            stmt.setInt(2, resumeAfter);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Student student = null;
+                SubjectScores subject = null;
+                int subjectId = 0;
+                long rows = 0;
+                while (rs.next()) {
+                    int rowStudent = rs.getInt("student_id");
+                    int rowSubject = rs.getInt("subject_id");
+                    if (student == null || student.studentId != rowStudent) {
+                        int programId = rs.getInt("program_id");
+                        GradingPlan plan = rs.wasNull() ? GradingPlan.DEFAULT : programPlans.getOrDefault(programId, GradingPlan.DEFAULT);
+                        student = new Student(rowStudent, plan);
+                        students.add(student);
+                        subject = null;
+                    }
+                    if (subject == null || subjectId != rowSubject) {
+                        subject = new SubjectScores(rs.getInt("credits"));
+                        student.subjects.add(subject);
+                        subjectId = rowSubject;
+                    }
+                    int type = GradingPlan.typeIndex(rs.getString("exam_type"));
+                    if (type >= 0) {
+                        subject.present |= 1 << type;
+                        subject.scores[type] = rs.getDouble("score");
+                        subject.coefficients[type] = rs.getDouble("coefficient");
+                    }
+                    if (++rows % 10_000 == 0) {
+                        counts.put("gradesRead", String.valueOf(rows));
+                        counts.put("students", String.valueOf(students.size()));
+                        progress("READING", counts);
+                    }
+                }
+                counts.put("gradesRead", String.valueOf(rows));
+                counts.put("students", String.valueOf(students.size()));
+            }
+        }
+    }
+
+    // Subject finals as everywhere else, their mean as the overall average,
+    // the credits of every subject passed, and the status that average gives
+    private static void decide(Student student) {
+        double total = 0.0;
+        int finals = 0;
+        int credits = 0;
+        for (SubjectScores subject : student.subjects) {
+            if (subject.present == 0) {
+                continue;
+            }
+            double subjectFinal = student.plan.subjectFinal(subject.present, subject.scores, subject.coefficients);
+            total += subjectFinal;
+            finals++;
+            if (student.plan.passes(subjectFinal)) {
+                credits += subject.credits;
+            }
+        }
+        student.average = finals > 0 ? Math.round((total / finals) * 100.0) / 100.0 : 0.0;
+        student.credits = credits;
+        student.status = student.plan.status(student.average);
+    }
+
+    // One transaction: the students, their registrations for the year, and
+    // the run's checkpoint, so a resumed run never writes a student twice
+    // nor skips one
+    private void write(List<Student> chunk, int yearId, int runId) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement students = conn.prepareStatement(UPDATE_STUDENT);
+                 PreparedStatement registrations = conn.prepareStatement(UPDATE_REGISTRATION);
+                 PreparedStatement checkpoint = conn.prepareStatement(CHECKPOINT)) {
+                for (Student student : chunk) {
+                    students.setString(1, student.status);
+                    students.setInt(2, student.credits);
+                    students.setInt(3, student.studentId);
+                    students.addBatch();
+
+                    registrations.setString(1, student.status);
+                    registrations.setDouble(2, student.average);
+                    registrations.setInt(3, student.credits);
+                    registrations.setInt(4, student.studentId);
+                    registrations.setInt(5, yearId);
+                    registrations.addBatch();
+                }
+                students.executeBatch();
+                registrations.executeBatch();
+
+                checkpoint.setInt(1, chunk.get(chunk.size() - 1).studentId);
+                checkpoint.setInt(2, chunk.size());
+                checkpoint.setInt(3, runId);
+                checkpoint.executeUpdate();
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static int currentYear(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT year_id FROM academic_years WHERE is_current = TRUE ORDER BY year_id DESC LIMIT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("No current academic year");
+            }
+            return rs.getInt(1);
+        }
+    }
+
+    // run id, last student written and students done of the year's unfinished run, or null
+    private static int[] unfinishedRun(Connection conn, int yearId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT run_id, last_student_id, students_done FROM deliberation_runs " +
+                 "WHERE year_id = ? AND status = 'RUNNING' ORDER BY run_id DESC LIMIT 1")) {
+            stmt.setInt(1, yearId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new int[] { rs.getInt(1), rs.getInt(2), rs.getInt(3) } : null;
+            }
+        }
+    }
+
+    private static int newRun(Connection conn, int yearId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                 "INSERT INTO deliberation_runs (year_id) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, yearId);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id for the new deliberation run");
+                }
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private static int count(Connection conn, String sql, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private void progress(String phase, Map<String, String> counts) {
+        Map<String, String> snapshot = new LinkedHashMap<>();
+        snapshot.put("phase", phase);
+        snapshot.putAll(counts);
+        progress = Collections.unmodifiableMap(snapshot);
+    }
+}
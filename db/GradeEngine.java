@@ -0,0 +1,148 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+// Subject finals and overall averages computed in memory from one query of
+// (student, subject, exam type, coefficient, score) rows, each subject
+// weighted by the GradingPlan of the student's program. The same pass
+// serves one student or a whole cohort, so a dashboard costs one query
+// instead of one per subject, and a program's results one query in all.
+class GradeEngine {
+    // Most student ids sent in one IN list
+    static final int MAX_IN_LIST = 500;
+
+    private static final String SELECT =
+        "SELECT g.student_id, st.program_id, e.subject_id, s.subject_name, e.exam_type, e.coefficient, g.score " +
+        "FROM grades g " +
+        "JOIN students st ON g.student_id = st.student_id " +
+        "JOIN exams e ON g.exam_id = e.exam_id " +
+        "JOIN subjects s ON e.subject_id = s.subject_id ";
+    // Grouped by student then subject; within a subject a later exam of the
+    // same type replaces an earlier one, as in calculateSubjectFinalGrade
+    private static final String ORDER = " ORDER BY g.student_id, e.subject_id, e.exam_id";
+
+    // One student's results
+    static class StudentGrades {
+        final int studentId;
+        // Final grade per subject id, in subject id order
+        final Map<Integer, Double> subjectFinals = new LinkedHashMap<>();
+        final Map<Integer, String> subjectNames = new HashMap<>();
+        int totalExams;
+        int examsPassed;
+
+        StudentGrades(int studentId) {
+            this.studentId = studentId;
+        }
+
+        // Mean of the subject finals, 0.0 without any grade
+        double getOverallAverage() {
+            if (subjectFinals.isEmpty()) {
+                return 0.0;
+            }
+            double total = 0.0;
+            for (double grade : subjectFinals.values()) {
+                total += grade;
+            }
+            return Math.round((total / subjectFinals.size()) * 100.0) / 100.0;
+        }
+    }
+
+    private GradeEngine() {
+    }
+
+    static StudentGrades forStudent(Connection conn, GradingPlans plans, int studentId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT + "WHERE g.student_id = ?" + ORDER)) {
+            stmt.setInt(1, studentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                StudentGrades grades = fold(rs, plans.snapshot(conn)).get(studentId);
+                return grades != null ? grades : new StudentGrades(studentId);
+            }
+        }
+    }
+
+    // Every given student, in MAX_IN_LIST-sized queries; students without
+    // grades get an empty entry
+    static Map<Integer, StudentGrades> forStudents(Connection conn, GradingPlans plans, Collection<Integer> studentIds) throws SQLException {
+        Map<Integer, GradingPlan> programPlans = plans.snapshot(conn);
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(studentIds));
+        Map<Integer, StudentGrades> results = new LinkedHashMap<>();
+        for (int start = 0; start < ids.size(); start += MAX_IN_LIST) {
+            List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_LIST));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement stmt = conn.prepareStatement(SELECT + "WHERE g.student_id IN (" + placeholders + ")" + ORDER)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    results.putAll(fold(rs, programPlans));
+                }
+            }
+        }
+        for (Integer id : ids) {
+            results.putIfAbsent(id, new StudentGrades(id));
+        }
+        return results;
+    }
+
+    // Every student of a program that has at least one grade, in one query
+    static Map<Integer, StudentGrades> forProgram(Connection conn, GradingPlans plans, int programId) throws SQLException {
+        Map<Integer, GradingPlan> programPlans = plans.snapshot(conn);
+        String sql = SELECT + "WHERE g.student_id IN (SELECT student_id FROM students WHERE program_id = ?)" + ORDER;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, programId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return fold(rs, programPlans);
+            }
+        }
+    }
+
+    // Rows in ORDER order to results per student, in student id order.
+    // Scores are gathered per exam type in reused arrays; a type missing
+    // from GradingPlan is left out.
+    static Map<Integer, StudentGrades> fold(ResultSet rs, Map<Integer, GradingPlan> plans) throws SQLException {
+        Map<Integer, StudentGrades> results = new LinkedHashMap<>();
+        StudentGrades student = null;
+        GradingPlan plan = GradingPlan.DEFAULT;
+        int subjectId = 0;
+        int present = 0;
+        double[] scores = new double[GradingPlan.TYPES];
+        double[] coefficients = new double[GradingPlan.TYPES];
+
+        while (rs.next()) {
+            int rowStudent = rs.getInt("student_id");
+            int rowSubject = rs.getInt("subject_id");
+            if (student == null || student.studentId != rowStudent || subjectId != rowSubject) {
+                if (present != 0) {
+                    student.subjectFinals.put(subjectId, plan.subjectFinal(present, scores, coefficients));
+                    present = 0;
+                }
+                if (student == null || student.studentId != rowStudent) {
+                    student = new StudentGrades(rowStudent);
+                    results.put(rowStudent, student);
+                    int programId = rs.getInt("program_id");
+                    plan = rs.wasNull() ? GradingPlan.DEFAULT : plans.getOrDefault(programId, GradingPlan.DEFAULT);
+                }
+                subjectId = rowSubject;
+                student.subjectNames.put(subjectId, rs.getString("subject_name"));
+            }
+
+            double score = rs.getDouble("score");
+            int type = GradingPlan.typeIndex(rs.getString("exam_type"));
+            if (type >= 0) {
+                scores[type] = score;
+                coefficients[type] = rs.getDouble("coefficient");
+                present |= 1 << type;
+            }
+            student.totalExams++;
+            if (score >= 10) {
+                student.examsPassed++;
+            }
+        }
+        if (present != 0) {
+            student.subjectFinals.put(subjectId, plan.subjectFinal(present, scores, coefficients));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,107 @@
+// How one program turns a subject's exam scores into its final grade,
+// compiled from its program_configuration row. Immutable, and evaluated on
+// primitive arrays indexed by exam type, so a cohort's subject finals cost
+// no maps or boxing.
+//
+// exam_weight goes to the EXAMEN score and controle_weight to continuous
+// assessment. A TP grade, and a project grade in programs with has_project,
+// takes its own weight out of the CONTROLE share. The column defaults give
+// the long-standing rules: 0.2/0.2/0.6 for CONTROLE + TP + EXAMEN and
+// 0.4/0.6 for CONTROLE + EXAMEN. has_tp is not used to drop TP grades:
+// createProgramWithStructure leaves it FALSE, and those grades have always
+// counted. Without both CONTROLE and EXAMEN the old fallbacks apply: EXAMEN
+// alone is its score times its coefficient, anything else the
+// coefficient-weighted mean of the scores.
+final class GradingPlan {
+    static final int CONTROLE = 0;
+    static final int EXAMEN = 1;
+    static final int PROJET = 2;
+    static final int TP = 3;
+    static final int TYPES = 4;
+
+    // Programs without a configuration row, and students without a program
+    static final GradingPlan DEFAULT = new GradingPlan(0.4, 0.2, 0.2, 0.6, false, 10.0);
+
+    final double controleWeight;
+    final double tpWeight;
+    final double projectWeight;
+    final double examWeight;
+    final boolean countsProject;
+    final double minPassGrade;
+
+    GradingPlan(double controleWeight, double tpWeight, double projectWeight, double examWeight,
+                boolean countsProject, double minPassGrade) {
+        this.controleWeight = controleWeight;
+        this.tpWeight = tpWeight;
+        this.projectWeight = projectWeight;
+        this.examWeight = examWeight;
+        this.countsProject = countsProject;
+        this.minPassGrade = minPassGrade;
+    }
+
+    // Index of an exams.exam_type value, or -1 for one the rules do not know
+    static int typeIndex(String examType) {
+        if (examType == null) {
+            return -1;
+        }
+        switch (examType) {
+            case "CONTROLE":
+                return CONTROLE;
+            case "EXAMEN":
+                return EXAMEN;
+            case "PROJET":
+                return PROJET;
+            case "TP":
+                return TP;
+            default:
+                return -1;
+        }
+    }
+
+    // present has bit 1 << type set for each type with a score; scores and
+    // coefficients are indexed by type. Rounded to 2 decimals.
+    double subjectFinal(int present, double[] scores, double[] coefficients) {
+        double finalGrade;
+        if (has(present, CONTROLE) && has(present, EXAMEN)) {
+            boolean tp = has(present, TP);
+            boolean project = countsProject && has(present, PROJET);
+            double controle = controleWeight - (tp ? tpWeight : 0.0) - (project ? projectWeight : 0.0);
+            // Summed in the order the hard-coded rules used, so results match to the last bit
+            finalGrade = scores[CONTROLE] * Math.max(0.0, controle);
+            if (tp) {
+                finalGrade += scores[TP] * tpWeight;
+            }
+            if (project) {
+                finalGrade += scores[PROJET] * projectWeight;
+            }
+            finalGrade += scores[EXAMEN] * examWeight;
+        } else if (has(present, EXAMEN)) {
+            finalGrade = scores[EXAMEN] * coefficients[EXAMEN];
+        } else {
+            double totalWeightedScore = 0.0;
+            double totalCoefficient = 0.0;
+            for (int type = 0; type < TYPES; type++) {
+                if (has(present, type)) {
+                    totalWeightedScore += scores[type] * coefficients[type];
+                    totalCoefficient += coefficients[type];
+                }
+            }
+            finalGrade = totalCoefficient > 0 ? totalWeightedScore / totalCoefficient : 0.0;
+        }
+        return Math.round(finalGrade * 100.0) / 100.0;
+    }
+
+    boolean passes(double average) {
+        return average >= minPassGrade;
+    }
+
+    // ADMIS from the pass grade up, REDOUBLANT from 8, the resit threshold
+    // the server has always used, EXCLU below
+    String status(double average) {
+        return passes(average) ? "ADMIS" : (average >= 8 ? "REDOUBLANT" : "EXCLU");
+    }
+
+    private static boolean has(int present, int type) {
+        return (present & (1 << type)) != 0;
+    }
+}
@@ -0,0 +1,85 @@
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Every program's GradingPlan, compiled from program_configuration in one
+// query on first use and kept as an immutable map. It is loaded again after
+// invalidate(), which JdbcRepository calls on its program writes, and once
+// MAX_AGE_MILLIS have passed, so edits made straight in the database are
+// picked up too. A load that ran across an invalidate() is used once but
+// not kept.
+class GradingPlans {
+    static final long MAX_AGE_MILLIS = 10 * 60 * 1000L;
+
+    // Later rows of the same program win
+    private static final String SQL =
+        "SELECT program_id, has_project, controle_weight, tp_weight, project_weight, exam_weight, min_pass_grade " +
+        "FROM program_configuration ORDER BY config_id";
+
+    private volatile Map<Integer, GradingPlan> plans;
+    private volatile long loadedAt;
+    private long generation;
+
+    // The plan of a program, or the default for a null or unconfigured one
+    GradingPlan forProgram(Connection conn, Integer programId) throws SQLException {
+        if (programId == null) {
+            return GradingPlan.DEFAULT;
+        }
+        return snapshot(conn).getOrDefault(programId, GradingPlan.DEFAULT);
+    }
+
+    // All plans by program id
+    Map<Integer, GradingPlan> snapshot(Connection conn) throws SQLException {
+        Map<Integer, GradingPlan> current = plans;
+        if (current != null && System.currentTimeMillis() - loadedAt < MAX_AGE_MILLIS) {
+            return current;
+        }
+        long started;
+        synchronized (this) {
+            started = generation;
+        }
+        Map<Integer, GradingPlan> loaded = load(conn);
+        synchronized (this) {
+            if (generation == started) {
+                plans = loaded;
+                loadedAt = System.currentTimeMillis();
+            }
+        }
+        return loaded;
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        plans = null;
+    }
+
+    private static Map<Integer, GradingPlan> load(Connection conn) throws SQLException {
+        Map<Integer, GradingPlan> loaded = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            GradingPlan defaults = GradingPlan.DEFAULT;
+            while (rs.next()) {
+                loaded.put(rs.getInt("program_id"), new GradingPlan(
+                    decimal(rs, "controle_weight", defaults.controleWeight),
+                    decimal(rs, "tp_weight", defaults.tpWeight),
+                    decimal(rs, "project_weight", defaults.projectWeight),
+                    decimal(rs, "exam_weight", defaults.examWeight),
+                    rs.getBoolean("has_project"),
+                    decimal(rs, "min_pass_grade", defaults.minPassGrade)));
+            }
+        }
+        System.out.println("📐 Loaded grading plans for " + loaded.size() + " programs");
+        return Collections.unmodifiableMap(loaded);
+    }
+
+    // The columns have defaults but allow NULL; a NULL keeps the default
+    private static double decimal(ResultSet rs, String column, double fallback) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value != null ? value.doubleValue() : fallback;
+    }
+}
@@ -0,0 +1,199 @@
+import java.util.List;
+
+// One subject's leaderboard: an AVL tree of students ordered by average,
+// highest first, then by student id, where every node also counts its
+// subtree. Inserting, removing, finding a student's rank and reaching the
+// k-th place all walk one root-to-leaf path, so they take O(log n); a page
+// of the leaderboard costs that plus its length.
+//
+// An average is kept as its exact sum of scores in hundredths and its exam
+// count and compared by cross-multiplying, so students tie exactly when
+// SQL's AVG(score) over DECIMAL scores ties them.
+class RankTree {
+    static final class Entry {
+        final int studentId;
+        final long sumCents;
+        final int count;
+
+        Entry(int studentId, long sumCents, int count) {
+            this.studentId = studentId;
+            this.sumCents = sumCents;
+            this.count = count;
+        }
+
+        // Positive when this average is above the other's
+        int compareAverage(Entry other) {
+            return Long.compare(sumCents * other.count, other.sumCents * count);
+        }
+    }
+
+    private static final class Node {
+        final Entry entry;
+        Node left;
+        Node right;
+        int height = 1;
+        int size = 1;
+
+        Node(Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    private Node root;
+
+    int size() {
+        return size(root);
+    }
+
+    void insert(Entry entry) {
+        root = insert(root, entry);
+    }
+
+    // The entry must be the one inserted, or one equal to it
+    void remove(Entry entry) {
+        root = remove(root, entry);
+    }
+
+    // 1 + the number of students with a strictly higher average, as SQL's RANK()
+    int rank(Entry entry) {
+        int above = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.entry.compareAverage(entry) > 0) {
+                above += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return above + 1;
+    }
+
+    // Entry at a 0-based position from the top, or null past the end
+    Entry get(int index) {
+        Node node = root;
+        while (node != null) {
+            int left = size(node.left);
+            if (index < left) {
+                node = node.left;
+            } else if (index == left) {
+                return node.entry;
+            } else {
+                index -= left + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    // Up to limit entries from position offset on, in leaderboard order
+    void page(int offset, int limit, List<Entry> out) {
+        page(root, offset, offset + limit, out);
+    }
+
+    private static void page(Node node, int from, int to, List<Entry> out) {
+        if (node == null || from >= to || from >= node.size || to <= 0) {
+            return;
+        }
+        int left = size(node.left);
+        page(node.left, from, to, out);
+        if (from <= left && left < to) {
+            out.add(node.entry);
+        }
+        page(node.right, from - left - 1, to - left - 1, out);
+    }
+
+    private static int order(Entry a, Entry b) {
+        int byAverage = b.compareAverage(a);
+        return byAverage != 0 ? byAverage : Integer.compare(a.studentId, b.studentId);
+    }
+
+    private static Node insert(Node node, Entry entry) {
+        if (node == null) {
+            return new Node(entry);
+        }
+        if (order(entry, node.entry) < 0) {
+            node.left = insert(node.left, entry);
+        } else {
+            node.right = insert(node.right, entry);
+        }
+        return balance(node);
+    }
+
+    private static Node remove(Node node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = order(entry, node.entry);
+        if (cmp < 0) {
+            node.left = remove(node.left, entry);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, entry);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node next = node.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            Node replacement = new Node(next.entry);
+            replacement.right = remove(node.right, next.entry);
+            replacement.left = node.left;
+            return balance(replacement);
+        }
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int height(Node node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+}
@@ -0,0 +1,533 @@
+import java.util.*;
+import java.util.function.Supplier;
+
+// Programs, subjects, teachers and academic years change a few times a
+// semester but fill every dropdown and dialog. This decorator keeps them in
+// memory for a TTL, in at most maxEntries entries with the least recently
+// used dropped first, and answers program name-to-id lookups from a map
+// instead of a query. The program, subject, teacher and academic year
+// writes below clear it; invalidate() is for writes that go around the
+// repository.
+//
+// Nulls and empty results are not kept, since that is how JdbcRepository
+// reports a failed query.
+class ReferenceDataCache implements Repository {
+    static final long DEFAULT_TTL_SECONDS = 600;
+    static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static class Entry {
+        final Object value;
+        final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Repository delegate;
+    private final long ttlNanos;
+    private final int maxEntries;
+    // Access order, so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped by every invalidation, so a load that ran across one is not kept
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    ReferenceDataCache(Repository delegate) {
+        this(delegate, DEFAULT_TTL_SECONDS, DEFAULT_MAX_ENTRIES);
+    }
+
+    ReferenceDataCache(Repository delegate, long ttlSeconds, int maxEntries) {
+        this.delegate = delegate;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    // Drops everything; the next read of each kind goes to the database
+    synchronized void invalidate() {
+        entries.clear();
+        generation++;
+        invalidations++;
+    }
+
+    synchronized Map<String, String> getStats() {
+        Map<String, String> stats = new LinkedHashMap<>();
+        long reads = hits + misses;
+        stats.put("hits", String.valueOf(hits));
+        stats.put("misses", String.valueOf(misses));
+        stats.put("hitRate", reads == 0 ? "0.00" : String.format(Locale.ROOT, "%.2f", hits / (double) reads));
+        stats.put("entries", String.valueOf(entries.size()));
+        stats.put("maxEntries", String.valueOf(maxEntries));
+        stats.put("ttlSeconds", String.valueOf(ttlNanos / 1_000_000_000L));
+        stats.put("evictions", String.valueOf(evictions));
+        stats.put("expirations", String.valueOf(expirations));
+        stats.put("invalidations", String.valueOf(invalidations));
+        return stats;
+    }
+
+    // The kept value, or the loader's result, which is kept unless it is
+    // empty. The loader runs outside the lock.
+    @SuppressWarnings("unchecked")
+    private <T> T load(String key, Supplier<T> loader) {
+        long loadedGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits++;
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            loadedGeneration = generation;
+        }
+
+        T value = loader.get();
+        if (isEmpty(value)) {
+            return value;
+        }
+        synchronized (this) {
+            if (loadedGeneration == generation) {
+                entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+                if (entries.size() > maxEntries) {
+                    Iterator<String> eldest = entries.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+        }
+        return value;
+    }
+
+    // Clears the cache once a reference write has run, whatever its outcome
+    private <T> T changed(T result) {
+        invalidate();
+        return result;
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value == null
+            || (value instanceof Collection && ((Collection<?>) value).isEmpty())
+            || (value instanceof Map && ((Map<?, ?>) value).isEmpty());
+    }
+
+    // Kept rows are shared, so every caller gets its own copy to change
+    private static List<Map<String, String>> rows(List<Map<String, String>> rows) {
+        if (rows == null) {
+            return null;
+        }
+        List<Map<String, String>> copy = new ArrayList<>(rows.size());
+        for (Map<String, String> row : rows) {
+            copy.add(new HashMap<>(row));
+        }
+        return copy;
+    }
+
+    private static Map<String, Integer> index(List<Map<String, String>> rows, String nameColumn, String idColumn) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (rows != null) {
+            for (Map<String, String> row : rows) {
+                String id = row.get(idColumn);
+                if (row.get(nameColumn) != null && id != null) {
+                    ids.put(row.get(nameColumn), Integer.valueOf(id));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(ids);
+    }
+
+    // Students
+    @Override
+    public List<Map<String, String>> getStudentTranscript(int studentId) {
+        return delegate.getStudentTranscript(studentId);
+    }
+
+    @Override
+    public Map<String, String> getStudentInfo(int studentId) {
+        return delegate.getStudentInfo(studentId);
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentGrades(int studentId) {
+        return delegate.getStudentGrades(studentId);
+    }
+
+    @Override
+    public Double calculateSubjectFinalGrade(int studentId, int subjectId) {
+        return delegate.calculateSubjectFinalGrade(studentId, subjectId);
+    }
+
+    @Override
+    public Double calculateOverallAverage(int studentId) {
+        return delegate.calculateOverallAverage(studentId);
+    }
+
+    @Override
+    public Double getOverallAverage(int studentId) {
+        return delegate.getOverallAverage(studentId);
+    }
+
+    @Override
+    public String getFinalStatus(int studentId) {
+        return delegate.getFinalStatus(studentId);
+    }
+
+    @Override
+    public Map<String, Object> getStudentStatistics(int studentId) {
+        return delegate.getStudentStatistics(studentId);
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentSubjectGrades(int studentId) {
+        return delegate.getStudentSubjectGrades(studentId);
+    }
+
+    // Teachers, exams and grades
+    @Override
+    public boolean createExam(String examName, String subject, String examType, double coefficient, int teacherId) {
+        return delegate.createExam(examName, subject, examType, coefficient, teacherId);
+    }
+
+    @Override
+    public boolean addGrade(String studentId, String examId, double score) {
+        return delegate.addGrade(studentId, examId, score);
+    }
+
+    @Override
+    public boolean updateStudentGrade(int gradeId, int teacherId, double newScore) {
+        return delegate.updateStudentGrade(gradeId, teacherId, newScore);
+    }
+
+    @Override
+    public boolean updateGrade(int gradeId, double newScore) {
+        return delegate.updateGrade(gradeId, newScore);
+    }
+
+    @Override
+    public Map<String, String> getGradeDetails(int gradeId) {
+        return delegate.getGradeDetails(gradeId);
+    }
+
+    @Override
+    public Double calculateSubjectAverage(int studentId, int subjectId) {
+        return delegate.calculateSubjectAverage(studentId, subjectId);
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherSubjects(int teacherId) {
+        return delegate.getTeacherSubjects(teacherId);
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherExams(int teacherId) {
+        return delegate.getTeacherExams(teacherId);
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherGrades(int teacherId) {
+        return delegate.getTeacherGrades(teacherId);
+    }
+
+    @Override
+    public boolean updateExam(int examId, String examName, double coefficient) {
+        return delegate.updateExam(examId, examName, coefficient);
+    }
+
+    @Override
+    public boolean deleteExam(String examId) {
+        return delegate.deleteExam(examId);
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentResults(int teacherId) {
+        return delegate.getStudentResults(teacherId);
+    }
+
+    @Override
+    public Map<String, String> getSubjectRank(int studentId, int subjectId) {
+        return delegate.getSubjectRank(studentId, subjectId);
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectLeaderboard(int subjectId, int offset, int limit) {
+        return delegate.getSubjectLeaderboard(subjectId, offset, limit);
+    }
+
+    @Override
+    public List<Map<String, String>> getTeacherStudents(int teacherId) {
+        return delegate.getTeacherStudents(teacherId);
+    }
+
+    @Override
+    public Map<String, Object> getTeacherStatistics(int teacherId) {
+        return delegate.getTeacherStatistics(teacherId);
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentsBySubject(int subjectId) {
+        return delegate.getStudentsBySubject(subjectId);
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsByStudent(int studentId) {
+        return delegate.getSubjectsByStudent(studentId);
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsByTeacher(int teacherId) {
+        return delegate.getSubjectsByTeacher(teacherId);
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentsBySubjectForTeacher(int teacherId, int subjectId) {
+        return delegate.getStudentsBySubjectForTeacher(teacherId, subjectId);
+    }
+
+    // Student records and registrations
+    @Override
+    public boolean addStudent(String firstName, String lastName, String email, String phone, String schoolOrigin) {
+        return delegate.addStudent(firstName, lastName, email, phone, schoolOrigin);
+    }
+
+    @Override
+    public boolean updateStudentInfo(int studentId, Map<String, String> studentData) {
+        return delegate.updateStudentInfo(studentId, studentData);
+    }
+
+    @Override
+    public Map<String, String> getStudentWithProgram(int studentId) {
+        return delegate.getStudentWithProgram(studentId);
+    }
+
+    @Override
+    public boolean registerStudentToProgram(int studentId, int programId, String academicYear) {
+        return delegate.registerStudentToProgram(studentId, programId, academicYear);
+    }
+
+    @Override
+    public boolean registerStudent(int studentId, int programId, int yearId) {
+        return delegate.registerStudent(studentId, programId, yearId);
+    }
+
+    @Override
+    public List<Map<String, String>> getAllStudents() {
+        return delegate.getAllStudents();
+    }
+
+    @Override
+    public boolean deleteStudent(int studentId) {
+        return delegate.deleteStudent(studentId);
+    }
+
+    @Override
+    public boolean deleteRegistration(int studentId) {
+        return delegate.deleteRegistration(studentId);
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentRegistrations(int studentId) {
+        return delegate.getStudentRegistrations(studentId);
+    }
+
+    @Override
+    public boolean updateStudentStatus(int studentId, String status) {
+        return delegate.updateStudentStatus(studentId, status);
+    }
+
+    @Override
+    public Map<String, Object> getResponsableStatistics() {
+        return delegate.getResponsableStatistics();
+    }
+
+    @Override
+    public List<Map<String, String>> getAcademicYears() {
+        return rows(load("academicYears", delegate::getAcademicYears));
+    }
+
+    @Override
+    public boolean setCurrentAcademicYear(int yearId) {
+        return changed(delegate.setCurrentAcademicYear(yearId));
+    }
+
+    // Programs and subjects
+    @Override
+    public boolean addProgram(String programName, int programYear, String description) {
+        return changed(delegate.addProgram(programName, programYear, description));
+    }
+
+    @Override
+    public List<Map<String, String>> getAllPrograms() {
+        return rows(load("programs", delegate::getAllPrograms));
+    }
+
+    @Override
+    public List<Map<String, String>> getAllProgramsForDropdown() {
+        return rows(load("programsForDropdown", delegate::getAllProgramsForDropdown));
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramsWithStats() {
+        return delegate.getProgramsWithStats();
+    }
+
+    @Override
+    public Integer getProgramIdByName(String programName) {
+        Integer programId = load("programIds", () -> index(load("programs", delegate::getAllPrograms), "programName", "programId")).get(programName);
+        // Not among the programs listed when the index was built: ask the database
+        return programId != null ? programId : delegate.getProgramIdByName(programName);
+    }
+
+    @Override
+    public Integer getSubjectIdByName(String subjectName) {
+        return load("subjectId:" + subjectName, () -> delegate.getSubjectIdByName(subjectName));
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsByProgram(int programId) {
+        return rows(load("subjectsByProgram:" + programId, () -> delegate.getSubjectsByProgram(programId)));
+    }
+
+    @Override
+    public boolean assignTeacherToProgram(int programId, int teacherId, int subjectId, String academicYear) {
+        return changed(delegate.assignTeacherToProgram(programId, teacherId, subjectId, academicYear));
+    }
+
+    @Override
+    public boolean addProgramWithTeachers(String programName, int programYear, String description, Map<Integer, Integer> teacherAssignments, String academicYear) {
+        return changed(delegate.addProgramWithTeachers(programName, programYear, description, teacherAssignments, academicYear));
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramTeachers(int programId) {
+        return delegate.getProgramTeachers(programId);
+    }
+
+    @Override
+    public boolean createProgramWithStructure(String programName, String programType, int durationYears, int totalCredits, String department, String description) {
+        return changed(delegate.createProgramWithStructure(programName, programType, durationYears, totalCredits, department, description));
+    }
+
+    @Override
+    public Map<String, Object> getProgramStructure(int programId) {
+        return delegate.getProgramStructure(programId);
+    }
+
+    @Override
+    public boolean addSimpleSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient) {
+        return changed(delegate.addSimpleSubjectToProgram(programId, subjectName, objectives, semester, coefficient));
+    }
+
+    @Override
+    public List<Map<String, String>> getSubjectsBySemester(int semesterId) {
+        return delegate.getSubjectsBySemester(semesterId);
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramSubjects(int programId) {
+        return delegate.getProgramSubjects(programId);
+    }
+
+    @Override
+    public boolean verifyProgramExists(int programId) {
+        return delegate.verifyProgramExists(programId);
+    }
+
+    @Override
+    public boolean assignTeacherToSubject(int teacherId, int subjectId, String academicYear) {
+        return changed(delegate.assignTeacherToSubject(teacherId, subjectId, academicYear));
+    }
+
+    @Override
+    public boolean removeTeacherFromSubject(int subjectId) {
+        return changed(delegate.removeTeacherFromSubject(subjectId));
+    }
+
+    @Override
+    public boolean addSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient) {
+        return changed(delegate.addSubjectToProgram(programId, subjectName, objectives, semester, coefficient));
+    }
+
+    @Override
+    public boolean doesProgramExist(int programId) {
+        return delegate.doesProgramExist(programId);
+    }
+
+    @Override
+    public List<Map<String, String>> getUnassignedSubjects(int programId) {
+        return delegate.getUnassignedSubjects(programId);
+    }
+
+    @Override
+    public List<Map<String, String>> getProgramSubjectsWithDetails(int programId) {
+        return delegate.getProgramSubjectsWithDetails(programId);
+    }
+
+    @Override
+    public boolean updateProgram(int programId, String programName, int programYear, String description) {
+        return changed(delegate.updateProgram(programId, programName, programYear, description));
+    }
+
+    @Override
+    public boolean deleteProgram(int programId) {
+        return changed(delegate.deleteProgram(programId));
+    }
+
+    @Override
+    public List<Map<String, String>> getStudentsByProgram(int programId) {
+        return delegate.getStudentsByProgram(programId);
+    }
+
+    @Override
+    public Map<String, Object> getProgramStatistics(int programId) {
+        return delegate.getProgramStatistics(programId);
+    }
+
+    @Override
+    public Map<String, Object> getProgramSuccessStatistics(int programId) {
+        return delegate.getProgramSuccessStatistics(programId);
+    }
+
+    // Users and administration
+    @Override
+    public List<Map<String, String>> getAllUsers() {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public Map<String, Object> getSystemStatistics() {
+        return delegate.getSystemStatistics();
+    }
+
+    @Override
+    public List<Map<String, String>> getAllTeachers() {
+        return rows(load("teachers", delegate::getAllTeachers));
+    }
+
+    @Override
+    public boolean createUser(String username, String password, String userType, Integer studentId, Integer teacherId, String email) {
+        return changed(delegate.createUser(username, password, userType, studentId, teacherId, email));
+    }
+
+    @Override
+    public boolean updateUserStatus(int userId, boolean isActive) {
+        return changed(delegate.updateUserStatus(userId, isActive));
+    }
+
+    @Override
+    public boolean resetUserPassword(int userId, String newPassword) {
+        return delegate.resetUserPassword(userId, newPassword);
+    }
+
+    @Override
+    public Map<String, String> getUserDetails(int userId) {
+        return delegate.getUserDetails(userId);
+    }
+}
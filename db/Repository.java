@@ -0,0 +1,97 @@
+import java.util.List;
+import java.util.Map;
+
+// Every data operation the client screens use. RemoteRepository sends each
+// call to the server as one action, and the server runs it on a
+// JdbcRepository; the client only queries the database itself in local mode.
+//
+// Lists come back as rows of strings, and statistics as maps whose values
+// are Integer, Long, Double, String or rows. A null Map, Double or Integer
+// means not found or failed, as does false for the boolean writes.
+interface Repository {
+    // Students
+    List<Map<String, String>> getStudentTranscript(int studentId);
+    Map<String, String> getStudentInfo(int studentId);
+    List<Map<String, String>> getStudentGrades(int studentId);
+    Double calculateSubjectFinalGrade(int studentId, int subjectId);
+    Double calculateOverallAverage(int studentId);
+    Double getOverallAverage(int studentId);
+    String getFinalStatus(int studentId);
+    Map<String, Object> getStudentStatistics(int studentId);
+    List<Map<String, String>> getStudentSubjectGrades(int studentId);
+    
+    // Teachers, exams and grades
+    boolean createExam(String examName, String subject, String examType, double coefficient, int teacherId);
+    boolean addGrade(String studentId, String examId, double score);
+    boolean updateStudentGrade(int gradeId, int teacherId, double newScore);
+    boolean updateGrade(int gradeId, double newScore);
+    Map<String, String> getGradeDetails(int gradeId);
+    Double calculateSubjectAverage(int studentId, int subjectId);
+    List<Map<String, String>> getTeacherSubjects(int teacherId);
+    List<Map<String, String>> getTeacherExams(int teacherId);
+    List<Map<String, String>> getTeacherGrades(int teacherId);
+    boolean updateExam(int examId, String examName, double coefficient);
+    boolean deleteExam(String examId);
+    List<Map<String, String>> getStudentResults(int teacherId);
+    Map<String, String> getSubjectRank(int studentId, int subjectId);
+    List<Map<String, String>> getSubjectLeaderboard(int subjectId, int offset, int limit);
+    List<Map<String, String>> getTeacherStudents(int teacherId);
+    Map<String, Object> getTeacherStatistics(int teacherId);
+    List<Map<String, String>> getStudentsBySubject(int subjectId);
+    List<Map<String, String>> getSubjectsByStudent(int studentId);
+    List<Map<String, String>> getSubjectsByTeacher(int teacherId);
+    List<Map<String, String>> getStudentsBySubjectForTeacher(int teacherId, int subjectId);
+    
+    // Student records and registrations
+    boolean addStudent(String firstName, String lastName, String email, String phone, String schoolOrigin);
+    boolean updateStudentInfo(int studentId, Map<String, String> studentData);
+    Map<String, String> getStudentWithProgram(int studentId);
+    boolean registerStudentToProgram(int studentId, int programId, String academicYear);
+    boolean registerStudent(int studentId, int programId, int yearId);
+    List<Map<String, String>> getAllStudents();
+    boolean deleteStudent(int studentId);
+    boolean deleteRegistration(int studentId);
+    List<Map<String, String>> getStudentRegistrations(int studentId);
+    boolean updateStudentStatus(int studentId, String status);
+    Map<String, Object> getResponsableStatistics();
+    List<Map<String, String>> getAcademicYears();
+    boolean setCurrentAcademicYear(int yearId);
+    
+    // Programs and subjects
+    boolean addProgram(String programName, int programYear, String description);
+    List<Map<String, String>> getAllPrograms();
+    List<Map<String, String>> getAllProgramsForDropdown();
+    List<Map<String, String>> getProgramsWithStats();
+    Integer getProgramIdByName(String programName);
+    Integer getSubjectIdByName(String subjectName);
+    List<Map<String, String>> getSubjectsByProgram(int programId);
+    boolean assignTeacherToProgram(int programId, int teacherId, int subjectId, String academicYear);
+    boolean addProgramWithTeachers(String programName, int programYear, String description, Map<Integer, Integer> teacherAssignments, String academicYear);
+    List<Map<String, String>> getProgramTeachers(int programId);
+    boolean createProgramWithStructure(String programName, String programType, int durationYears, int totalCredits, String department, String description);
+    Map<String, Object> getProgramStructure(int programId);
+    boolean addSimpleSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient);
+    List<Map<String, String>> getSubjectsBySemester(int semesterId);
+    List<Map<String, String>> getProgramSubjects(int programId);
+    boolean verifyProgramExists(int programId);
+    boolean assignTeacherToSubject(int teacherId, int subjectId, String academicYear);
+    boolean removeTeacherFromSubject(int subjectId);
+    boolean addSubjectToProgram(int programId, String subjectName, String objectives, int semester, double coefficient);
+    boolean doesProgramExist(int programId);
+    List<Map<String, String>> getUnassignedSubjects(int programId);
+    List<Map<String, String>> getProgramSubjectsWithDetails(int programId);
+    boolean updateProgram(int programId, String programName, int programYear, String description);
+    boolean deleteProgram(int programId);
+    List<Map<String, String>> getStudentsByProgram(int programId);
+    Map<String, Object> getProgramStatistics(int programId);
+    Map<String, Object> getProgramSuccessStatistics(int programId);
+    
+    // Users and administration
+    List<Map<String, String>> getAllUsers();
+    Map<String, Object> getSystemStatistics();
+    List<Map<String, String>> getAllTeachers();
+    boolean createUser(String username, String password, String userType, Integer studentId, Integer teacherId, String email);
+    boolean updateUserStatus(int userId, boolean isActive);
+    boolean resetUserPassword(int userId, String newPassword);
+    Map<String, String> getUserDetails(int userId);
+}
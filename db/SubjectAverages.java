@@ -0,0 +1,408 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import javax.sql.DataSource;
+
+// student_subject_scores: per student, subject and exam type, the exam that
+// stands for the type in the subject's final grade (the type's latest exam,
+// as calculateSubjectFinalGrade has always taken it) and its score. A
+// student's overall average then comes from a handful of rows instead of
+// all their grades, and is kept in memory per student until a write to them
+// commits. Coefficients are read from exams when a student is loaded, so an
+// exam's new coefficient only needs forget().
+//
+// Grade writers call lock() on the students they write before touching
+// grades, refresh() on the same connection before committing and forget()
+// after. refresh() recomputes the students' rows from their grades and
+// writes only those that differ. reconcile() does the same for every
+// student, CHUNK_STUDENTS at a time in a transaction of their own, so a
+// writer never waits on more than one chunk; startReconcile() runs it on a
+// timer.
+class SubjectAverages {
+    static final int MAX_STUDENTS = 100_000;
+    static final int CHUNK_STUDENTS = 500;
+
+    private static final String UPSERT =
+        "INSERT INTO student_subject_scores (student_id, subject_id, exam_type, exam_id, score) " +
+        "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE exam_id = ?, score = ?";
+    private static final String DELETE =
+        "DELETE FROM student_subject_scores WHERE student_id = ? AND subject_id = ? AND exam_type = ?";
+    // A locking read, so it sees the latest committed grades whenever the
+    // transaction's snapshot was taken; a later exam of a type replaces an earlier one
+    private static final String LATEST =
+        "SELECT g.student_id, e.subject_id, e.exam_type, g.exam_id, g.score " +
+        "FROM grades g JOIN exams e ON g.exam_id = e.exam_id " +
+        "WHERE g.student_id IN (%s) ORDER BY g.student_id, e.subject_id, e.exam_id LOCK IN SHARE MODE";
+    private static final String STORED =
+        "SELECT student_id, subject_id, exam_type, exam_id, score FROM student_subject_scores " +
+        "WHERE student_id IN (%s) FOR UPDATE";
+
+    // Forget stamps are kept per stripe of student ids, so a load that ran
+    // across a write to its student is not kept
+    private static final int STRIPES = 1024;
+
+    // A student's overall average
+    static final class Average {
+        final double average;
+        final long loadedAt;
+
+        Average(double average) {
+            this.average = average;
+            this.loadedAt = System.currentTimeMillis();
+        }
+    }
+
+    // One row of student_subject_scores
+    private static final class Score {
+        final int examId;
+        final double score;
+
+        Score(int examId, double score) {
+            this.examId = examId;
+            this.score = score;
+        }
+
+        boolean same(Score other) {
+            return other != null && examId == other.examId && score == other.score;
+        }
+    }
+
+    final GradingPlans plans;
+    // Per-subject leaderboards, told of the same writes as the averages
+    final SubjectRankings rankings;
+    private final DataSource dataSource;
+    // Access order, so the eldest student is the least recently read; all guarded by this
+    private final LinkedHashMap<Integer, Average> students = new LinkedHashMap<Integer, Average>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Average> eldest) {
+            return size() > MAX_STUDENTS;
+        }
+    };
+    private final long[] stamps = new long[STRIPES];
+    private long clock;
+    private long hits;
+    private long misses;
+    private Map<String, String> lastReconcile = Collections.emptyMap();
+
+    SubjectAverages(DataSource dataSource, GradingPlans plans) {
+        this.dataSource = dataSource;
+        this.plans = plans;
+        this.rankings = new SubjectRankings(dataSource);
+    }
+
+    // ---- Reads ----
+
+    Average get(int studentId) throws SQLException {
+        long stamp;
+        synchronized (this) {
+            Average average = students.get(studentId);
+            if (average != null && System.currentTimeMillis() - average.loadedAt < GradingPlans.MAX_AGE_MILLIS) {
+                hits++;
+                return average;
+            }
+            misses++;
+            stamp = stamps[stripe(studentId)];
+        }
+        Average loaded;
+        try (Connection conn = dataSource.getConnection()) {
+            loaded = load(conn, studentId);
+        }
+        synchronized (this) {
+            if (stamps[stripe(studentId)] == stamp) {
+                students.put(studentId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private Average load(Connection conn, int studentId) throws SQLException {
+        String sql = "SELECT st.program_id, a.subject_id, a.exam_type, a.score, e.coefficient " +
+                     "FROM students st " +
+                     "LEFT JOIN student_subject_scores a ON a.student_id = st.student_id " +
+                     "LEFT JOIN exams e ON a.exam_id = e.exam_id " +
+                     "WHERE st.student_id = ? ORDER BY a.subject_id";
+        Map<Integer, GradingPlan> programPlans = plans.snapshot(conn);
+        GradingPlan plan = GradingPlan.DEFAULT;
+        double total = 0.0;
+        int subjects = 0;
+        int subjectId = 0;
+        int present = 0;
+        double[] scores = new double[GradingPlan.TYPES];
+        double[] coefficients = new double[GradingPlan.TYPES];
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, studentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                boolean first = true;
+                while (rs.next()) {
+                    if (first) {
+                        int programId = rs.getInt("program_id");
+                        plan = rs.wasNull() ? GradingPlan.DEFAULT : programPlans.getOrDefault(programId, GradingPlan.DEFAULT);
+                        first = false;
+                    }
+                    int rowSubject = rs.getInt("subject_id");
+                    int type = GradingPlan.typeIndex(rs.getString("exam_type"));
+                    if (type < 0) {
+                        continue;
+                    }
+                    if (present != 0 && rowSubject != subjectId) {
+                        total += plan.subjectFinal(present, scores, coefficients);
+                        subjects++;
+                        present = 0;
+                    }
+                    subjectId = rowSubject;
+                    scores[type] = rs.getDouble("score");
+                    coefficients[type] = rs.getDouble("coefficient");
+                    present |= 1 << type;
+                }
+            }
+        }
+        if (present != 0) {
+            total += plan.subjectFinal(present, scores, coefficients);
+            subjects++;
+        }
+        return new Average(subjects == 0 ? 0.0 : Math.round((total / subjects) * 100.0) / 100.0);
+    }
+
+    // ---- Writes, on the caller's connection and inside its transaction ----
+
+    // Locks the students' rows, in id order so two writers cannot deadlock;
+    // a writer's first statement, held until its transaction ends
+    void lock(Connection conn, Collection<Integer> studentIds) throws SQLException {
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(studentIds));
+        for (int start = 0; start < ids.size(); start += GradeEngine.MAX_IN_LIST) {
+            List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + GradeEngine.MAX_IN_LIST));
+            String sql = "SELECT student_id FROM students WHERE student_id IN (" + placeholders(chunk.size()) + ") " +
+                         "ORDER BY student_id FOR UPDATE";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                bindIds(stmt, chunk);
+                stmt.executeQuery().close();
+            }
+        }
+    }
+
+    // After the writes to the students' grades, which lock() has locked
+    void refresh(Connection conn, Collection<Integer> studentIds) throws SQLException {
+        repair(conn, new ArrayList<>(new TreeSet<>(studentIds)), new int[3]);
+    }
+
+    // Students with a grade of the exam, whose rows a change to it may move
+    static Set<Integer> gradedStudents(Connection conn, int examId) throws SQLException {
+        Set<Integer> studentIds = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT DISTINCT student_id FROM grades WHERE exam_id = ?")) {
+            stmt.setInt(1, examId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    studentIds.add(rs.getInt(1));
+                }
+            }
+        }
+        return studentIds;
+    }
+
+    // Recomputes the rows of the students and writes the ones that differ;
+    // counts the rows missing, differing and extra into repairs and returns
+    // the students that had any of them
+    private static Set<Integer> repair(Connection conn, List<Integer> studentIds, int[] repairs) throws SQLException {
+        Set<Integer> repaired = new HashSet<>();
+        for (int start = 0; start < studentIds.size(); start += GradeEngine.MAX_IN_LIST) {
+            List<Integer> chunk = studentIds.subList(start, Math.min(studentIds.size(), start + GradeEngine.MAX_IN_LIST));
+            Map<String, Score> expected = scores(conn, LATEST, chunk);
+            Map<String, Score> stored = scores(conn, STORED, chunk);
+            try (PreparedStatement upsert = conn.prepareStatement(UPSERT);
+                 PreparedStatement delete = conn.prepareStatement(DELETE)) {
+                boolean upserts = false;
+                for (Map.Entry<String, Score> entry : expected.entrySet()) {
+                    Score want = entry.getValue();
+                    Score have = stored.remove(entry.getKey());
+                    if (want.same(have)) {
+                        continue;
+                    }
+                    repairs[have == null ? 0 : 1]++;
+                    repaired.add(bindKey(upsert, entry.getKey()));
+                    upsert.setInt(4, want.examId);
+                    upsert.setDouble(5, want.score);
+                    upsert.setInt(6, want.examId);
+                    upsert.setDouble(7, want.score);
+                    upsert.addBatch();
+                    upserts = true;
+                }
+                for (String leftover : stored.keySet()) {
+                    repairs[2]++;
+                    repaired.add(bindKey(delete, leftover));
+                    delete.addBatch();
+                }
+                if (upserts) {
+                    upsert.executeBatch();
+                }
+                if (!stored.isEmpty()) {
+                    delete.executeBatch();
+                }
+            }
+        }
+        return repaired;
+    }
+
+    // student:subject:type to its row, the last one read winning
+    private static Map<String, Score> scores(Connection conn, String sql, List<Integer> studentIds) throws SQLException {
+        Map<String, Score> scores = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(String.format(sql, placeholders(studentIds.size())))) {
+            bindIds(stmt, studentIds);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (GradingPlan.typeIndex(rs.getString("exam_type")) < 0) {
+                        continue;
+                    }
+                    scores.put(rs.getInt("student_id") + ":" + rs.getInt("subject_id") + ":" + rs.getString("exam_type"),
+                        new Score(rs.getInt("exam_id"), rs.getDouble("score")));
+                }
+            }
+        }
+        return scores;
+    }
+
+    // Binds the key's student, subject and type to the first three parameters; returns the student
+    private static int bindKey(PreparedStatement stmt, String key) throws SQLException {
+        String[] parts = key.split(":");
+        int studentId = Integer.parseInt(parts[0]);
+        stmt.setInt(1, studentId);
+        stmt.setInt(2, Integer.parseInt(parts[1]));
+        stmt.setString(3, parts[2]);
+        return studentId;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void bindIds(PreparedStatement stmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            stmt.setInt(i + 1, ids.get(i));
+        }
+    }
+
+    // ---- After commit ----
+
+    synchronized void forget(Collection<Integer> studentIds) {
+        for (Integer studentId : studentIds) {
+            students.remove(studentId);
+            stamps[stripe(studentId)] = ++clock;
+        }
+        rankings.changed(studentIds);
+    }
+
+    void forget(int studentId) {
+        forget(Collections.singleton(studentId));
+    }
+
+    synchronized void forgetAll() {
+        students.clear();
+        clock++;
+        Arrays.fill(stamps, clock);
+        rankings.clear();
+    }
+
+    // ---- Verification ----
+
+    // Recomputes every student's rows from grades and repairs those that
+    // differ, CHUNK_STUDENTS students per transaction. Each chunk locks its
+    // students first, as writers do, so it sees exactly the grades their
+    // stored rows should reflect while writers to other students go on.
+    Map<String, String> reconcile() throws SQLException {
+        long started = System.nanoTime();
+        int checked = 0;
+        int[] repairs = new int[3];
+        try (Connection conn = dataSource.getConnection()) {
+            int after = 0;
+            while (true) {
+                List<Integer> chunk;
+                Set<Integer> repaired;
+                conn.setAutoCommit(false);
+                try {
+                    chunk = lockChunk(conn, after);
+                    repaired = repair(conn, chunk, repairs);
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                if (!repaired.isEmpty()) {
+                    forget(repaired);
+                }
+                checked += chunk.size();
+                after = chunk.get(chunk.size() - 1);
+            }
+        }
+
+        Map<String, String> report = new LinkedHashMap<>();
+        report.put("checked", String.valueOf(checked));
+        report.put("missing", String.valueOf(repairs[0]));
+        report.put("differing", String.valueOf(repairs[1]));
+        report.put("extra", String.valueOf(repairs[2]));
+        report.put("millis", String.valueOf((System.nanoTime() - started) / 1_000_000));
+        if (repairs[0] + repairs[1] + repairs[2] > 0) {
+            System.out.println("🧮 Subject scores repaired: " + report);
+        }
+        synchronized (this) {
+            lastReconcile = report;
+        }
+        return report;
+    }
+
+    // The next CHUNK_STUDENTS students after the given id, locked
+    private static List<Integer> lockChunk(Connection conn, int after) throws SQLException {
+        List<Integer> chunk = new ArrayList<>(CHUNK_STUDENTS);
+        try (PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT student_id FROM students WHERE student_id > ? ORDER BY student_id LIMIT " + CHUNK_STUDENTS + " FOR UPDATE")) {
+            stmt.setInt(1, after);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    chunk.add(rs.getInt(1));
+                }
+            }
+        }
+        return chunk;
+    }
+
+    // Runs reconcile() now and then every periodSeconds on a daemon thread
+    void startReconcile(long periodSeconds) {
+        Thread reconciler = new Thread(() -> {
+            while (true) {
+                try {
+                    reconcile();
+                } catch (SQLException e) {
+                    System.err.println("❌ Reconciling subject scores failed: " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(periodSeconds * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "averages-reconcile");
+        reconciler.setDaemon(true);
+        reconciler.start();
+    }
+
+    synchronized Map<String, String> getStats() {
+        Map<String, String> stats = new LinkedHashMap<>();
+        stats.put("hits", String.valueOf(hits));
+        stats.put("misses", String.valueOf(misses));
+        stats.put("students", String.valueOf(students.size()));
+        for (Map.Entry<String, String> entry : lastReconcile.entrySet()) {
+            stats.put("lastReconcile." + entry.getKey(), entry.getValue());
+        }
+        return stats;
+    }
+
+    private static int stripe(int studentId) {
+        return Math.floorMod(studentId, STRIPES);
+    }
+}
@@ -0,0 +1,476 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import javax.sql.DataSource;
+
+// Every subject's students ranked by AVG(score), the ranking the teacher's
+// results tab has always shown, kept in memory as one RankTree per subject
+// so a rank or a leaderboard page no longer needs a GROUP BY and RANK() over
+// all of the subject's grades. A subject is loaded on first use with one
+// query. SubjectAverages.forget() marks the students a committed write
+// touched; the next read refreshes just those students, in one query for
+// all of them, before it answers, so rankings never show a grade as it was
+// before a write that has returned. Queries run outside the lock that
+// guards the trees, so a cold subject or a check never holds up reads of
+// other subjects. check() compares every loaded subject with SQL's RANK().
+class SubjectRankings {
+    private static final String SUBJECT =
+        "SELECT g.student_id, st.first_name, st.last_name, SUM(ROUND(g.score * 100)) AS sum_cents, COUNT(*) AS exams " +
+        "FROM grades g " +
+        "JOIN exams e ON g.exam_id = e.exam_id " +
+        "JOIN students st ON g.student_id = st.student_id " +
+        "WHERE e.subject_id = ? GROUP BY g.student_id, st.first_name, st.last_name";
+    private static final String STUDENTS =
+        "SELECT g.student_id, e.subject_id, SUM(ROUND(g.score * 100)) AS sum_cents, COUNT(*) AS exams " +
+        "FROM grades g JOIN exams e ON g.exam_id = e.exam_id " +
+        "WHERE g.student_id IN (%s) GROUP BY g.student_id, e.subject_id";
+    private static final String RANKS =
+        "SELECT e.subject_id, g.student_id, " +
+        "RANK() OVER (PARTITION BY e.subject_id ORDER BY AVG(g.score) DESC) AS subject_rank " +
+        "FROM grades g JOIN exams e ON g.exam_id = e.exam_id " +
+        "GROUP BY e.subject_id, g.student_id";
+
+    // One subject's tree, and where each of its students sits in it
+    private static class Ranking {
+        final RankTree tree = new RankTree();
+        final Map<Integer, RankTree.Entry> byStudent = new HashMap<>();
+
+        void put(int studentId, long sumCents, int count) {
+            RankTree.Entry old = byStudent.remove(studentId);
+            if (old != null) {
+                tree.remove(old);
+            }
+            if (count > 0) {
+                RankTree.Entry entry = new RankTree.Entry(studentId, sumCents, count);
+                tree.insert(entry);
+                byStudent.put(studentId, entry);
+            }
+        }
+    }
+
+    private final DataSource dataSource;
+    // Guards everything below; only held while the trees are read or
+    // changed, never across a query
+    private final ReentrantLock lock = new ReentrantLock();
+    // One refresh at a time, so an older one never lands after a newer one
+    // and a read waits for the refresh that took its writes
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Map<Integer, Ranking> subjects = new HashMap<>();
+    private final Map<Integer, String> names = new HashMap<>();
+    // Subjects being loaded; a read of one joins its load
+    private final Map<Integer, CompletableFuture<Ranking>> loading = new HashMap<>();
+    // Students written since the last refresh
+    private Set<Integer> dirty = new HashSet<>();
+    // Students written while each running load or check queries
+    private final Set<Set<Integer>> watching = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Moved by clear(), so results read before it are not kept
+    private long generation;
+    private long loads;
+    private long refreshes;
+
+    SubjectRankings(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // ---- Writes ----
+
+    void changed(Collection<Integer> studentIds) {
+        lock.lock();
+        try {
+            dirty.addAll(studentIds);
+            for (Set<Integer> written : watching) {
+                written.addAll(studentIds);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops every loaded subject; each is loaded again on its next use
+    void clear() {
+        lock.lock();
+        try {
+            subjects.clear();
+            names.clear();
+            dirty.clear();
+            generation++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- Reads ----
+
+    // The rows getStudentResults returns for one subject, best first
+    List<Map<String, String>> results(int subjectId, String subjectName) throws SQLException {
+        return read(subjectId, ranking -> {
+            List<RankTree.Entry> entries = new ArrayList<>(ranking.tree.size());
+            ranking.tree.page(0, ranking.tree.size(), entries);
+            List<Map<String, String>> rows = new ArrayList<>(entries.size());
+            int rank = 0;
+            RankTree.Entry previous = null;
+            for (int i = 0; i < entries.size(); i++) {
+                RankTree.Entry entry = entries.get(i);
+                if (previous == null || previous.compareAverage(entry) != 0) {
+                    rank = i + 1;
+                }
+                previous = entry;
+                Map<String, String> row = row(entry, rank);
+                row.put("subject", subjectName);
+                row.put("finalGrade", row.get("average"));
+                rows.add(row);
+            }
+            return rows;
+        });
+    }
+
+    // A student's place in a subject, or null if they have no grade in it
+    Map<String, String> rankOf(int subjectId, int studentId) throws SQLException {
+        return read(subjectId, ranking -> {
+            RankTree.Entry entry = ranking.byStudent.get(studentId);
+            if (entry == null) {
+                return null;
+            }
+            Map<String, String> row = row(entry, ranking.tree.rank(entry));
+            row.put("students", String.valueOf(ranking.tree.size()));
+            return row;
+        });
+    }
+
+    // Up to limit students from position offset on, best first
+    List<Map<String, String>> leaderboard(int subjectId, int offset, int limit) throws SQLException {
+        return read(subjectId, ranking -> {
+            List<RankTree.Entry> entries = new ArrayList<>();
+            ranking.tree.page(Math.max(0, offset), Math.max(0, limit), entries);
+            List<Map<String, String>> rows = new ArrayList<>(entries.size());
+            for (RankTree.Entry entry : entries) {
+                rows.add(row(entry, ranking.tree.rank(entry)));
+            }
+            return rows;
+        });
+    }
+
+    Map<String, String> getStats() {
+        lock.lock();
+        try {
+            int students = 0;
+            for (Ranking ranking : subjects.values()) {
+                students += ranking.tree.size();
+            }
+            Map<String, String> stats = new LinkedHashMap<>();
+            stats.put("subjects", String.valueOf(subjects.size()));
+            stats.put("entries", String.valueOf(students));
+            stats.put("loads", String.valueOf(loads));
+            stats.put("refreshes", String.valueOf(refreshes));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Loads the subject if needed, then refreshes, so a load that ran across
+    // a write is brought up to date before the tree is read under the lock.
+    // Starts over if clear() dropped the subject in between.
+    private <T> T read(int subjectId, Function<Ranking, T> reader) throws SQLException {
+        while (true) {
+            Ranking ranking = ranking(subjectId);
+            refresh();
+            lock.lock();
+            try {
+                if (subjects.get(subjectId) == ranking) {
+                    return reader.apply(ranking);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ---- Verification ----
+
+    // Compares the rank of every student of every loaded subject with
+    // RANK() OVER the grades. Subjects with a student written while the
+    // query ran are skipped. A subject that disagrees is dropped, to be
+    // loaded again.
+    Map<String, String> check() throws SQLException {
+        long started = System.nanoTime();
+        refresh();
+        Set<Integer> loaded;
+        Set<Integer> changedMeanwhile = new HashSet<>();
+        lock.lock();
+        try {
+            loaded = new HashSet<>(subjects.keySet());
+            watching.add(changedMeanwhile);
+        } finally {
+            lock.unlock();
+        }
+        Map<Integer, Map<Integer, Integer>> expected = new HashMap<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RANKS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int subjectId = rs.getInt("subject_id");
+                if (loaded.contains(subjectId)) {
+                    expected.computeIfAbsent(subjectId, id -> new HashMap<>()).put(rs.getInt("student_id"), rs.getInt("subject_rank"));
+                }
+            }
+        } finally {
+            lock.lock();
+            try {
+                watching.remove(changedMeanwhile);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int checked = 0;
+        int wrong = 0;
+        int missing = 0;
+        int extra = 0;
+        int skipped = 0;
+        Set<Integer> broken = new HashSet<>();
+        lock.lock();
+        try {
+            for (Integer subjectId : loaded) {
+                Ranking ranking = subjects.get(subjectId);
+                Map<Integer, Integer> ranks = expected.getOrDefault(subjectId, Collections.emptyMap());
+                // Dropped meanwhile, or a write during the query moved the ranks of everyone around it
+                if (ranking == null || touches(changedMeanwhile, ranking.byStudent.keySet(), ranks.keySet())) {
+                    skipped++;
+                    continue;
+                }
+                for (Map.Entry<Integer, Integer> want : ranks.entrySet()) {
+                    checked++;
+                    RankTree.Entry entry = ranking.byStudent.get(want.getKey());
+                    if (entry == null) {
+                        missing++;
+                        broken.add(subjectId);
+                    } else if (ranking.tree.rank(entry) != want.getValue()) {
+                        wrong++;
+                        broken.add(subjectId);
+                    }
+                }
+                for (Integer studentId : ranking.byStudent.keySet()) {
+                    if (!ranks.containsKey(studentId)) {
+                        extra++;
+                        broken.add(subjectId);
+                    }
+                }
+            }
+            subjects.keySet().removeAll(broken);
+        } finally {
+            lock.unlock();
+        }
+
+        Map<String, String> report = new LinkedHashMap<>();
+        report.put("subjects", String.valueOf(loaded.size() - skipped));
+        report.put("checked", String.valueOf(checked));
+        report.put("wrongRank", String.valueOf(wrong));
+        report.put("missing", String.valueOf(missing));
+        report.put("extra", String.valueOf(extra));
+        report.put("skippedSubjects", String.valueOf(skipped));
+        report.put("millis", String.valueOf((System.nanoTime() - started) / 1_000_000));
+        if (!broken.isEmpty()) {
+            System.out.println("🏅 Subject rankings disagreed with RANK() and were dropped: " + report);
+        }
+        return report;
+    }
+
+    private static boolean touches(Set<Integer> changed, Set<Integer> indexed, Set<Integer> ranked) {
+        for (Integer studentId : changed) {
+            if (indexed.contains(studentId) || ranked.contains(studentId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---- Loading ----
+
+    // The subject's tree, loaded by this call or joined from a load already
+    // running. Students written during the load are marked again, since a
+    // refresh may have taken them before the tree was in place.
+    private Ranking ranking(int subjectId) throws SQLException {
+        CompletableFuture<Ranking> load;
+        Set<Integer> writtenMeanwhile = new HashSet<>();
+        long loadGeneration;
+        lock.lock();
+        try {
+            Ranking ranking = subjects.get(subjectId);
+            if (ranking != null) {
+                return ranking;
+            }
+            CompletableFuture<Ranking> running = loading.get(subjectId);
+            if (running != null) {
+                load = running;
+                writtenMeanwhile = null;
+            } else {
+                load = new CompletableFuture<>();
+                loading.put(subjectId, load);
+                watching.add(writtenMeanwhile);
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+        if (writtenMeanwhile == null) {
+            try {
+                return load.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        Ranking ranking = new Ranking();
+        Map<Integer, String> loadedNames = new HashMap<>();
+        try {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SUBJECT)) {
+                stmt.setInt(1, subjectId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int studentId = rs.getInt("student_id");
+                        loadedNames.put(studentId, rs.getString("first_name") + " " + rs.getString("last_name"));
+                        ranking.put(studentId, rs.getLong("sum_cents"), rs.getInt("exams"));
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                loading.remove(subjectId);
+                watching.remove(writtenMeanwhile);
+            } finally {
+                lock.unlock();
+            }
+            load.completeExceptionally(e);
+            throw e;
+        }
+        lock.lock();
+        try {
+            loading.remove(subjectId);
+            watching.remove(writtenMeanwhile);
+            // Loaded before a clear(): handed to the callers, who load again
+            if (loadGeneration == generation) {
+                subjects.put(subjectId, ranking);
+                names.putAll(loadedNames);
+                dirty.addAll(writtenMeanwhile);
+                loads++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        load.complete(ranking);
+        return ranking;
+    }
+
+    // Reads the current sums of every written student in the loaded subjects,
+    // and their names; marks made while it runs wait for the next refresh
+    private void refresh() throws SQLException {
+        refreshLock.lock();
+        try {
+            Set<Integer> written;
+            long refreshGeneration;
+            lock.lock();
+            try {
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                written = dirty;
+                dirty = new HashSet<>();
+                refreshGeneration = generation;
+                if (subjects.isEmpty()) {
+                    names.keySet().removeAll(written);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            Map<Integer, Map<Integer, long[]>> sums = new HashMap<>();
+            Map<Integer, String> readNames = new HashMap<>();
+            List<Integer> ids = new ArrayList<>(written);
+            try (Connection conn = dataSource.getConnection()) {
+                for (int start = 0; start < ids.size(); start += GradeEngine.MAX_IN_LIST) {
+                    List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + GradeEngine.MAX_IN_LIST));
+                    read(conn, chunk, sums, readNames);
+                }
+            } catch (SQLException e) {
+                changed(written);
+                throw e;
+            }
+
+            lock.lock();
+            try {
+                if (refreshGeneration != generation) {
+                    return;
+                }
+                names.keySet().removeAll(written);
+                names.putAll(readNames);
+                for (Map.Entry<Integer, Ranking> subject : subjects.entrySet()) {
+                    Map<Integer, long[]> subjectSums = sums.getOrDefault(subject.getKey(), Collections.emptyMap());
+                    for (Integer studentId : written) {
+                        long[] sum = subjectSums.get(studentId);
+                        subject.getValue().put(studentId, sum != null ? sum[0] : 0, sum != null ? (int) sum[1] : 0);
+                    }
+                }
+                refreshes++;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private static void read(Connection conn, List<Integer> studentIds, Map<Integer, Map<Integer, long[]>> sums,
+                             Map<Integer, String> names) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(studentIds.size(), "?"));
+        try (PreparedStatement stmt = conn.prepareStatement(String.format(STUDENTS, placeholders))) {
+            for (int i = 0; i < studentIds.size(); i++) {
+                stmt.setInt(i + 1, studentIds.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sums.computeIfAbsent(rs.getInt("subject_id"), id -> new HashMap<>())
+                        .put(rs.getInt("student_id"), new long[] { rs.getLong("sum_cents"), rs.getLong("exams") });
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT student_id, first_name, last_name FROM students WHERE student_id IN (" + placeholders + ")")) {
+            for (int i = 0; i < studentIds.size(); i++) {
+                stmt.setInt(i + 1, studentIds.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    names.put(rs.getInt("student_id"), rs.getString("first_name") + " " + rs.getString("last_name"));
+                }
+            }
+        }
+    }
+
+    private Map<String, String> row(RankTree.Entry entry, int rank) {
+        // ROUND(AVG(score), 2), and the pass mark the query used on the exact average
+        double average = BigDecimal.valueOf(entry.sumCents, 2)
+            .divide(BigDecimal.valueOf(entry.count), 2, RoundingMode.HALF_UP).doubleValue();
+        Map<String, String> row = new HashMap<>();
+        row.put("studentId", String.valueOf(entry.studentId));
+        row.put("studentName", names.get(entry.studentId));
+        row.put("average", String.valueOf(average));
+        row.put("status", entry.sumCents >= 1000L * entry.count ? "Passed" : "Failed");
+        row.put("rank", String.valueOf(rank));
+        return row;
+    }
+}
@@ -0,0 +1,280 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Headless load generator: N pipelined sessions replaying a weighted mix of
+// actions against a running Server at a fixed target rate.
+//
+// The model is open loop. Request start times are planned up front and
+// latency is measured from the planned start, not from when the request
+// actually went out, so a stalled server shows up as latency instead of
+// silently lowering the offered load (coordinated omission).
+//
+// Ids in generated requests assume the data from SeedData.
+//
+// Usage: java LoadGenerator [--host=localhost] [--port=8080] [--sessions=50] [--rate=500]
+//                           [--duration-s=60] [--warmup-s=10] [--arrivals=poisson|uniform]
+//                           [--mix=LOGIN:5,GET_STUDENT_INFO:20,...] [--codec=binary|serialization]
+//                           [--students=1000] [--teachers=20] [--subjects=40] [--exams=200]
+//                           [--seed=42] [--report=loadgen-report.json]
+public class LoadGenerator {
+    private static final String DEFAULT_MIX =
+        "LOGIN:5,GET_STUDENT_INFO:20,GET_STUDENT_GRADES:25,GET_OVERALL_AVERAGE:35,ADD_GRADE:12,CREATE_EXAM:3";
+    private static final String[] EXAM_TYPES = { "CONTROLE", "EXAMEN", "PROJET", "TP" };
+
+    // Latencies of one action, kept exactly so percentiles need no binning
+    private static class ActionStats {
+        private long[] samples = new long[1024];
+        private int count;
+        final LongAdder errors = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        synchronized void add(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final Random random;
+    private final Map<Action, ActionStats> stats = new EnumMap<>(Action.class);
+    private final Action[] mixActions;
+    private final int[] mixWeights;
+    private final int totalWeight;
+    private final int students;
+    private final int teachers;
+    private final int subjects;
+    private final int exams;
+    private volatile long measureFromNanos;
+
+    LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+        this.students = intOption("students", 1000);
+        this.teachers = intOption("teachers", 20);
+        this.subjects = intOption("subjects", 40);
+        this.exams = intOption("exams", 200);
+
+        String[] entries = options.getOrDefault("mix", DEFAULT_MIX).split(",");
+        mixActions = new Action[entries.length];
+        mixWeights = new int[entries.length];
+        int total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] parts = entries[i].trim().split(":");
+            mixActions[i] = Action.valueOf(parts[0]);
+            total += Integer.parseInt(parts[1]);
+            mixWeights[i] = total;
+            stats.put(mixActions[i], new ActionStats());
+        }
+        totalWeight = total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        new LoadGenerator(options).run();
+    }
+
+    void run() throws Exception {
+        String host = options.getOrDefault("host", "localhost");
+        int port = intOption("port", 8080);
+        int sessionCount = intOption("sessions", 50);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+        long warmupNanos = intOption("warmup-s", 10) * 1_000_000_000L;
+        long durationNanos = intOption("duration-s", 60) * 1_000_000_000L;
+        boolean poisson = !"uniform".equals(options.getOrDefault("arrivals", "poisson"));
+        WireCodec codec = "serialization".equals(options.get("codec")) ? WireCodec.SERIALIZATION : WireCodec.BINARY;
+
+        LoadSession.Listener listener = new LoadSession.Listener() {
+            @Override
+            public void completed(Action action, long intendedNanos, long endNanos, Response response) {
+                if (intendedNanos < measureFromNanos) {
+                    return;
+                }
+                ActionStats actionStats = stats.get(action);
+                actionStats.add(endNanos - intendedNanos);
+                if (!response.isSuccess()) {
+                    actionStats.errors.increment();
+                }
+            }
+
+            @Override
+            public void failed(Action action, long intendedNanos, IOException error) {
+                if (intendedNanos >= measureFromNanos) {
+                    stats.get(action).failures.increment();
+                }
+            }
+        };
+
+        System.out.println("Opening " + sessionCount + " sessions to " + host + ":" + port + "...");
+        List<LoadSession> sessions = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(new LoadSession(host, port, codec, listener));
+        }
+
+        System.out.printf(Locale.ROOT, "Offering %.0f req/s for %ds after %ds warm-up (%s arrivals)%n",
+            rate, durationNanos / 1_000_000_000L, warmupNanos / 1_000_000_000L, poisson ? "poisson" : "uniform");
+        long start = System.nanoTime();
+        measureFromNanos = start + warmupNanos;
+        long end = measureFromNanos + durationNanos;
+        double meanGapNanos = 1_000_000_000.0 / rate;
+
+        long intended = start;
+        long sent = 0;
+        long sentMeasured = 0;
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Request request = nextRequest();
+            sessions.get((int) (sent % sessions.size())).send(request, intended);
+            sent++;
+            if (intended >= measureFromNanos) {
+                sentMeasured++;
+            }
+            double gap = poisson ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+            intended += (long) gap;
+        }
+        long lateness = Math.max(0, System.nanoTime() - end);
+
+        // Give outstanding requests a bounded time to finish; the rest count as timeouts
+        long drainDeadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < drainDeadline && outstanding(sessions) > 0) {
+            Thread.sleep(50);
+        }
+        long timeouts = outstanding(sessions);
+        for (LoadSession session : sessions) {
+            session.close();
+        }
+
+        String report = report(rate, sessionCount, durationNanos, sentMeasured, timeouts, lateness);
+        String reportFile = options.getOrDefault("report", "loadgen-report.json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), StandardCharsets.UTF_8)) {
+            writer.write(report);
+        }
+        printSummary(durationNanos, timeouts);
+        System.out.println("Report written to " + reportFile);
+    }
+
+    private Request nextRequest() {
+        int pick = random.nextInt(totalWeight);
+        Action action = mixActions[0];
+        for (int i = 0; i < mixWeights.length; i++) {
+            if (pick < mixWeights[i]) {
+                action = mixActions[i];
+                break;
+            }
+        }
+
+        int student = 1 + random.nextInt(students);
+        switch (action) {
+            case LOGIN:
+                return Request.of(Action.LOGIN, "student" + student, "pass" + student);
+            case GET_STUDENT_INFO:
+            case GET_STUDENT_GRADES:
+            case GET_OVERALL_AVERAGE:
+            case GET_FINAL_STATUS:
+                return Request.of(action, student);
+            case ADD_GRADE:
+                return Request.of(Action.ADD_GRADE, student, 1 + random.nextInt(exams), random.nextInt(81) / 4.0);
+            case CREATE_EXAM:
+                return Request.of(Action.CREATE_EXAM, EXAM_TYPES[random.nextInt(EXAM_TYPES.length)],
+                    "Load test " + random.nextInt(1_000_000), 1.0, 1 + random.nextInt(subjects), 1 + random.nextInt(teachers));
+            default:
+                throw new IllegalArgumentException("No request generator for " + action);
+        }
+    }
+
+    private static long outstanding(List<LoadSession> sessions) {
+        long total = 0;
+        for (LoadSession session : sessions) {
+            total += session.getOutstanding();
+        }
+        return total;
+    }
+
+    private String report(double rate, int sessions, long durationNanos, long sent, long timeouts, long latenessNanos) {
+        double seconds = durationNanos / 1e9;
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"targetRate\": ").append(rate).append(",\n");
+        json.append("  \"sessions\": ").append(sessions).append(",\n");
+        json.append("  \"durationSeconds\": ").append(seconds).append(",\n");
+        json.append("  \"mix\": \"").append(options.getOrDefault("mix", DEFAULT_MIX)).append("\",\n");
+        json.append("  \"sent\": ").append(sent).append(",\n");
+        json.append("  \"timeouts\": ").append(timeouts).append(",\n");
+        json.append("  \"schedulerLagMs\": ").append(format(latenessNanos / 1e6)).append(",\n");
+        json.append("  \"actions\": {");
+        String separator = "\n";
+        long completed = 0;
+        for (Map.Entry<Action, ActionStats> entry : stats.entrySet()) {
+            long[] samples = entry.getValue().sorted();
+            completed += samples.length;
+            json.append(separator).append("    \"").append(entry.getKey().name()).append("\": {");
+            json.append("\"count\": ").append(samples.length);
+            json.append(", \"errors\": ").append(entry.getValue().errors.sum());
+            json.append(", \"failures\": ").append(entry.getValue().failures.sum());
+            json.append(", \"throughput\": ").append(format(samples.length / seconds));
+            json.append(", \"p50Ms\": ").append(format(percentile(samples, 50)));
+            json.append(", \"p90Ms\": ").append(format(percentile(samples, 90)));
+            json.append(", \"p99Ms\": ").append(format(percentile(samples, 99)));
+            json.append(", \"p999Ms\": ").append(format(percentile(samples, 99.9)));
+            json.append(", \"maxMs\": ").append(format(samples.length == 0 ? 0 : samples[samples.length - 1] / 1e6));
+            json.append("}");
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"throughput\": ").append(format(completed / seconds)).append("\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private void printSummary(long durationNanos, long timeouts) {
+        double seconds = durationNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%-22s %8s %7s %9s %9s %9s %9s %9s%n",
+            "action", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<Action, ActionStats> entry : stats.entrySet()) {
+            long[] samples = entry.getValue().sorted();
+            System.out.printf(Locale.ROOT, "%-22s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                entry.getKey().name(), samples.length,
+                entry.getValue().errors.sum() + entry.getValue().failures.sum(),
+                samples.length / seconds, percentile(samples, 50), percentile(samples, 90), percentile(samples, 99),
+                samples.length == 0 ? 0 : samples[samples.length - 1] / 1e6);
+        }
+        if (timeouts > 0) {
+            System.out.println("⚠️ " + timeouts + " requests never completed");
+        }
+    }
+
+    // Nearest-rank percentile in milliseconds
+    private static double percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(sorted.length * percent / 100.0);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.*;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One simulated client: a pipelined (version 2) connection with its own
+// writer and reader threads, so the load generator's scheduler only ever
+// queues a request and never waits on the socket.
+class LoadSession {
+    interface Listener {
+        void completed(Action action, long intendedNanos, long endNanos, Response response);
+
+        void failed(Action action, long intendedNanos, IOException error);
+    }
+
+    private static class Pending {
+        final Action action;
+        final long intendedNanos;
+
+        Pending(Action action, long intendedNanos) {
+            this.action = action;
+            this.intendedNanos = intendedNanos;
+        }
+    }
+
+    private final Socket socket;
+    private final WireCodec codec;
+    private final Listener listener;
+    private final DataOutputStream output;
+    private final DataInputStream input;
+    private final BlockingQueue<byte[]> outbound = new LinkedBlockingQueue<>();
+    private final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private volatile boolean closed;
+
+    LoadSession(String host, int port, WireCodec codec, Listener listener) throws IOException {
+        this.socket = new Socket(host, port);
+        this.codec = codec;
+        this.listener = listener;
+        socket.setTcpNoDelay(true);
+        output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        writeFrame(Handshake.forCodec(codec, 0).encode());
+        output.flush();
+        byte[] ack = readFrame();
+        if (!Handshake.isHandshake(ack) || Handshake.decode(ack).version < Handshake.VERSION) {
+            socket.close();
+            throw new IOException("Server does not support pipelined sessions");
+        }
+
+        Thread.ofVirtual().name("loadgen-writer").start(this::writeLoop);
+        Thread.ofVirtual().name("loadgen-reader").start(this::readLoop);
+    }
+
+    // Never blocks; latency is measured from intendedNanos, so any time
+    // spent queued here counts against the server
+    void send(Request request, long intendedNanos) {
+        int requestId = nextRequestId.incrementAndGet();
+        try {
+            byte[] frame = new Frame(requestId, 0, codec.encodeRequest(request)).encode();
+            pending.put(requestId, new Pending(request.getAction(), intendedNanos));
+            outbound.add(frame);
+        } catch (IOException e) {
+            listener.failed(request.getAction(), intendedNanos, e);
+        }
+    }
+
+    int getOutstanding() {
+        return pending.size();
+    }
+
+    void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (!closed) {
+                byte[] frame = outbound.take();
+                writeFrame(frame);
+                // Write everything already queued before paying for a flush
+                while ((frame = outbound.poll()) != null) {
+                    writeFrame(frame);
+                }
+                output.flush();
+            }
+        } catch (InterruptedException | IOException e) {
+            failAll(e instanceof IOException ? (IOException) e : new InterruptedIOException());
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (true) {
+                Frame frame = Frame.decode(readFrame());
+                long end = System.nanoTime();
+                Pending call = pending.remove(frame.requestId);
+                if (call != null) {
+                    listener.completed(call.action, call.intendedNanos, end, codec.decodeResponse(call.action, frame.payload));
+                }
+            }
+        } catch (IOException e) {
+            failAll(e);
+        }
+    }
+
+    private void failAll(IOException e) {
+        for (Integer requestId : pending.keySet()) {
+            Pending call = pending.remove(requestId);
+            if (call != null && !closed) {
+                listener.failed(call.action, call.intendedNanos, e);
+            }
+        }
+    }
+
+    private void writeFrame(byte[] body) throws IOException {
+        output.writeInt(body.length);
+        output.write(body);
+    }
+
+    private byte[] readFrame() throws IOException {
+        int length = input.readInt();
+        byte[] body = new byte[length];
+        input.readFully(body);
+        return body;
+    }
+}
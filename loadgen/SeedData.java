@@ -0,0 +1,208 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+// Writes the SQL for a load-test data set whose ids and logins match what
+// LoadGenerator sends: students 1..N log in as studentN / passN, exams and
+// subjects are numbered from 1.
+//
+// Without --schema the script empties the tables of an existing
+// gestion_scolarite database first, so load it into a scratch copy, never a
+// real one. With --schema it starts with the tables, indexes and views of
+// database/Creation.sql instead (stored procedures and triggers left out),
+// for a fresh embedded H2 database in MySQL mode.
+//
+// Usage: java SeedData [--students=1000] [--teachers=20] [--subjects=40] [--exams=200]
+//                      [--grades-per-student=10] [--seed=42] [--schema]
+//                      [--creation-sql=../database/Creation.sql] [--out=seed.sql]
+public class SeedData {
+    private static final String ACADEMIC_YEAR = "2024-2025";
+    private static final String[] EXAM_TYPES = { "CONTROLE", "EXAMEN", "PROJET", "TP" };
+    private static final int ROWS_PER_INSERT = 500;
+
+    // Children before parents so foreign keys never block the delete
+    private static final String[] TABLES = {
+        "notifications", "attendance", "deliberation_runs", "registrations", "student_subject_scores", "grades", "exams", "teacher_subjects",
+        "student_programs", "users", "program_configuration", "semesters", "subjects",
+        "students", "teachers", "programs", "academic_years"
+    };
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                if (eq < 0) {
+                    options.put(arg.substring(2), "true");
+                } else {
+                    options.put(arg.substring(2, eq), arg.substring(eq + 1));
+                }
+            }
+        }
+
+        int students = Integer.parseInt(options.getOrDefault("students", "1000"));
+        int teachers = Integer.parseInt(options.getOrDefault("teachers", "20"));
+        int subjects = Integer.parseInt(options.getOrDefault("subjects", "40"));
+        int exams = Integer.parseInt(options.getOrDefault("exams", "200"));
+        int gradesPerStudent = Math.min(exams, Integer.parseInt(options.getOrDefault("grades-per-student", "10")));
+        Random random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+        String out = options.getOrDefault("out", "seed.sql");
+
+        try (PrintWriter sql = new PrintWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+            if (options.containsKey("schema")) {
+                for (String statement : schemaStatements(options.getOrDefault("creation-sql", "../database/Creation.sql"))) {
+                    sql.println(statement + ";");
+                }
+            } else {
+                for (String table : TABLES) {
+                    sql.println("DELETE FROM " + table + ";");
+                }
+            }
+
+            sql.println("INSERT INTO academic_years (year_id, start_year, end_year, is_current, description) " +
+                "VALUES (1, 2024, 2025, TRUE, 'Load test year');");
+            sql.println("INSERT INTO programs (program_id, program_name, program_year, program_type, department) " +
+                "VALUES (1, 'Load Test Program', 1, 'LICENCE', 'Load');");
+            sql.println("INSERT INTO program_configuration (program_id, has_controle, has_tp, has_project) VALUES (1, TRUE, TRUE, FALSE);");
+            sql.println("INSERT INTO semesters (semester_id, program_id, semester_number, semester_name, is_current) " +
+                "VALUES (1, 1, 1, 'Semestre 1', TRUE), (2, 1, 2, 'Semestre 2', FALSE);");
+
+            Rows rows = new Rows(sql, "INSERT INTO teachers (teacher_id, first_name, last_name, email, specialty)");
+            for (int id = 1; id <= teachers; id++) {
+                rows.add(id + ", 'Teacher', 'T" + id + "', 'teacher" + id + "@load.test', 'Load'");
+            }
+            rows.flush();
+
+            rows = new Rows(sql, "INSERT INTO subjects (subject_id, subject_name, subject_code, semester, coefficient, credits, program_id)");
+            for (int id = 1; id <= subjects; id++) {
+                rows.add(id + ", 'Subject " + id + "', 'LOAD" + id + "', " + (1 + id % 2) + ", " + (1 + id % 3) + ".00, 6, 1");
+            }
+            rows.flush();
+
+            rows = new Rows(sql, "INSERT INTO teacher_subjects (teacher_id, subject_id, academic_year, is_responsible)");
+            for (int id = 1; id <= subjects; id++) {
+                rows.add(teacherOf(id, teachers) + ", " + id + ", '" + ACADEMIC_YEAR + "', TRUE");
+            }
+            rows.flush();
+
+            rows = new Rows(sql, "INSERT INTO students (student_id, first_name, last_name, email, school_origin, " +
+                "program_id, academic_year, student_group, registration_status)");
+            for (int id = 1; id <= students; id++) {
+                rows.add(id + ", 'Student', 'S" + id + "', 'student" + id + "@load.test', 'Load High School', 1, '" +
+                    ACADEMIC_YEAR + "', 'G" + (1 + id % 4) + "', 'Inscrit'");
+            }
+            rows.flush();
+
+            // MySQL's after_student_insert trigger made a login per student; replace them with predictable ones
+            sql.println("DELETE FROM users WHERE user_type = 'STUDENT';");
+            rows = new Rows(sql, "INSERT INTO users (username, password_hash, email, user_type, student_id, teacher_id)");
+            rows.add("'admin', 'admin', 'admin@load.test', 'ADMIN', NULL, NULL");
+            for (int id = 1; id <= teachers; id++) {
+                rows.add("'teacher" + id + "', 'pass" + id + "', 'teacher" + id + "@load.test', 'TEACHER', NULL, " + id);
+            }
+            for (int id = 1; id <= students; id++) {
+                rows.add("'student" + id + "', 'pass" + id + "', 'student" + id + "@load.test', 'STUDENT', " + id + ", NULL");
+            }
+            rows.flush();
+
+            rows = new Rows(sql, "INSERT INTO student_programs (student_id, program_id, academic_year)");
+            for (int id = 1; id <= students; id++) {
+                rows.add(id + ", 1, '" + ACADEMIC_YEAR + "'");
+            }
+            rows.flush();
+
+            rows = new Rows(sql, "INSERT INTO registrations (student_id, program_id, year_id, semester_id, registration_date)");
+            for (int id = 1; id <= students; id++) {
+                rows.add(id + ", 1, 1, 1, CURRENT_DATE");
+            }
+            rows.flush();
+
+            rows = new Rows(sql, "INSERT INTO exams (exam_id, exam_name, subject_id, exam_type, coefficient, teacher_id, exam_date)");
+            for (int id = 1; id <= exams; id++) {
+                int subject = 1 + (id - 1) % subjects;
+                rows.add(id + ", 'Exam " + id + "', " + subject + ", '" + EXAM_TYPES[id % EXAM_TYPES.length] + "', 1.00, " +
+                    teacherOf(subject, teachers) + ", CURRENT_DATE");
+            }
+            rows.flush();
+
+            // Consecutive exams from a random start, so each student has distinct exams spread over subjects
+            rows = new Rows(sql, "INSERT INTO grades (student_id, exam_id, score)");
+            for (int id = 1; id <= students; id++) {
+                int start = random.nextInt(exams);
+                for (int k = 0; k < gradesPerStudent; k++) {
+                    rows.add(id + ", " + (1 + (start + k) % exams) + ", " + String.format(Locale.ROOT, "%.2f", random.nextInt(81) / 4.0));
+                }
+            }
+            rows.flush();
+
+            // The latest exam per type the server keeps in step with grades
+            sql.println("INSERT INTO student_subject_scores (student_id, subject_id, exam_type, exam_id, score)");
+            sql.println("SELECT g.student_id, e.subject_id, e.exam_type, g.exam_id, g.score");
+            sql.println("FROM grades g JOIN exams e ON g.exam_id = e.exam_id");
+            sql.println("WHERE e.exam_id = (SELECT MAX(e2.exam_id) FROM grades g2 JOIN exams e2 ON g2.exam_id = e2.exam_id");
+            sql.println("WHERE g2.student_id = g.student_id AND e2.subject_id = e.subject_id AND e2.exam_type = e.exam_type);");
+        }
+
+        System.out.println("✅ Seed data for " + students + " students, " + exams + " exams written to " + out);
+    }
+
+    private static int teacherOf(int subject, int teachers) {
+        return 1 + (subject - 1) % teachers;
+    }
+
+    // CREATE TABLE, CREATE INDEX and CREATE VIEW statements of Creation.sql;
+    // the sample data, procedures and triggers are MySQL-only or would clash with the seed ids
+    private static List<String> schemaStatements(String path) throws IOException {
+        StringBuilder text = new StringBuilder();
+        boolean inDelimiterBlock = false;
+        for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("DELIMITER")) {
+                inDelimiterBlock = !trimmed.equals("DELIMITER ;");
+                continue;
+            }
+            if (!inDelimiterBlock && !trimmed.startsWith("--")) {
+                text.append(line).append('\n');
+            }
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String statement : text.toString().split(";")) {
+            String trimmed = statement.trim();
+            if (trimmed.startsWith("CREATE TABLE") || trimmed.startsWith("CREATE INDEX") || trimmed.startsWith("CREATE VIEW")) {
+                statements.add(trimmed);
+            }
+        }
+        return statements;
+    }
+
+    // Multi-row INSERT writer, a few hundred rows per statement
+    private static class Rows {
+        private final PrintWriter sql;
+        private final String insert;
+        private int count;
+
+        Rows(PrintWriter sql, String insert) {
+            this.sql = sql;
+            this.insert = insert;
+        }
+
+        void add(String values) {
+            sql.print(count == 0 ? insert + " VALUES\n(" : ",\n(");
+            sql.print(values);
+            sql.print(")");
+            if (++count == ROWS_PER_INSERT) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (count > 0) {
+                sql.println(";");
+                count = 0;
+            }
+        }
+    }
+}
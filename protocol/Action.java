@@ -0,0 +1,168 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// Every action the server understands, with its binary opcode, the types of
+// its arguments and the types of the values that follow a SUCCESS status.
+// Both codecs are driven by this table, so adding an action means adding a
+// constant here and registering a handler in ClientHandler.createRegistry.
+enum Action {
+    EXIT(0, none(), none()),
+    LOGIN(1, of(Type.STRING, Type.STRING), of(Type.MAP)),
+    GET_STUDENT_INFO(2, of(Type.INT), of(Type.MAP)),
+    GET_STUDENT_GRADES(3, of(Type.INT), of(Type.ROWS)),
+    GET_OVERALL_AVERAGE(4, of(Type.INT), of(Type.DOUBLE)),
+    GET_FINAL_STATUS(5, of(Type.INT), of(Type.STRING, Type.DOUBLE)),
+    CREATE_EXAM(6, of(Type.STRING, Type.STRING, Type.DOUBLE, Type.INT, Type.INT), none()),
+    ADD_GRADE(7, of(Type.INT, Type.INT, Type.DOUBLE), none()),
+    CALCULATE_SUBJECT_AVERAGE(8, of(Type.INT, Type.INT), of(Type.DOUBLE)),
+    ADD_STUDENT(9, of(Type.STRING, Type.STRING, Type.STRING, Type.STRING, Type.STRING), none()),
+    ADD_PROGRAM(10, of(Type.STRING, Type.INT, Type.STRING), none()),
+    POOL_STATS(11, none(), of(Type.MAP)),
+    // Ordered write requests run in one transaction; one "status" row per item
+    BATCH(12, of(Type.REQUESTS), of(Type.ROWS)),
+    LIST_STUDENTS(13, none(), of(Type.ROWS)),
+    LIST_USERS(14, none(), of(Type.ROWS)),
+    GET_TEACHER_GRADES(15, of(Type.INT), of(Type.ROWS)),
+    // Per-action compression ratio and cost; see FrameCompressor
+    COMPRESSION_STATS(16, none(), of(Type.ROWS)),
+    // Per-action call counts, latency percentiles and bytes; see ActionRegistry
+    METRICS(17, none(), of(Type.ROWS)),
+    // One per Repository method, run on the server's JdbcRepository. Optional
+    // ids travel as INT with 0 for none, booleans as INT 0/1, and a false or
+    // null result comes back as an ERROR status.
+    STUDENT_TRANSCRIPT(18, of(Type.INT), of(Type.ROWS)),
+    STUDENT_INFO(19, of(Type.INT), of(Type.MAP)),
+    STUDENT_GRADES(20, of(Type.INT), of(Type.ROWS)),
+    SUBJECT_FINAL_GRADE(21, of(Type.INT, Type.INT), of(Type.DOUBLE)),
+    OVERALL_AVERAGE(22, of(Type.INT), of(Type.DOUBLE)),
+    FINAL_STATUS(23, of(Type.INT), of(Type.STRING)),
+    STUDENT_STATISTICS(24, of(Type.INT), of(Type.RECORD)),
+    STUDENT_SUBJECT_GRADES(25, of(Type.INT), of(Type.ROWS)),
+    CREATE_EXAM_FOR_SUBJECT(26, of(Type.STRING, Type.STRING, Type.STRING, Type.DOUBLE, Type.INT), none()),
+    INSERT_GRADE(27, of(Type.STRING, Type.STRING, Type.DOUBLE), none()),
+    UPDATE_STUDENT_GRADE(28, of(Type.INT, Type.INT, Type.DOUBLE), none()),
+    GRADE_DETAILS(29, of(Type.INT), of(Type.MAP)),
+    SUBJECT_AVERAGE(30, of(Type.INT, Type.INT), of(Type.DOUBLE)),
+    TEACHER_EXAMS(31, of(Type.INT), of(Type.ROWS)),
+    UPDATE_EXAM(32, of(Type.INT, Type.STRING, Type.DOUBLE), none()),
+    DELETE_EXAM(33, of(Type.STRING), none()),
+    STUDENT_RESULTS(34, of(Type.INT), of(Type.ROWS)),
+    TEACHER_STUDENTS(35, of(Type.INT), of(Type.ROWS)),
+    TEACHER_STATISTICS(36, of(Type.INT), of(Type.RECORD)),
+    STUDENTS_BY_SUBJECT(37, of(Type.INT), of(Type.ROWS)),
+    SUBJECTS_BY_STUDENT(38, of(Type.INT), of(Type.ROWS)),
+    SUBJECTS_BY_TEACHER(39, of(Type.INT), of(Type.ROWS)),
+    STUDENTS_BY_SUBJECT_FOR_TEACHER(40, of(Type.INT, Type.INT), of(Type.ROWS)),
+    ADD_STUDENT_WITH_ACCOUNT(41, of(Type.STRING, Type.STRING, Type.STRING, Type.STRING, Type.STRING), none()),
+    UPDATE_STUDENT_INFO(42, of(Type.INT, Type.MAP), none()),
+    STUDENT_WITH_PROGRAM(43, of(Type.INT), of(Type.MAP)),
+    REGISTER_STUDENT_TO_PROGRAM(44, of(Type.INT, Type.INT, Type.STRING), none()),
+    REGISTER_STUDENT(45, of(Type.INT, Type.INT, Type.INT), none()),
+    DELETE_STUDENT(46, of(Type.INT), none()),
+    DELETE_REGISTRATION(47, of(Type.INT), none()),
+    STUDENT_REGISTRATIONS(48, of(Type.INT), of(Type.ROWS)),
+    UPDATE_STUDENT_STATUS(49, of(Type.INT, Type.STRING), none()),
+    RESPONSABLE_STATISTICS(50, none(), of(Type.RECORD)),
+    ACADEMIC_YEARS(51, none(), of(Type.ROWS)),
+    SET_CURRENT_ACADEMIC_YEAR(52, of(Type.INT), none()),
+    ALL_PROGRAMS(53, none(), of(Type.ROWS)),
+    PROGRAMS_FOR_DROPDOWN(54, none(), of(Type.ROWS)),
+    PROGRAMS_WITH_STATS(55, none(), of(Type.ROWS)),
+    PROGRAM_ID_BY_NAME(56, of(Type.STRING), of(Type.INT)),
+    SUBJECT_ID_BY_NAME(57, of(Type.STRING), of(Type.INT)),
+    SUBJECTS_BY_PROGRAM(58, of(Type.INT), of(Type.ROWS)),
+    ASSIGN_TEACHER_TO_PROGRAM(59, of(Type.INT, Type.INT, Type.INT, Type.STRING), none()),
+    ADD_PROGRAM_WITH_TEACHERS(60, of(Type.STRING, Type.INT, Type.STRING, Type.MAP, Type.STRING), none()),
+    PROGRAM_TEACHERS(61, of(Type.INT), of(Type.ROWS)),
+    CREATE_PROGRAM_WITH_STRUCTURE(62, of(Type.STRING, Type.STRING, Type.INT, Type.INT, Type.STRING, Type.STRING), none()),
+    PROGRAM_STRUCTURE(63, of(Type.INT), of(Type.RECORD)),
+    SUBJECTS_BY_SEMESTER(64, of(Type.INT), of(Type.ROWS)),
+    PROGRAM_SUBJECTS(65, of(Type.INT), of(Type.ROWS)),
+    ASSIGN_TEACHER_TO_SUBJECT(66, of(Type.INT, Type.INT, Type.STRING), none()),
+    REMOVE_TEACHER_FROM_SUBJECT(67, of(Type.INT), none()),
+    ADD_SUBJECT_TO_PROGRAM(68, of(Type.INT, Type.STRING, Type.STRING, Type.INT, Type.DOUBLE), none()),
+    PROGRAM_EXISTS(69, of(Type.INT), none()),
+    UNASSIGNED_SUBJECTS(70, of(Type.INT), of(Type.ROWS)),
+    PROGRAM_SUBJECTS_WITH_DETAILS(71, of(Type.INT), of(Type.ROWS)),
+    UPDATE_PROGRAM(72, of(Type.INT, Type.STRING, Type.INT, Type.STRING), none()),
+    DELETE_PROGRAM(73, of(Type.INT), none()),
+    STUDENTS_BY_PROGRAM(74, of(Type.INT), of(Type.ROWS)),
+    PROGRAM_STATISTICS(75, of(Type.INT), of(Type.RECORD)),
+    PROGRAM_SUCCESS_STATISTICS(76, of(Type.INT), of(Type.RECORD)),
+    SYSTEM_STATISTICS(77, none(), of(Type.RECORD)),
+    ALL_TEACHERS(78, none(), of(Type.ROWS)),
+    CREATE_USER(79, of(Type.STRING, Type.STRING, Type.STRING, Type.INT, Type.INT, Type.STRING), none()),
+    UPDATE_USER_STATUS(80, of(Type.INT, Type.INT), none()),
+    RESET_USER_PASSWORD(81, of(Type.INT, Type.STRING), none()),
+    USER_DETAILS(82, of(Type.INT), of(Type.MAP)),
+    // Hits, misses and evictions of the server's reference data cache; see ReferenceDataCache
+    REFERENCE_CACHE_STATS(83, none(), of(Type.MAP)),
+    // Hit rate, size and evictions of the server's per-student reply cache; see StudentResultCache
+    STUDENT_CACHE_STATS(84, none(), of(Type.MAP)),
+    // Recomputes student_subject_scores from grades and repairs it; the
+    // report and cache counters of SubjectAverages
+    RECONCILE_AVERAGES(85, none(), of(Type.MAP)),
+    // Starts or resumes the current year's deliberation in the background; see Deliberation
+    START_DELIBERATION(86, none(), of(Type.MAP)),
+    DELIBERATION_PROGRESS(87, none(), of(Type.MAP)),
+    // A student's rank in a subject by average score, and a page of the
+    // subject's leaderboard (subject, offset, limit); see SubjectRankings
+    SUBJECT_RANK(88, of(Type.INT, Type.INT), of(Type.MAP)),
+    SUBJECT_LEADERBOARD(89, of(Type.INT, Type.INT, Type.INT), of(Type.ROWS)),
+    // Compares the in-memory rankings with SQL's RANK() and drops any that differ
+    CHECK_RANKINGS(90, none(), of(Type.MAP));
+
+    // Most items a single BATCH may carry
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    enum Type {
+        INT,
+        DOUBLE,
+        STRING,
+        // Map<String, String>
+        MAP,
+        // List<Map<String, String>>
+        ROWS,
+        // Map<String, Object> with Integer, Long, Double, String or ROWS values
+        RECORD,
+        // List<Request>, each with a known action other than BATCH
+        REQUESTS
+    }
+
+    private static final Map<String, Action> BY_NAME = new HashMap<>();
+    private static final Action[] BY_OPCODE = new Action[256];
+
+    static {
+        for (Action action : values()) {
+            BY_NAME.put(action.name(), action);
+            BY_OPCODE[action.opcode] = action;
+        }
+    }
+
+    final int opcode;
+    final Type[] argTypes;
+    final Type[] resultTypes;
+
+    Action(int opcode, Type[] argTypes, Type[] resultTypes) {
+        this.opcode = opcode;
+        this.argTypes = argTypes;
+        this.resultTypes = resultTypes;
+    }
+
+    // Returns null for names this server does not know
+    static Action byName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    static Action byOpcode(int opcode) {
+        return opcode >= 0 && opcode < BY_OPCODE.length ? BY_OPCODE[opcode] : null;
+    }
+
+    private static Type[] of(Type... types) {
+        return types;
+    }
+
+    private static Type[] none() {
+        return new Type[0];
+    }
+}
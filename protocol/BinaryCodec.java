@@ -0,0 +1,612 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Compact binary payloads. A request is [opcode][args]; a response is
+// [status][values]. Argument and value types come from the Action table, so
+// nothing on the wire describes itself:
+//   INT     zigzag varint
+//   DOUBLE  8 bytes, big-endian IEEE 754
+//   STRING  varint (byte length + 1, 0 = null) then UTF-8
+//   MAP     varint entry count, then key STRING and cell per entry
+//   ROWS    column-oriented table, see writeRows
+//   RECORD  varint entry count, then key STRING and tagged value per entry, see writeRecord
+//   REQUESTS  varint count, then [opcode][args] per request
+//
+// A "cell" is a map value that may also be absent: varint 0 = absent,
+// 1 = null, n + 2 = n UTF-8 bytes follow.
+class BinaryCodec implements WireCodec {
+    // Column encodings inside a ROWS table
+    private static final int COLUMN_STRING = 0;
+    private static final int COLUMN_DICTIONARY = 1;
+    private static final int COLUMN_INT = 2;
+    private static final int COLUMN_DECIMAL = 3;
+
+    // Value tags inside a RECORD
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_INT = 1;
+    private static final int VALUE_LONG = 2;
+    private static final int VALUE_DOUBLE = 3;
+    private static final int VALUE_STRING = 4;
+    private static final int VALUE_ROWS = 5;
+
+    private static final int MAX_DECIMAL_DIGITS = 18;
+    private static final int MAX_ROWS = 1 << 24;
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public byte[] encodeRequest(Request request) throws IOException {
+        Action action = request.getAction();
+        if (action == null) {
+            throw new IOException("Cannot encode unknown action " + request.getName());
+        }
+        Writer out = new Writer(32);
+        out.writeByte(action.opcode);
+        writeValues(action.argTypes, request.getArgs(), out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Request decodeRequest(byte[] payload) throws IOException {
+        Reader in = new Reader(payload);
+        int opcode = in.readByte();
+        Action action = Action.byOpcode(opcode);
+        if (action == null) {
+            return Request.unknown("opcode " + opcode);
+        }
+        return new Request(action.name(), action, readValues(action.argTypes, in));
+    }
+
+    @Override
+    public byte[] encodeResponse(Action action, Response response) throws IOException {
+        Writer out = new Writer(64);
+        out.writeString(response.getStatus());
+        if (action != null && response.isSuccess()) {
+            writeValues(action.resultTypes, response.getValues(), out);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Response decodeResponse(Action action, byte[] payload) throws IOException {
+        Reader in = new Reader(payload);
+        String status = in.readString();
+        Response response = Response.status(status);
+        if (action != null && response.isSuccess()) {
+            response = new Response(status, readValues(action.resultTypes, in));
+        }
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValues(Action.Type[] types, List<Object> values, Writer out) {
+        for (int i = 0; i < types.length; i++) {
+            Object value = values.get(i);
+            switch (types[i]) {
+                case INT:
+                    out.writeSignedVarint((Integer) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case STRING:
+                    out.writeString((String) value);
+                    break;
+                case MAP:
+                    writeMap((Map<String, String>) value, out);
+                    break;
+                case ROWS:
+                    writeRows((List<Map<String, String>>) value, out);
+                    break;
+                case RECORD:
+                    writeRecord((Map<String, Object>) value, out);
+                    break;
+                case REQUESTS:
+                    writeRequests((List<Request>) value, out);
+                    break;
+            }
+        }
+    }
+
+    private static List<Object> readValues(Action.Type[] types, Reader in) throws IOException {
+        List<Object> values = new ArrayList<>(types.length);
+        for (Action.Type type : types) {
+            switch (type) {
+                case INT:
+                    values.add((int) in.readSignedVarint());
+                    break;
+                case DOUBLE:
+                    values.add(in.readDouble());
+                    break;
+                case STRING:
+                    values.add(in.readString());
+                    break;
+                case MAP:
+                    values.add(readMap(in));
+                    break;
+                case ROWS:
+                    values.add(readRows(in));
+                    break;
+                case RECORD:
+                    values.add(readRecord(in));
+                    break;
+                case REQUESTS:
+                    values.add(readRequests(in));
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private static void writeRequests(List<Request> requests, Writer out) {
+        out.writeVarint(requests.size());
+        for (Request request : requests) {
+            out.writeByte(request.getAction().opcode);
+            writeValues(request.getAction().argTypes, request.getArgs(), out);
+        }
+    }
+
+    // Unknown opcodes cannot be skipped since their arguments are untyped
+    private static List<Request> readRequests(Reader in) throws IOException {
+        int count = in.readLength();
+        if (count > Action.MAX_BATCH_SIZE) {
+            throw new IOException("Batch too large: " + count);
+        }
+        List<Request> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int opcode = in.readByte();
+            Action action = Action.byOpcode(opcode);
+            if (action == null || action == Action.BATCH) {
+                throw new IOException("Invalid batch item opcode " + opcode);
+            }
+            requests.add(new Request(action.name(), action, readValues(action.argTypes, in)));
+        }
+        return requests;
+    }
+
+    private static void writeMap(Map<String, String> map, Writer out) {
+        out.writeVarint(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeCell(true, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(Reader in) throws IOException {
+        int size = in.readLength();
+        Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            in.readCellInto(map, key);
+        }
+        return map;
+    }
+
+    // A record's values are few and mixed, so each carries a tag byte:
+    // INT and LONG as zigzag varints, DOUBLE as 8 bytes, STRING, or ROWS
+    @SuppressWarnings("unchecked")
+    private static void writeRecord(Map<String, Object> record, Writer out) {
+        out.writeVarint(record.size());
+        for (Map.Entry<String, Object> entry : record.entrySet()) {
+            out.writeString(entry.getKey());
+            Object value = entry.getValue();
+            if (value == null) {
+                out.writeByte(VALUE_NULL);
+            } else if (value instanceof Integer) {
+                out.writeByte(VALUE_INT);
+                out.writeSignedVarint((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(VALUE_LONG);
+                out.writeSignedVarint((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(VALUE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof String) {
+                out.writeByte(VALUE_STRING);
+                out.writeString((String) value);
+            } else if (value instanceof List) {
+                out.writeByte(VALUE_ROWS);
+                writeRows((List<Map<String, String>>) value, out);
+            } else {
+                throw new IllegalArgumentException("Unsupported record value for " + entry.getKey() + ": " + value.getClass());
+            }
+        }
+    }
+
+    private static Map<String, Object> readRecord(Reader in) throws IOException {
+        int size = in.readLength();
+        Map<String, Object> record = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            int tag = in.readByte();
+            switch (tag) {
+                case VALUE_NULL:
+                    record.put(key, null);
+                    break;
+                case VALUE_INT:
+                    record.put(key, (int) in.readSignedVarint());
+                    break;
+                case VALUE_LONG:
+                    record.put(key, in.readSignedVarint());
+                    break;
+                case VALUE_DOUBLE:
+                    record.put(key, in.readDouble());
+                    break;
+                case VALUE_STRING:
+                    record.put(key, in.readString());
+                    break;
+                case VALUE_ROWS:
+                    record.put(key, readRows(in));
+                    break;
+                default:
+                    throw new IOException("Unknown record value tag " + tag);
+            }
+        }
+        return record;
+    }
+
+    // Rows are written column by column. The header lists every key seen in
+    // any row, each with the cheapest encoding that reproduces its strings
+    // exactly: plain integers and fixed-scale decimals become varints, and
+    // low-cardinality columns (subject names, exam types) use a dictionary.
+    //
+    //   varint rowCount, varint columnCount
+    //   per column: name STRING, kind byte, then
+    //     STRING      rowCount cells
+    //     DICTIONARY  varint size, size STRINGs, then rowCount varints (0 = absent, 1 = null, i + 2)
+    //     INT         rowCount zigzag varints
+    //     DECIMAL     varint scale, then rowCount zigzag varints of the unscaled value
+    private static void writeRows(List<Map<String, String>> rows, Writer out) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Map<String, String> row : rows) {
+            columns.addAll(row.keySet());
+        }
+
+        out.writeVarint(rows.size());
+        out.writeVarint(columns.size());
+        for (String column : columns) {
+            out.writeString(column);
+            writeColumn(column, rows, out);
+        }
+    }
+
+    private static void writeColumn(String column, List<Map<String, String>> rows, Writer out) {
+        boolean allPresent = true;
+        boolean allInts = true;
+        int scale = -1;
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+        for (Map<String, String> row : rows) {
+            String value = row.get(column);
+            if (value == null) {
+                allPresent = false;
+                continue;
+            }
+            if (allInts && !isCanonicalInteger(value)) {
+                allInts = false;
+            }
+            if (scale != -2) {
+                int valueScale = decimalScale(value);
+                scale = (scale == -1 || scale == valueScale) && valueScale > 0 ? valueScale : -2;
+            }
+            dictionary.putIfAbsent(value, dictionary.size());
+        }
+
+        if (allPresent && allInts) {
+            out.writeByte(COLUMN_INT);
+            for (Map<String, String> row : rows) {
+                out.writeSignedVarint(Long.parseLong(row.get(column)));
+            }
+        } else if (allPresent && scale > 0) {
+            out.writeByte(COLUMN_DECIMAL);
+            out.writeVarint(scale);
+            for (Map<String, String> row : rows) {
+                out.writeSignedVarint(unscaled(row.get(column)));
+            }
+        } else if (rows.size() >= 4 && dictionary.size() <= rows.size() / 2) {
+            out.writeByte(COLUMN_DICTIONARY);
+            out.writeVarint(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                out.writeString(value);
+            }
+            for (Map<String, String> row : rows) {
+                String value = row.get(column);
+                if (value != null) {
+                    out.writeVarint(dictionary.get(value) + 2);
+                } else {
+                    out.writeVarint(row.containsKey(column) ? 1 : 0);
+                }
+            }
+        } else {
+            out.writeByte(COLUMN_STRING);
+            for (Map<String, String> row : rows) {
+                out.writeCell(row.containsKey(column), row.get(column));
+            }
+        }
+    }
+
+    private static List<Map<String, String>> readRows(Reader in) throws IOException {
+        // Rows can be empty maps, so the row count is not bounded by the bytes left
+        long rowCount = in.readVarint();
+        if (rowCount > MAX_ROWS) {
+            throw new IOException("Too many rows: " + rowCount);
+        }
+        int columnCount = in.readLength();
+        List<Map<String, String>> rows = new ArrayList<>((int) rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(new HashMap<>(columnCount * 2));
+        }
+
+        for (int c = 0; c < columnCount; c++) {
+            String column = in.readString();
+            int kind = in.readByte();
+            switch (kind) {
+                case COLUMN_STRING:
+                    for (Map<String, String> row : rows) {
+                        in.readCellInto(row, column);
+                    }
+                    break;
+                case COLUMN_DICTIONARY: {
+                    String[] dictionary = new String[in.readLength()];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = in.readString();
+                    }
+                    for (Map<String, String> row : rows) {
+                        long index = in.readVarint();
+                        if (index > dictionary.length + 1L) {
+                            throw new IOException("Dictionary index out of range: " + index);
+                        }
+                        if (index == 1) {
+                            row.put(column, null);
+                        } else if (index >= 2) {
+                            row.put(column, dictionary[(int) index - 2]);
+                        }
+                    }
+                    break;
+                }
+                case COLUMN_INT:
+                    for (Map<String, String> row : rows) {
+                        row.put(column, Long.toString(in.readSignedVarint()));
+                    }
+                    break;
+                case COLUMN_DECIMAL: {
+                    int scale = in.readLength();
+                    for (Map<String, String> row : rows) {
+                        row.put(column, formatDecimal(in.readSignedVarint(), scale));
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown column kind " + kind);
+            }
+        }
+        return rows;
+    }
+
+    // "0", "42", "-7"; rejects leading zeros, "-0" and anything that would
+    // not print back identically
+    static boolean isCanonicalInteger(String value) {
+        int start = value.startsWith("-") ? 1 : 0;
+        int digits = value.length() - start;
+        if (digits < 1 || digits > MAX_DECIMAL_DIGITS) {
+            return false;
+        }
+        if (value.charAt(start) == '0' && (digits > 1 || start == 1)) {
+            return false;
+        }
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Scale of a plain decimal such as "15.50" (2), or -1 if the string would
+    // not survive a round trip through unscaled value and scale
+    static int decimalScale(String value) {
+        int dot = value.indexOf('.');
+        if (dot < 0) {
+            return -1;
+        }
+        String integerPart = value.substring(0, dot);
+        String fraction = value.substring(dot + 1);
+        if (fraction.isEmpty() || !isCanonicalInteger(integerPart.equals("-0") ? "0" : integerPart)) {
+            return -1;
+        }
+        if (integerPart.length() - (integerPart.startsWith("-") ? 1 : 0) + fraction.length() > MAX_DECIMAL_DIGITS) {
+            return -1;
+        }
+        boolean allZero = true;
+        for (int i = 0; i < fraction.length(); i++) {
+            char c = fraction.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            allZero &= c == '0';
+        }
+        // "-0.00" has no distinct unscaled value
+        if (integerPart.equals("-0") && allZero) {
+            return -1;
+        }
+        return fraction.length();
+    }
+
+    private static long unscaled(String value) {
+        boolean negative = value.startsWith("-");
+        String digits = value.substring(negative ? 1 : 0).replace(".", "");
+        long unscaled = Long.parseLong(digits);
+        return negative ? -unscaled : unscaled;
+    }
+
+    static String formatDecimal(long unscaled, int scale) {
+        String digits = Long.toString(Math.abs(unscaled));
+        StringBuilder text = new StringBuilder(digits.length() + 3);
+        if (unscaled < 0) {
+            text.append('-');
+        }
+        if (digits.length() <= scale) {
+            text.append("0.");
+            for (int i = digits.length(); i < scale; i++) {
+                text.append('0');
+            }
+            text.append(digits);
+        } else {
+            text.append(digits, 0, digits.length() - scale).append('.').append(digits, digits.length() - scale, digits.length());
+        }
+        return text.toString();
+    }
+
+    // Growable output buffer with the primitive encodings above
+    static class Writer {
+        private byte[] buffer;
+        private int size;
+
+        Writer(int initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        void writeCell(boolean present, String value) {
+            if (!present) {
+                writeVarint(0);
+            } else if (value == null) {
+                writeVarint(1);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length + 2L);
+                writeBytes(bytes);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    static class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() throws IOException {
+            if (position >= buffer.length) {
+                throw new EOFException("Truncated payload");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long readSignedVarint() throws IOException {
+            long raw = readVarint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        // A varint used as a count or length; bounded by what is left to read
+        int readLength() throws IOException {
+            long value = readVarint();
+            if (value < 0 || value > buffer.length - position + 2L) {
+                throw new IOException("Invalid length " + value);
+            }
+            return (int) value;
+        }
+
+        double readDouble() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | readByte();
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() throws IOException {
+            int length = readLength();
+            return length == 0 ? null : readUtf8(length - 1);
+        }
+
+        void readCellInto(Map<String, String> map, String key) throws IOException {
+            int length = readLength();
+            if (length == 1) {
+                map.put(key, null);
+            } else if (length >= 2) {
+                map.put(key, readUtf8(length - 2));
+            }
+        }
+
+        private String readUtf8(int length) throws IOException {
+            if (length > buffer.length - position) {
+                throw new EOFException("Truncated payload");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// DEFLATE for frame payloads of version 2 sessions. Compressed payloads are
+// [int original length][raw deflate data] and travel with
+// Frame.FLAG_COMPRESSED; both sides agree to use them through
+// Handshake.FLAG_DEFLATE.
+//
+// Deflater and Inflater own native buffers, so they are pooled instead of
+// created per frame.
+class Compression {
+    // Payloads smaller than this are not worth the CPU
+    static final int DEFAULT_THRESHOLD = 1024;
+    // Largest payload a compressed frame may expand to, as for plain frames
+    static final int MAX_INFLATED_SIZE = 16 * 1024 * 1024;
+
+    private final int level;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+    // level: Deflater.BEST_SPEED (1) up to Deflater.BEST_COMPRESSION (9)
+    Compression(int level) {
+        this.level = level;
+    }
+
+    // Returns null when the compressed form would not be smaller
+    byte[] compress(byte[] data) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] out = new byte[4 + data.length];
+            out[0] = (byte) (data.length >>> 24);
+            out[1] = (byte) (data.length >>> 16);
+            out[2] = (byte) (data.length >>> 8);
+            out[3] = (byte) data.length;
+            int length = 4;
+            while (!deflater.finished() && length < out.length) {
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            if (!deflater.finished()) {
+                return null;
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(out, 0, result, 0, length);
+            return result;
+        } finally {
+            deflater.reset();
+            deflaters.add(deflater);
+        }
+    }
+
+    byte[] decompress(byte[] data) throws IOException {
+        if (data.length < 4) {
+            throw new IOException("Compressed payload too short");
+        }
+        int size = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+        if (size < 0 || size > MAX_INFLATED_SIZE) {
+            throw new IOException("Invalid inflated size: " + size);
+        }
+
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            inflater.setInput(data, 4, data.length - 4);
+            byte[] out = new byte[size];
+            int length = 0;
+            while (length < size) {
+                int n = inflater.inflate(out, length, size - length);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != size) {
+                throw new IOException("Compressed payload inflated to " + length + " bytes, expected " + size);
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed payload: " + e.getMessage());
+        } finally {
+            inflater.reset();
+            inflaters.add(inflater);
+        }
+    }
+}
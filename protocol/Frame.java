@@ -0,0 +1,91 @@
+import java.io.IOException;
+
+// Body of a version 2 frame, i.e. everything after the length prefix:
+//
+//   [int requestId][byte flags][codec payload]
+//
+// The server echoes the request id on the reply so clients can match
+// replies that arrive out of order. Undefined flag bits must be zero.
+//
+// A request with FLAG_STREAM accepts a chunked reply for ROWS actions: the
+// server sends any number of frames with FLAG_MORE, each a SUCCESS with a
+// slice of the rows, then one final frame without it. The final frame is
+// the end-of-stream marker, holding the last rows, or an ERROR when the
+// query failed part way.
+//
+// With FLAG_VERSIONED a long follows the header (only after
+// Handshake.FLAG_VERSIONS). On a request it is the version of the reply the
+// client still holds, 0 for none; on a reply, the version of its data (see
+// EntityVersions). A reply that also has FLAG_NOT_MODIFIED has an empty
+// payload: the client's copy is current. Only the final frame of a
+// streamed reply carries them.
+class Frame {
+    static final int HEADER_SIZE = 5;
+    static final int VERSION_SIZE = 8;
+
+    static final int FLAG_STREAM = 0x01;
+    static final int FLAG_MORE = 0x02;
+    // Payload is compressed (see Compression); only after Handshake.FLAG_DEFLATE
+    static final int FLAG_COMPRESSED = 0x04;
+    static final int FLAG_VERSIONED = 0x08;
+    static final int FLAG_NOT_MODIFIED = 0x10;
+
+    final int requestId;
+    final int flags;
+    final long version;
+    final byte[] payload;
+
+    Frame(int requestId, int flags, byte[] payload) {
+        this(requestId, flags, 0, payload);
+    }
+
+    Frame(int requestId, int flags, long version, byte[] payload) {
+        this.requestId = requestId;
+        this.flags = flags;
+        this.version = version;
+        this.payload = payload;
+    }
+
+    static Frame decode(byte[] body) throws IOException {
+        if (body.length < HEADER_SIZE) {
+            throw new IOException("Frame too short: " + body.length + " bytes");
+        }
+        int requestId = ((body[0] & 0xFF) << 24) | ((body[1] & 0xFF) << 16) | ((body[2] & 0xFF) << 8) | (body[3] & 0xFF);
+        int flags = body[4] & 0xFF;
+        int start = HEADER_SIZE;
+        long version = 0;
+        if ((flags & FLAG_VERSIONED) != 0) {
+            if (body.length < HEADER_SIZE + VERSION_SIZE) {
+                throw new IOException("Versioned frame too short: " + body.length + " bytes");
+            }
+            for (int i = 0; i < VERSION_SIZE; i++) {
+                version = (version << 8) | (body[HEADER_SIZE + i] & 0xFF);
+            }
+            start += VERSION_SIZE;
+        }
+        byte[] payload = new byte[body.length - start];
+        System.arraycopy(body, start, payload, 0, payload.length);
+        return new Frame(requestId, flags, version, payload);
+    }
+
+    boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    byte[] encode() {
+        int start = hasFlag(FLAG_VERSIONED) ? HEADER_SIZE + VERSION_SIZE : HEADER_SIZE;
+        byte[] body = new byte[start + payload.length];
+        body[0] = (byte) (requestId >>> 24);
+        body[1] = (byte) (requestId >>> 16);
+        body[2] = (byte) (requestId >>> 8);
+        body[3] = (byte) requestId;
+        body[4] = (byte) flags;
+        if (hasFlag(FLAG_VERSIONED)) {
+            for (int i = 0; i < VERSION_SIZE; i++) {
+                body[HEADER_SIZE + i] = (byte) (version >>> (8 * (VERSION_SIZE - 1 - i)));
+            }
+        }
+        System.arraycopy(payload, 0, body, start, payload.length);
+        return body;
+    }
+}
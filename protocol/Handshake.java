@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+// Optional first frame of a framed connection. A client that sends it asks
+// for protocol version 2, where every later frame carries a request id (see
+// Frame) and replies may come back in any order. The server answers with a
+// Handshake of its own that states what it accepted.
+//
+// Clients that skip the handshake get version 1: one request at a time, no
+// request ids, codec detected from the first frame.
+//
+//   [0xFE 'S' 'M'][version][codec id][flags]
+//
+// The client's flags are options it supports; the server's are the ones it
+// turned on for this connection.
+class Handshake {
+    static final int VERSION = 2;
+
+    // Large payloads may be sent compressed, see Compression
+    static final int FLAG_DEFLATE = 0x01;
+    // Reads may carry the version of the client's copy and get NOT_MODIFIED, see Frame
+    static final int FLAG_VERSIONS = 0x02;
+
+    static final int CODEC_SERIALIZATION = 0;
+    static final int CODEC_BINARY = 1;
+
+    private static final byte[] MAGIC = { (byte) 0xFE, 'S', 'M' };
+    private static final int LENGTH = MAGIC.length + 3;
+
+    final int version;
+    final int codecId;
+    final int flags;
+
+    Handshake(int version, int codecId, int flags) {
+        this.version = version;
+        this.codecId = codecId;
+        this.flags = flags;
+    }
+
+    static Handshake forCodec(WireCodec codec, int flags) {
+        return new Handshake(VERSION, codec == WireCodec.SERIALIZATION ? CODEC_SERIALIZATION : CODEC_BINARY, flags);
+    }
+
+    // 0xFE is neither a binary opcode nor the start of a serialization stream
+    static boolean isHandshake(byte[] payload) {
+        return payload.length == LENGTH && Arrays.equals(Arrays.copyOf(payload, MAGIC.length), MAGIC);
+    }
+
+    static Handshake decode(byte[] payload) throws IOException {
+        if (!isHandshake(payload)) {
+            throw new IOException("Not a handshake frame");
+        }
+        return new Handshake(payload[3] & 0xFF, payload[4] & 0xFF, payload[5] & 0xFF);
+    }
+
+    byte[] encode() {
+        byte[] payload = Arrays.copyOf(MAGIC, LENGTH);
+        payload[3] = (byte) version;
+        payload[4] = (byte) codecId;
+        payload[5] = (byte) flags;
+        return payload;
+    }
+
+    boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    WireCodec codec() throws IOException {
+        switch (codecId) {
+            case CODEC_SERIALIZATION:
+                return WireCodec.SERIALIZATION;
+            case CODEC_BINARY:
+                return WireCodec.BINARY;
+            default:
+                throw new IOException("Unknown codec id " + codecId);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// One decoded client request: the action and its arguments in wire order.
+// Arguments are Integer, Double, String, a map or a list of requests as
+// declared by Action.argTypes.
+class Request {
+    private final String name;
+    private final Action action;
+    private final List<Object> args;
+
+    Request(String name, Action action, List<Object> args) {
+        this.name = name;
+        this.action = action;
+        this.args = args;
+    }
+
+    static Request of(Action action, Object... args) {
+        return new Request(action.name(), action, Arrays.asList(args));
+    }
+
+    // A request for an action this side does not know; it carries no arguments
+    static Request unknown(String name) {
+        return new Request(name, null, Collections.emptyList());
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // Null when the action is unknown
+    Action getAction() {
+        return action;
+    }
+
+    List<Object> getArgs() {
+        return args;
+    }
+
+    int getInt(int index) {
+        return (Integer) args.get(index);
+    }
+
+    double getDouble(int index) {
+        return (Double) args.get(index);
+    }
+
+    String getString(int index) {
+        return (String) args.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, String> getMap(int index) {
+        return (Map<String, String>) args.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Request> getRequests(int index) {
+        return (List<Request>) args.get(index);
+    }
+
+    @Override
+    public String toString() {
+        return name + args;
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// A reply: the status line ("SUCCESS", "SUCCESS: ..." or "ERROR: ...") and,
+// for successful replies, the values declared by Action.resultTypes.
+class Response {
+    private final String status;
+    private final List<Object> values;
+
+    Response(String status, List<Object> values) {
+        this.status = status;
+        this.values = values;
+    }
+
+    static Response success(Object... values) {
+        return new Response("SUCCESS", Arrays.asList(values));
+    }
+
+    // A status-only reply such as "SUCCESS: exam created" or "ERROR: not found"
+    static Response status(String status) {
+        return new Response(status, Collections.emptyList());
+    }
+
+    static Response error(String message) {
+        return status("ERROR: " + message);
+    }
+
+    String getStatus() {
+        return status;
+    }
+
+    boolean isSuccess() {
+        return status != null && status.startsWith("SUCCESS");
+    }
+
+    List<Object> getValues() {
+        return values;
+    }
+
+    int getInt(int index) {
+        return (Integer) values.get(index);
+    }
+
+    double getDouble(int index) {
+        return (Double) values.get(index);
+    }
+
+    String getString(int index) {
+        return (String) values.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, String> getMap(int index) {
+        return (Map<String, String>) values.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Map<String, String>> getRows(int index) {
+        return (List<Map<String, String>>) values.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> getRecord(int index) {
+        return (Map<String, Object>) values.get(index);
+    }
+
+    @Override
+    public String toString() {
+        return values.isEmpty() ? status : status + " " + values;
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// The original wire format: the action name and every argument written in
+// turn to an ObjectOutputStream, ints and doubles as primitives and
+// everything else with writeObject. Kept so existing clients keep working
+// while they migrate to BinaryCodec.
+class SerializationCodec implements WireCodec {
+
+    @Override
+    public String getName() {
+        return "serialization";
+    }
+
+    @Override
+    public byte[] encodeRequest(Request request) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            writeRequest(request, output);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public Request decodeRequest(byte[] payload) throws IOException {
+        return readRequest(new ObjectInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    @Override
+    public byte[] encodeResponse(Action action, Response response) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            writeResponse(action, response, output);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public Response decodeResponse(Action action, byte[] payload) throws IOException {
+        return readResponse(action, new ObjectInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    // Stream forms, used directly by unframed legacy sessions
+
+    void writeRequest(Request request, ObjectOutputStream output) throws IOException {
+        output.writeObject(request.getName());
+        Action action = request.getAction();
+        if (action != null) {
+            writeValues(action.argTypes, request.getArgs(), output);
+        }
+    }
+
+    Request readRequest(ObjectInputStream input) throws IOException {
+        String name = (String) readObject(input);
+        Action action = Action.byName(name);
+        if (action == null) {
+            return Request.unknown(name);
+        }
+        return new Request(name, action, readValues(action.argTypes, input));
+    }
+
+    void writeResponse(Action action, Response response, ObjectOutputStream output) throws IOException {
+        output.writeObject(response.getStatus());
+        if (action != null && response.isSuccess()) {
+            writeValues(action.resultTypes, response.getValues(), output);
+        }
+    }
+
+    Response readResponse(Action action, ObjectInputStream input) throws IOException {
+        String status = (String) readObject(input);
+        Response response = Response.status(status);
+        if (action != null && response.isSuccess()) {
+            response = new Response(status, readValues(action.resultTypes, input));
+        }
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValues(Action.Type[] types, List<Object> values, ObjectOutputStream output) throws IOException {
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i]) {
+                case INT:
+                    output.writeInt((Integer) values.get(i));
+                    break;
+                case DOUBLE:
+                    output.writeDouble((Double) values.get(i));
+                    break;
+                case REQUESTS:
+                    List<Request> requests = (List<Request>) values.get(i);
+                    output.writeInt(requests.size());
+                    for (Request request : requests) {
+                        writeRequest(request, output);
+                    }
+                    break;
+                default:
+                    output.writeObject(values.get(i));
+            }
+        }
+    }
+
+    private List<Object> readValues(Action.Type[] types, ObjectInputStream input) throws IOException {
+        List<Object> values = new ArrayList<>(types.length);
+        for (Action.Type type : types) {
+            switch (type) {
+                case INT:
+                    values.add(input.readInt());
+                    break;
+                case DOUBLE:
+                    values.add(input.readDouble());
+                    break;
+                case REQUESTS:
+                    values.add(readRequests(input));
+                    break;
+                default:
+                    values.add(readObject(input));
+            }
+        }
+        return values;
+    }
+
+    private List<Request> readRequests(ObjectInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > Action.MAX_BATCH_SIZE) {
+            throw new InvalidObjectException("Invalid batch size: " + count);
+        }
+        List<Request> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Request request = readRequest(input);
+            if (request.getAction() == null || request.getAction() == Action.BATCH) {
+                throw new InvalidObjectException("Invalid batch item " + request.getName());
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static Object readObject(ObjectInputStream input) throws IOException {
+        try {
+            return input.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new InvalidObjectException("Unexpected class in stream: " + e.getMessage());
+        }
+    }
+}
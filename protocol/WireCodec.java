@@ -0,0 +1,28 @@
+import java.io.IOException;
+
+// Turns requests and responses into frame payloads and back. Frames
+// themselves are always [int length][payload]; only the payload differs.
+//
+// A connection's codec is chosen by its first frame: either a Handshake
+// naming it, or the payload itself, since Java serialization streams start
+// with 0xACED and binary requests start with an opcode.
+interface WireCodec {
+    WireCodec SERIALIZATION = new SerializationCodec();
+    WireCodec BINARY = new BinaryCodec();
+
+    byte[] encodeRequest(Request request) throws IOException;
+
+    Request decodeRequest(byte[] payload) throws IOException;
+
+    byte[] encodeResponse(Action action, Response response) throws IOException;
+
+    Response decodeResponse(Action action, byte[] payload) throws IOException;
+
+    String getName();
+
+    static WireCodec detect(byte[] firstPayload) {
+        boolean serialized = firstPayload.length >= 2
+            && (firstPayload[0] & 0xFF) == 0xAC && (firstPayload[1] & 0xFF) == 0xED;
+        return serialized ? SERIALIZATION : BINARY;
+    }
+}
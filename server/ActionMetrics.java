@@ -0,0 +1,104 @@
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and a latency histogram for one action. Recording is lock-free
+// so it can sit on every request.
+//
+// Latencies are kept in microseconds in log-linear buckets: exact below 16,
+// then 8 buckets per power of two, so a percentile is off by at most 12.5%.
+class ActionMetrics {
+    private static final int LINEAR = 16;
+    private static final int SUB_BUCKETS = 8;
+    // Up to 2^40 us, far beyond any request
+    private static final int BUCKETS = LINEAR + (40 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxMicros = new AtomicLong();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    void record(long nanos, boolean success) {
+        long micros = nanos / 1000;
+        histogram.incrementAndGet(bucket(micros));
+        maxMicros.accumulateAndGet(micros, Math::max);
+        calls.increment();
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    void recordBytes(long in, long out) {
+        bytesIn.add(in);
+        bytesOut.add(out);
+    }
+
+    long getCalls() {
+        return calls.sum();
+    }
+
+    // Upper bound of the bucket holding the given percentile, in microseconds
+    long percentile(double percent) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percent / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    Map<String, String> snapshot() {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("calls", String.valueOf(calls.sum()));
+        row.put("errors", String.valueOf(errors.sum()));
+        row.put("p50Micros", String.valueOf(percentile(50)));
+        row.put("p90Micros", String.valueOf(percentile(90)));
+        row.put("p99Micros", String.valueOf(percentile(99)));
+        row.put("maxMicros", String.valueOf(maxMicros.get()));
+        row.put("bytesIn", String.valueOf(bytesIn.sum()));
+        row.put("bytesOut", String.valueOf(bytesOut.sum()));
+        return row;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%8d %7d %9d %9d %9d %9d %11d %11d",
+            calls.sum(), errors.sum(), percentile(50), percentile(90), percentile(99), maxMicros.get(),
+            bytesIn.sum(), bytesOut.sum());
+    }
+
+    static int bucket(long micros) {
+        if (micros < LINEAR) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, LINEAR + (exponent - 4) * SUB_BUCKETS + sub);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+    }
+}
@@ -0,0 +1,140 @@
+import java.sql.Connection;
+import java.util.*;
+
+// Maps each action to the handler that runs it, and wraps every call with
+// timing and success/error counting in that action's ActionMetrics. The
+// numbers come back through the METRICS action and an optional periodic
+// dump to stdout. Every call that writes also moves the EntityVersions of
+// the tables it changes.
+class ActionRegistry {
+    // Runs with a pooled connection borrowed for the call
+    interface Handler {
+        Response handle(Request request, Connection conn, RowStream rows) throws Exception;
+    }
+
+    // Runs without a borrowed connection: in-memory actions, and repository
+    // calls that take their own
+    interface LocalHandler {
+        Response handle(Request request) throws Exception;
+    }
+
+    private static class Entry {
+        final Handler handler;
+        final LocalHandler localHandler;
+        final ActionMetrics metrics = new ActionMetrics();
+
+        Entry(Handler handler, LocalHandler localHandler) {
+            this.handler = handler;
+            this.localHandler = localHandler;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Map<Action, Entry> entries = new EnumMap<>(Action.class);
+    private final EntityVersions versions = new EntityVersions();
+
+    ActionRegistry(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    // Registration happens before the server starts accepting clients
+    void register(Action action, Handler handler) {
+        entries.put(action, new Entry(handler, null));
+    }
+
+    void registerLocal(Action action, LocalHandler handler) {
+        entries.put(action, new Entry(null, handler));
+    }
+
+    boolean contains(Action action) {
+        return entries.containsKey(action);
+    }
+
+    Response invoke(Request request, RowStream rows) throws Exception {
+        Entry entry = entries.get(request.getAction());
+        if (entry == null) {
+            return Response.error("Unknown action");
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Response response;
+            if (entry.localHandler != null) {
+                response = entry.localHandler.handle(request);
+            } else {
+                try (Connection conn = pool.getConnection()) {
+                    response = entry.handler.handle(request, conn, rows);
+                }
+            }
+            success = response != null && response.isSuccess();
+            return response;
+        } finally {
+            entry.metrics.record(System.nanoTime() - start, success);
+            versions.written(request);
+        }
+    }
+    
+    // Moves the versions an action's writes move, for work that action
+    // started and that commits after its call has returned
+    void written(Action action) {
+        versions.written(Request.of(action));
+    }
+    
+    // Version of the data a read of this action would return now, -1 for
+    // actions that are not versioned
+    long version(Action action) {
+        return versions.current(action);
+    }
+
+    // Frame bytes of one call; frames of streamed replies are added as they go
+    void recordBytes(Action action, long in, long out) {
+        Entry entry = action != null ? entries.get(action) : null;
+        if (entry != null) {
+            entry.metrics.recordBytes(in, out);
+        }
+    }
+
+    // One row per action that has been called, busiest first
+    List<Map<String, String>> getMetrics() {
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (Map.Entry<Action, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().metrics.getCalls() > 0) {
+                Map<String, String> row = new LinkedHashMap<>();
+                row.put("action", entry.getKey().name());
+                row.putAll(entry.getValue().metrics.snapshot());
+                rows.add(row);
+            }
+        }
+        rows.sort((a, b) -> Long.compare(Long.parseLong(b.get("calls")), Long.parseLong(a.get("calls"))));
+        return rows;
+    }
+
+    void startDump(long periodSeconds) {
+        Thread dumper = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(periodSeconds * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                dump();
+            }
+        }, "metrics-dump");
+        dumper.setDaemon(true);
+        dumper.start();
+    }
+
+    private void dump() {
+        StringBuilder text = new StringBuilder("📊 Action metrics (latency in us)\n");
+        text.append(String.format(Locale.ROOT, "%-26s %8s %7s %9s %9s %9s %9s %11s %11s%n",
+            "action", "calls", "errors", "p50", "p90", "p99", "max", "bytesIn", "bytesOut"));
+        for (Map.Entry<Action, Entry> entry : entries.entrySet()) {
+            ActionMetrics metrics = entry.getValue().metrics;
+            if (metrics.getCalls() > 0) {
+                text.append(String.format(Locale.ROOT, "%-26s ", entry.getKey().name())).append(metrics).append('\n');
+            }
+        }
+        System.out.print(text);
+    }
+}
@@ -0,0 +1,890 @@
+import java.io.*;
+import java.net.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+class ClientHandler implements Runnable {
+    private Socket clientSocket;
+    private final ActionRegistry actions;
+    private final FrameCompressor compressor;
+    // Runs the requests of a pipelined session concurrently
+    private Executor requestExecutor;
+    // Chosen by the handshake or by the first frame of a framed session
+    private volatile WireCodec codec;
+    // Set once the client completed the version 2 handshake
+    private volatile boolean pipelined;
+    // Set by the handshake when both sides support compressed frames
+    private volatile boolean compressing;
+    
+    // Frames larger than this are treated as a protocol error
+    static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    // Requests of one pipelined session that may be running at the same time
+    static final int MAX_IN_FLIGHT = 32;
+    
+    public ClientHandler(Socket socket, ActionRegistry actions, FrameCompressor compressor, Executor requestExecutor) {
+        this.clientSocket = socket;
+        this.actions = actions;
+        this.compressor = compressor;
+        this.requestExecutor = requestExecutor;
+    }
+    
+    // Used by NioServer, which owns the socket, hands us frames and
+    // schedules them itself
+    ClientHandler(ActionRegistry actions, FrameCompressor compressor) {
+        this.actions = actions;
+        this.compressor = compressor;
+    }
+    
+    boolean isPipelined() {
+        return pipelined;
+    }
+    
+    @Override
+    public void run() {
+        try {
+            BufferedInputStream in = new BufferedInputStream(clientSocket.getInputStream());
+            OutputStream out = new BufferedOutputStream(clientSocket.getOutputStream());
+            
+            // Legacy clients start with the serialization magic (0xACED),
+            // framed clients start with a length prefix.
+            in.mark(1);
+            int first = in.read();
+            in.reset();
+            
+            if (first == 0xAC) {
+                runObjectStream(in, out);
+            } else if (first != -1) {
+                runFramed(in, out);
+            }
+        } catch (Exception e) {
+            System.err.println(" Client error: " + e.getMessage());
+        } finally {
+            try { clientSocket.close(); } catch (IOException e) {}
+        }
+    }
+    
+    private void runObjectStream(InputStream in, OutputStream out) throws Exception {
+        SerializationCodec codec = (SerializationCodec) WireCodec.SERIALIZATION;
+        try (ObjectInputStream input = new ObjectInputStream(in);
+             ObjectOutputStream output = new ObjectOutputStream(out)) {
+            output.flush();
+            
+            while (true) {
+                Request request = codec.readRequest(input);
+                Response response = dispatch(request, RowStream.buffered());
+                if (response == null) {
+                    return;
+                }
+                codec.writeResponse(request.getAction(), response, output);
+                output.flush();
+            }
+        }
+    }
+    
+    private void runFramed(InputStream in, OutputStream out) throws Exception {
+        DataInputStream input = new DataInputStream(in);
+        DataOutputStream output = new DataOutputStream(out);
+        
+        while (true) {
+            byte[] response = handleFrame(readFrame(input), null);
+            if (response == null) {
+                return;
+            }
+            writeFrame(output, response);
+            if (pipelined) {
+                runPipelined(input, output);
+                return;
+            }
+        }
+    }
+    
+    // Version 2 sessions: keep reading while earlier requests run on the
+    // request executor, and write each reply as soon as it is ready
+    private void runPipelined(DataInputStream input, DataOutputStream output) throws Exception {
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        ReentrantLock writeLock = new ReentrantLock();
+        try {
+            while (true) {
+                byte[] frame;
+                try {
+                    frame = readFrame(input);
+                } catch (EOFException | SocketException e) {
+                    return;
+                }
+                
+                FrameSink replies = response -> {
+                    writeLock.lock();
+                    try {
+                        writeFrame(output, response);
+                    } finally {
+                        writeLock.unlock();
+                    }
+                };
+                
+                inFlight.acquire();
+                requestExecutor.execute(() -> {
+                    try {
+                        byte[] response = handleFrame(frame, replies);
+                        if (response == null) {
+                            // EXIT: stop the reader once the other requests are done
+                            clientSocket.shutdownInput();
+                            return;
+                        }
+                        replies.send(response);
+                    } catch (Exception e) {
+                        System.err.println(" Client error: " + e.getMessage());
+                        try { clientSocket.close(); } catch (IOException ignored) {}
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            // Let requests that are still running write their replies
+            inFlight.acquireUninterruptibly(MAX_IN_FLIGHT);
+        }
+    }
+    
+    private static byte[] readFrame(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] body = new byte[length];
+        input.readFully(body);
+        return body;
+    }
+    
+    private static void writeFrame(DataOutputStream output, byte[] body) throws IOException {
+        output.writeInt(body.length);
+        output.write(body);
+        output.flush();
+    }
+    
+    // Where a pipelined session writes reply frames other than the final one
+    interface FrameSink {
+        void send(byte[] body) throws IOException;
+    }
+    
+    // Runs one framed request and returns the reply body, or null when the
+    // client sent EXIT. The first frame is either a handshake or picks the
+    // codec for an unpipelined session. Safe to call concurrently once the
+    // session is pipelined; streamed chunks then go to chunks before the
+    // final reply is returned.
+    byte[] handleFrame(byte[] body, FrameSink chunks) throws Exception {
+        if (codec == null) {
+            if (Handshake.isHandshake(body)) {
+                return acceptHandshake(Handshake.decode(body));
+            }
+            codec = WireCodec.detect(body);
+            System.out.println(" Protocol: " + codec.getName());
+        }
+        
+        if (!pipelined) {
+            Request request = codec.decodeRequest(body);
+            Response response = dispatch(request, RowStream.buffered());
+            if (response == null) {
+                return null;
+            }
+            byte[] reply = codec.encodeResponse(request.getAction(), response);
+            actions.recordBytes(request.getAction(), body.length, reply.length);
+            return reply;
+        }
+        
+        Frame frame = Frame.decode(body);
+        byte[] payload = frame.payload;
+        if (frame.hasFlag(Frame.FLAG_COMPRESSED)) {
+            if (!compressing) {
+                throw new IOException("Compressed frame without negotiated compression");
+            }
+            payload = compressor.decompress(payload);
+        }
+        Request request = codec.decodeRequest(payload);
+        Action action = request.getAction();
+        // Taken before the read runs; when it matches the client's copy there is nothing to run
+        long version = frame.hasFlag(Frame.FLAG_VERSIONED) ? actions.version(action) : -1;
+        if (version >= 0 && frame.version == version) {
+            byte[] reply = new Frame(frame.requestId, Frame.FLAG_VERSIONED | Frame.FLAG_NOT_MODIFIED, version, new byte[0]).encode();
+            actions.recordBytes(action, body.length, reply.length);
+            return reply;
+        }
+        RowStream rows = RowStream.buffered();
+        if (frame.hasFlag(Frame.FLAG_STREAM) && chunks != null) {
+            rows = new RowStream(chunk -> {
+                byte[] reply = reply(frame.requestId, Frame.FLAG_MORE, 0, action, Response.success(chunk));
+                actions.recordBytes(action, 0, reply.length);
+                chunks.send(reply);
+            });
+        }
+        Response response;
+        try {
+            response = dispatch(request, rows);
+        } catch (SQLException e) {
+            // One failing request must not take down the others in flight
+            System.err.println(" Request error: " + e.getMessage());
+            response = Response.error(e.getMessage());
+        }
+        if (response == null) {
+            return null;
+        }
+        byte[] reply = version >= 0 && response.isSuccess()
+            ? reply(frame.requestId, Frame.FLAG_VERSIONED, version, action, response)
+            : reply(frame.requestId, 0, 0, action, response);
+        actions.recordBytes(action, body.length, reply.length);
+        return reply;
+    }
+    
+    // A version 2 reply frame, compressed when negotiated and worth it
+    private byte[] reply(int requestId, int flags, long version, Action action, Response response) throws IOException {
+        byte[] payload = codec.encodeResponse(action, response);
+        if (compressing) {
+            byte[] compressed = compressor.compress(action, payload);
+            if (compressed != null) {
+                payload = compressed;
+                flags |= Frame.FLAG_COMPRESSED;
+            }
+        }
+        return new Frame(requestId, flags, version, payload).encode();
+    }
+    
+    private byte[] acceptHandshake(Handshake hello) throws IOException {
+        if (hello.version != Handshake.VERSION) {
+            // Not a handshake reply, so the client starts over on version 1
+            System.err.println(" Unsupported protocol version " + hello.version + ", handshake refused");
+            WireCodec replyCodec = hello.codecId == Handshake.CODEC_SERIALIZATION ? WireCodec.SERIALIZATION : WireCodec.BINARY;
+            return replyCodec.encodeResponse(null, Response.error("Unsupported protocol version " + hello.version));
+        }
+        codec = hello.codec();
+        compressing = compressor.enabled && hello.hasFlag(Handshake.FLAG_DEFLATE);
+        pipelined = true;
+        boolean versions = hello.hasFlag(Handshake.FLAG_VERSIONS);
+        System.out.println(" Protocol: " + codec.getName() + " (pipelined" + (compressing ? ", deflate" : "")
+            + (versions ? ", versions" : "") + ")");
+        return Handshake.forCodec(codec, (compressing ? Handshake.FLAG_DEFLATE : 0) | (versions ? Handshake.FLAG_VERSIONS : 0)).encode();
+    }
+    
+    // Reply for a frame the server could not even queue
+    byte[] busyResponse(byte[] body) throws IOException {
+        Response busy = Response.error("Server busy, try again");
+        if (!pipelined) {
+            return (codec != null ? codec : WireCodec.detect(body)).encodeResponse(null, busy);
+        }
+        return reply(Frame.decode(body).requestId, 0, 0, null, busy);
+    }
+    
+    // Returns null when the client asked to end the session. ROWS handlers
+    // put their rows in rows, which may stream them out.
+    private Response dispatch(Request request, RowStream rows) throws Exception {
+        if (request.getAction() == Action.EXIT) {
+            return null;
+        }
+        try {
+            return actions.invoke(request, rows);
+        } catch (SQLTransientConnectionException e) {
+            // Pool exhausted: the request is already decoded, so the session stays usable
+            System.err.println(" " + e.getMessage());
+            return Response.error("Server busy, try again");
+        }
+    }
+    
+    // Every action this server runs. The registry borrows a pooled connection
+    // for handlers that need one, and times and counts every call.
+    static ActionRegistry createRegistry(ConnectionPool pool, FrameCompressor compressor, ReferenceDataCache reference,
+                                         StudentResultCache students, SubjectAverages averages) {
+        ActionRegistry registry = new ActionRegistry(pool);
+        registry.register(Action.LOGIN, (request, conn, rows) -> handleLogin(request, conn));
+        // Cached per student, so they borrow a connection only on a miss; a
+        // student's grades are a few dozen rows and are no longer streamed
+        registry.registerLocal(Action.GET_STUDENT_INFO, students.cached(pooled(pool, (request, conn, rows) -> handleGetStudentInfo(request, conn))));
+        registry.registerLocal(Action.GET_STUDENT_GRADES, students.cached(pooled(pool, ClientHandler::handleGetStudentGrades)));
+        registry.registerLocal(Action.GET_OVERALL_AVERAGE, students.cached(request -> handleGetOverallAverage(request, averages)));
+        registry.registerLocal(Action.GET_FINAL_STATUS, students.cached(pooled(pool, (request, conn, rows) -> handleGetFinalStatus(request, conn))));
+        for (Action write : BATCHABLE) {
+            registry.register(write, students.invalidating((request, conn, rows) -> afterWrite(reference, request, handleWrite(request, conn, averages))));
+        }
+        registry.register(Action.CALCULATE_SUBJECT_AVERAGE, (request, conn, rows) -> handleCalculateSubjectAverage(request, conn));
+        registry.register(Action.BATCH, students.invalidating((request, conn, rows) -> afterWrite(reference, request, handleBatch(request, conn, averages))));
+        registry.register(Action.LIST_STUDENTS, (request, conn, rows) -> handleListStudents(conn, rows));
+        registry.register(Action.LIST_USERS, (request, conn, rows) -> handleListUsers(conn, rows));
+        registry.register(Action.GET_TEACHER_GRADES, ClientHandler::handleGetTeacherGrades);
+        registry.registerLocal(Action.POOL_STATS, request -> {
+            HashMap<String, String> stats = new HashMap<>(pool.getStats());
+            // Virtual threads that blocked while pinned; only --mode=virtual counts them
+            stats.put("pinnedThreads", String.valueOf(PinnedThreadMonitor.getPinnedEvents()));
+            return Response.success(stats);
+        });
+        registry.registerLocal(Action.COMPRESSION_STATS, request -> Response.success(compressor.getStats()));
+        registry.registerLocal(Action.METRICS, request -> Response.success(registry.getMetrics()));
+        registry.registerLocal(Action.REFERENCE_CACHE_STATS, request -> Response.success(reference.getStats()));
+        registry.registerLocal(Action.STUDENT_CACHE_STATS, request -> Response.success(students.getStats()));
+        registry.registerLocal(Action.RECONCILE_AVERAGES, students.invalidating(request -> {
+            Map<String, String> report = new LinkedHashMap<>(averages.reconcile());
+            report.putAll(averages.getStats());
+            return Response.success(report);
+        }));
+        // Every committed chunk drops its students' cached replies and moves the versions
+        Deliberation deliberation = new Deliberation(pool, averages.plans, decided -> {
+            students.forget(decided);
+            registry.written(Action.START_DELIBERATION);
+        });
+        registry.registerLocal(Action.START_DELIBERATION, request -> Response.success(deliberation.start()));
+        registry.registerLocal(Action.DELIBERATION_PROGRESS, request -> Response.success(deliberation.getProgress()));
+        registry.registerLocal(Action.CHECK_RANKINGS, request -> {
+            Map<String, String> report = new LinkedHashMap<>(averages.rankings.check());
+            report.putAll(averages.rankings.getStats());
+            return Response.success(report);
+        });
+        registerRepository(registry, reference, students);
+        return registry;
+    }
+    
+    // ADD_PROGRAM, alone or in a batch, goes around the repository, so the
+    // reference cache is cleared here
+    private static Response afterWrite(ReferenceDataCache reference, Request request, Response response) {
+        boolean addsProgram = request.getAction() == Action.ADD_PROGRAM;
+        if (request.getAction() == Action.BATCH) {
+            for (Request item : request.getRequests(0)) {
+                addsProgram |= item.getAction() == Action.ADD_PROGRAM;
+            }
+        }
+        if (addsProgram) {
+            reference.invalidate();
+        }
+        return response;
+    }
+    
+    // The client's data operations. The repository borrows its own pooled
+    // connection per call, so these are registered without one.
+    private static void registerRepository(ActionRegistry registry, Repository repository, StudentResultCache students) {
+        registry.registerLocal(Action.STUDENT_TRANSCRIPT, request -> reply(repository.getStudentTranscript(request.getInt(0))));
+        registry.registerLocal(Action.STUDENT_INFO, students.cached(request -> reply(repository.getStudentInfo(request.getInt(0)))));
+        registry.registerLocal(Action.STUDENT_GRADES, students.cached(request -> reply(repository.getStudentGrades(request.getInt(0)))));
+        registry.registerLocal(Action.SUBJECT_FINAL_GRADE, request -> reply(repository.calculateSubjectFinalGrade(request.getInt(0), request.getInt(1))));
+        registry.registerLocal(Action.OVERALL_AVERAGE, students.cached(request -> reply(repository.calculateOverallAverage(request.getInt(0)))));
+        registry.registerLocal(Action.FINAL_STATUS, students.cached(request -> reply(repository.getFinalStatus(request.getInt(0)))));
+        registry.registerLocal(Action.STUDENT_STATISTICS, request -> reply(repository.getStudentStatistics(request.getInt(0))));
+        registry.registerLocal(Action.STUDENT_SUBJECT_GRADES, request -> reply(repository.getStudentSubjectGrades(request.getInt(0))));
+        registry.registerLocal(Action.CREATE_EXAM_FOR_SUBJECT, request -> status(repository.createExam(request.getString(0), request.getString(1), request.getString(2), request.getDouble(3), request.getInt(4))));
+        registry.registerLocal(Action.INSERT_GRADE, students.invalidating(request -> status(repository.addGrade(request.getString(0), request.getString(1), request.getDouble(2)))));
+        registry.registerLocal(Action.UPDATE_STUDENT_GRADE, students.invalidating(request -> status(repository.updateStudentGrade(request.getInt(0), request.getInt(1), request.getDouble(2)))));
+        registry.registerLocal(Action.GRADE_DETAILS, request -> reply(repository.getGradeDetails(request.getInt(0))));
+        registry.registerLocal(Action.SUBJECT_AVERAGE, request -> reply(repository.calculateSubjectAverage(request.getInt(0), request.getInt(1))));
+        registry.registerLocal(Action.TEACHER_EXAMS, request -> reply(repository.getTeacherExams(request.getInt(0))));
+        registry.registerLocal(Action.SUBJECT_RANK, request -> reply(repository.getSubjectRank(request.getInt(0), request.getInt(1))));
+        registry.registerLocal(Action.SUBJECT_LEADERBOARD, request -> reply(repository.getSubjectLeaderboard(request.getInt(0), request.getInt(1), request.getInt(2))));
+        registry.registerLocal(Action.UPDATE_EXAM, students.invalidating(request -> status(repository.updateExam(request.getInt(0), request.getString(1), request.getDouble(2)))));
+        registry.registerLocal(Action.DELETE_EXAM, students.invalidating(request -> status(repository.deleteExam(request.getString(0)))));
+        registry.registerLocal(Action.STUDENT_RESULTS, request -> reply(repository.getStudentResults(request.getInt(0))));
+        registry.registerLocal(Action.TEACHER_STUDENTS, request -> reply(repository.getTeacherStudents(request.getInt(0))));
+        registry.registerLocal(Action.TEACHER_STATISTICS, request -> reply(repository.getTeacherStatistics(request.getInt(0))));
+        registry.registerLocal(Action.STUDENTS_BY_SUBJECT, request -> reply(repository.getStudentsBySubject(request.getInt(0))));
+        registry.registerLocal(Action.SUBJECTS_BY_STUDENT, request -> reply(repository.getSubjectsByStudent(request.getInt(0))));
+        registry.registerLocal(Action.SUBJECTS_BY_TEACHER, request -> reply(repository.getSubjectsByTeacher(request.getInt(0))));
+        registry.registerLocal(Action.STUDENTS_BY_SUBJECT_FOR_TEACHER, request -> reply(repository.getStudentsBySubjectForTeacher(request.getInt(0), request.getInt(1))));
+        registry.registerLocal(Action.ADD_STUDENT_WITH_ACCOUNT, request -> status(repository.addStudent(request.getString(0), request.getString(1), request.getString(2), request.getString(3), request.getString(4))));
+        registry.registerLocal(Action.UPDATE_STUDENT_INFO, students.invalidating(request -> status(repository.updateStudentInfo(request.getInt(0), request.getMap(1)))));
+        registry.registerLocal(Action.STUDENT_WITH_PROGRAM, request -> reply(repository.getStudentWithProgram(request.getInt(0))));
+        registry.registerLocal(Action.REGISTER_STUDENT_TO_PROGRAM, students.invalidating(request -> status(repository.registerStudentToProgram(request.getInt(0), request.getInt(1), request.getString(2)))));
+        registry.registerLocal(Action.REGISTER_STUDENT, students.invalidating(request -> status(repository.registerStudent(request.getInt(0), request.getInt(1), request.getInt(2)))));
+        registry.registerLocal(Action.DELETE_STUDENT, students.invalidating(request -> status(repository.deleteStudent(request.getInt(0)))));
+        registry.registerLocal(Action.DELETE_REGISTRATION, students.invalidating(request -> status(repository.deleteRegistration(request.getInt(0)))));
+        registry.registerLocal(Action.STUDENT_REGISTRATIONS, request -> reply(repository.getStudentRegistrations(request.getInt(0))));
+        registry.registerLocal(Action.UPDATE_STUDENT_STATUS, students.invalidating(request -> status(repository.updateStudentStatus(request.getInt(0), request.getString(1)))));
+        registry.registerLocal(Action.RESPONSABLE_STATISTICS, request -> reply(repository.getResponsableStatistics()));
+        registry.registerLocal(Action.ACADEMIC_YEARS, request -> reply(repository.getAcademicYears()));
+        registry.registerLocal(Action.SET_CURRENT_ACADEMIC_YEAR, students.invalidating(request -> status(repository.setCurrentAcademicYear(request.getInt(0)))));
+        registry.registerLocal(Action.ALL_PROGRAMS, request -> reply(repository.getAllPrograms()));
+        registry.registerLocal(Action.PROGRAMS_FOR_DROPDOWN, request -> reply(repository.getAllProgramsForDropdown()));
+        registry.registerLocal(Action.PROGRAMS_WITH_STATS, request -> reply(repository.getProgramsWithStats()));
+        registry.registerLocal(Action.PROGRAM_ID_BY_NAME, request -> reply(repository.getProgramIdByName(request.getString(0))));
+        registry.registerLocal(Action.SUBJECT_ID_BY_NAME, request -> reply(repository.getSubjectIdByName(request.getString(0))));
+        registry.registerLocal(Action.SUBJECTS_BY_PROGRAM, request -> reply(repository.getSubjectsByProgram(request.getInt(0))));
+        registry.registerLocal(Action.ASSIGN_TEACHER_TO_PROGRAM, request -> status(repository.assignTeacherToProgram(request.getInt(0), request.getInt(1), request.getInt(2), request.getString(3))));
+        registry.registerLocal(Action.ADD_PROGRAM_WITH_TEACHERS, request -> status(repository.addProgramWithTeachers(request.getString(0), request.getInt(1), request.getString(2), idMap(request.getMap(3)), request.getString(4))));
+        registry.registerLocal(Action.PROGRAM_TEACHERS, request -> reply(repository.getProgramTeachers(request.getInt(0))));
+        registry.registerLocal(Action.CREATE_PROGRAM_WITH_STRUCTURE, request -> status(repository.createProgramWithStructure(request.getString(0), request.getString(1), request.getInt(2), request.getInt(3), request.getString(4), request.getString(5))));
+        registry.registerLocal(Action.PROGRAM_STRUCTURE, request -> reply(repository.getProgramStructure(request.getInt(0))));
+        registry.registerLocal(Action.SUBJECTS_BY_SEMESTER, request -> reply(repository.getSubjectsBySemester(request.getInt(0))));
+        registry.registerLocal(Action.PROGRAM_SUBJECTS, request -> reply(repository.getProgramSubjects(request.getInt(0))));
+        registry.registerLocal(Action.ASSIGN_TEACHER_TO_SUBJECT, request -> status(repository.assignTeacherToSubject(request.getInt(0), request.getInt(1), request.getString(2))));
+        registry.registerLocal(Action.REMOVE_TEACHER_FROM_SUBJECT, request -> status(repository.removeTeacherFromSubject(request.getInt(0))));
+        registry.registerLocal(Action.ADD_SUBJECT_TO_PROGRAM, request -> status(repository.addSubjectToProgram(request.getInt(0), request.getString(1), request.getString(2), request.getInt(3), request.getDouble(4))));
+        registry.registerLocal(Action.PROGRAM_EXISTS, request -> status(repository.doesProgramExist(request.getInt(0))));
+        registry.registerLocal(Action.UNASSIGNED_SUBJECTS, request -> reply(repository.getUnassignedSubjects(request.getInt(0))));
+        registry.registerLocal(Action.PROGRAM_SUBJECTS_WITH_DETAILS, request -> reply(repository.getProgramSubjectsWithDetails(request.getInt(0))));
+        registry.registerLocal(Action.UPDATE_PROGRAM, students.invalidating(request -> status(repository.updateProgram(request.getInt(0), request.getString(1), request.getInt(2), request.getString(3)))));
+        registry.registerLocal(Action.DELETE_PROGRAM, students.invalidating(request -> status(repository.deleteProgram(request.getInt(0)))));
+        registry.registerLocal(Action.STUDENTS_BY_PROGRAM, request -> reply(repository.getStudentsByProgram(request.getInt(0))));
+        registry.registerLocal(Action.PROGRAM_STATISTICS, request -> reply(repository.getProgramStatistics(request.getInt(0))));
+        registry.registerLocal(Action.PROGRAM_SUCCESS_STATISTICS, request -> reply(repository.getProgramSuccessStatistics(request.getInt(0))));
+        registry.registerLocal(Action.SYSTEM_STATISTICS, request -> reply(repository.getSystemStatistics()));
+        registry.registerLocal(Action.ALL_TEACHERS, request -> reply(repository.getAllTeachers()));
+        registry.registerLocal(Action.CREATE_USER, request -> status(repository.createUser(request.getString(0), request.getString(1), request.getString(2), optionalId(request.getInt(3)), optionalId(request.getInt(4)), request.getString(5))));
+        registry.registerLocal(Action.UPDATE_USER_STATUS, request -> status(repository.updateUserStatus(request.getInt(0), request.getInt(1) != 0)));
+        registry.registerLocal(Action.RESET_USER_PASSWORD, request -> status(repository.resetUserPassword(request.getInt(0), request.getString(1))));
+        registry.registerLocal(Action.USER_DETAILS, request -> reply(repository.getUserDetails(request.getInt(0))));
+    }
+    
+    // A handler that borrows its own connection, for wrappers that may not need one
+    private static ActionRegistry.LocalHandler pooled(ConnectionPool pool, ActionRegistry.Handler handler) {
+        return request -> {
+            try (Connection conn = pool.getConnection()) {
+                return handler.handle(request, conn, RowStream.buffered());
+            }
+        };
+    }
+    
+    // A null result means not found or failed; the repository has logged why
+    private static Response reply(Object value) {
+        return value != null ? Response.success(value) : Response.error("Not found or failed");
+    }
+    
+    private static Response status(boolean ok) {
+        return ok ? Response.status("SUCCESS") : Response.error("Operation failed");
+    }
+    
+    private static Integer optionalId(int id) {
+        return id != 0 ? id : null;
+    }
+    
+    private static Map<Integer, Integer> idMap(Map<String, String> ids) {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (Map.Entry<String, String> entry : ids.entrySet()) {
+            map.put(Integer.parseInt(entry.getKey()), Integer.parseInt(entry.getValue()));
+        }
+        return map;
+    }
+    
+    private static Response handleLogin(Request request, Connection conn) throws Exception {
+        String username = request.getString(0);
+        String password = request.getString(1);
+        
+        String sql = "SELECT u.*, s.first_name, s.last_name, s.student_id, " +
+                    "t.first_name as t_first_name, t.last_name as t_last_name " +
+                    "FROM users u " +
+                    "LEFT JOIN students s ON u.student_id = s.student_id " +
+                    "LEFT JOIN teachers t ON u.teacher_id = t.teacher_id " +
+                    "WHERE u.username = ? AND u.password_hash = ? AND u.is_active = 1";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setString(1, username);
+        stmt.setString(2, password);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        if (rs.next()) {
+            Map<String, String> userInfo = new HashMap<>();
+            userInfo.put("userType", rs.getString("user_type"));
+            userInfo.put("userId", rs.getString("user_id"));
+            
+            if ("STUDENT".equals(userInfo.get("userType"))) {
+                userInfo.put("firstName", rs.getString("first_name"));
+                userInfo.put("lastName", rs.getString("last_name"));
+                userInfo.put("studentId", rs.getString("student_id"));
+            } else if ("TEACHER".equals(userInfo.get("userType"))) {
+                userInfo.put("firstName", rs.getString("t_first_name"));
+                userInfo.put("lastName", rs.getString("t_last_name"));
+                userInfo.put("teacherId", rs.getString("teacher_id"));
+            }
+            
+            System.out.println("Login successful: " + username);
+            return Response.success(userInfo);
+        } else {
+            return Response.status("ERROR: Invalid login credentials");
+        }
+    }
+    
+    private static Response handleGetStudentInfo(Request request, Connection conn) throws Exception {
+        int studentId = request.getInt(0);
+        
+        String sql = "SELECT s.*, p.program_name, ay.start_year, ay.end_year " +
+                    "FROM students s " +
+                    "JOIN registrations r ON s.student_id = r.student_id " +
+                    "JOIN programs p ON r.program_id = p.program_id " +
+                    "JOIN academic_years ay ON r.year_id = ay.year_id " +
+                    "WHERE s.student_id = ? AND ay.is_current = 1";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setInt(1, studentId);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        if (rs.next()) {
+            Map<String, String> studentInfo = new HashMap<>();
+            studentInfo.put("firstName", rs.getString("first_name"));
+            studentInfo.put("lastName", rs.getString("last_name"));
+            studentInfo.put("schoolOrigin", rs.getString("school_origin"));
+            studentInfo.put("email", rs.getString("email"));
+            studentInfo.put("phone", rs.getString("phone"));
+            studentInfo.put("program", rs.getString("program_name"));
+            studentInfo.put("academicYear", rs.getInt("start_year") + "-" + rs.getInt("end_year"));
+            
+            return Response.success(studentInfo);
+        } else {
+            return Response.status("ERROR: Student not found");
+        }
+    }
+    
+    private static Response handleGetStudentGrades(Request request, Connection conn, RowStream rows) throws Exception {
+        int studentId = request.getInt(0);
+        
+        String sql = "SELECT s.subject_name, e.exam_name, e.exam_type, e.coefficient, g.score " +
+                    "FROM grades g " +
+                    "JOIN exams e ON g.exam_id = e.exam_id " +
+                    "JOIN subjects s ON e.subject_id = s.subject_id " +
+                    "WHERE g.student_id = ? " +
+                    "ORDER BY s.subject_name, e.exam_date";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setInt(1, studentId);
+        rows.prepare(stmt);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        while (rs.next()) {
+            Map<String, String> grade = new HashMap<>();
+            grade.put("subject", rs.getString("subject_name"));
+            grade.put("exam", rs.getString("exam_name"));
+            grade.put("type", rs.getString("exam_type"));
+            grade.put("coefficient", rs.getString("coefficient"));
+            grade.put("score", rs.getString("score"));
+            rows.add(grade);
+        }
+        
+        return Response.success(rows.remaining());
+    }
+    
+    // Same columns and keys as ClientService.getAllStudents
+    private static Response handleListStudents(Connection conn, RowStream rows) throws Exception {
+        String sql = "SELECT s.student_id, s.first_name, s.last_name, s.school_origin, " +
+                    "s.phone, s.email, p.program_name, s.academic_year, s.registration_date, " +
+                    "s.final_status " +
+                    "FROM students s " +
+                    "LEFT JOIN programs p ON s.program_id = p.program_id " +
+                    "ORDER BY s.student_id";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        rows.prepare(stmt);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        while (rs.next()) {
+            Map<String, String> student = new HashMap<>();
+            student.put("studentId", String.valueOf(rs.getInt("student_id")));
+            student.put("firstName", rs.getString("first_name"));
+            student.put("lastName", rs.getString("last_name"));
+            student.put("schoolOrigin", rs.getString("school_origin"));
+            student.put("phone", rs.getString("phone"));
+            student.put("email", rs.getString("email"));
+            student.put("program", rs.getString("program_name"));
+            student.put("academicYear", rs.getString("academic_year"));
+            student.put("registrationDate", rs.getString("registration_date"));
+            student.put("status", rs.getString("final_status") != null ? rs.getString("final_status") : "Active");
+            rows.add(student);
+        }
+        
+        return Response.success(rows.remaining());
+    }
+    
+    // Same columns and keys as ClientService.getAllUsers
+    private static Response handleListUsers(Connection conn, RowStream rows) throws Exception {
+        String sql = "SELECT u.user_id, u.username, u.user_type, u.is_active, " +
+                    "COALESCE(s.first_name, t.first_name, 'System') as first_name, " +
+                    "COALESCE(s.last_name, t.last_name, 'Administrator') as last_name " +
+                    "FROM users u " +
+                    "LEFT JOIN students s ON u.student_id = s.student_id " +
+                    "LEFT JOIN teachers t ON u.teacher_id = t.teacher_id " +
+                    "ORDER BY u.user_id";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        rows.prepare(stmt);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        while (rs.next()) {
+            Map<String, String> user = new HashMap<>();
+            user.put("userId", String.valueOf(rs.getInt("user_id")));
+            user.put("username", rs.getString("username"));
+            user.put("userType", rs.getString("user_type"));
+            user.put("firstName", rs.getString("first_name"));
+            user.put("lastName", rs.getString("last_name"));
+            user.put("status", rs.getBoolean("is_active") ? "Active" : "Inactive");
+            rows.add(user);
+        }
+        
+        return Response.success(rows.remaining());
+    }
+    
+    // Same columns and keys as ClientService.getTeacherGrades
+    private static Response handleGetTeacherGrades(Request request, Connection conn, RowStream rows) throws Exception {
+        int teacherId = request.getInt(0);
+        
+        String sql = "SELECT g.grade_id, g.student_id, s.first_name, s.last_name, " +
+                    "sub.subject_name, e.exam_name, g.score, g.grade_date " +
+                    "FROM grades g " +
+                    "JOIN exams e ON g.exam_id = e.exam_id " +
+                    "JOIN subjects sub ON e.subject_id = sub.subject_id " +
+                    "JOIN students s ON g.student_id = s.student_id " +
+                    "WHERE e.teacher_id = ? " +
+                    "ORDER BY g.grade_date DESC";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setInt(1, teacherId);
+        rows.prepare(stmt);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        while (rs.next()) {
+            Map<String, String> grade = new HashMap<>();
+            grade.put("gradeId", String.valueOf(rs.getInt("grade_id")));
+            grade.put("studentId", String.valueOf(rs.getInt("student_id")));
+            grade.put("studentName", rs.getString("first_name") + " " + rs.getString("last_name"));
+            grade.put("subject", rs.getString("subject_name"));
+            grade.put("examName", rs.getString("exam_name"));
+            grade.put("grade", String.valueOf(rs.getDouble("score")));
+            grade.put("gradeDate", rs.getString("grade_date"));
+            rows.add(grade);
+        }
+        
+        return Response.success(rows.remaining());
+    }
+    
+    // The student's entry in SubjectAverages: a map lookup, or one query of
+    // their student_subject_scores rows after a write to them
+    private static Response handleGetOverallAverage(Request request, SubjectAverages averages) throws Exception {
+        return Response.success(averages.get(request.getInt(0)).average);
+    }
+    
+    private static Response handleGetFinalStatus(Request request, Connection conn) throws Exception {
+        int studentId = request.getInt(0);
+        
+        // الحصول على المعدل وتحديد الحالة
+        String sql = "SELECT overall_average FROM registrations " +
+                    "WHERE student_id = ? AND year_id = (SELECT year_id FROM academic_years WHERE is_current = 1)";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setInt(1, studentId);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        if (rs.next()) {
+            Double average = rs.getDouble("overall_average");
+            if (rs.wasNull()) {
+                return Response.status("ERROR: لم يتم حساب المعدل بعد");
+            } else {
+                String status = average >= 10 ? "ADMIS" : (average >= 8 ? "REDOUBLANT" : "EXCLU");
+                return Response.success(status, average);
+            }
+        } else {
+            return Response.status("ERROR: لا توجد تسجيلات للطالب");
+        }
+    }
+    
+    // The writes a BATCH may carry. Single requests and batches share the SQL,
+    // parameter binding and reply text below so they behave the same.
+    private static final Set<Action> BATCHABLE =
+        EnumSet.of(Action.CREATE_EXAM, Action.ADD_GRADE, Action.ADD_STUDENT, Action.ADD_PROGRAM);
+    
+    private static String writeSql(Action action) {
+        switch (action) {
+            case CREATE_EXAM:
+                return "INSERT INTO exams (exam_type, exam_name, coefficient, exam_date, subject_id, teacher_id) " +
+                       "VALUES (?, ?, ?, CURDATE(), ?, ?)";
+            case ADD_GRADE:
+                return "INSERT INTO grades (student_id, exam_id, score, grade_date) VALUES (?, ?, ?, NOW()) " +
+                       "ON DUPLICATE KEY UPDATE score = ?";
+            case ADD_STUDENT:
+                return "INSERT INTO students (first_name, last_name, school_origin, email, phone) VALUES (?, ?, ?, ?, ?)";
+            case ADD_PROGRAM:
+                return "INSERT INTO programs (program_name, program_year, description) VALUES (?, ?, ?)";
+            default:
+                throw new IllegalArgumentException("Not a batchable write: " + action);
+        }
+    }
+    
+    private static void bindWrite(PreparedStatement stmt, Request request) throws SQLException {
+        switch (request.getAction()) {
+            case CREATE_EXAM:
+                stmt.setString(1, request.getString(0));   // exam type
+                stmt.setString(2, request.getString(1));   // exam name
+                stmt.setDouble(3, request.getDouble(2));   // coefficient
+                stmt.setInt(4, request.getInt(3));         // subject id
+                stmt.setInt(5, request.getInt(4));         // teacher id
+                break;
+            case ADD_GRADE:
+                stmt.setInt(1, request.getInt(0));         // student id
+                stmt.setInt(2, request.getInt(1));         // exam id
+                stmt.setDouble(3, request.getDouble(2));   // score
+                stmt.setDouble(4, request.getDouble(2));
+                break;
+            case ADD_STUDENT:
+                // first name, last name, school origin, email, phone
+                for (int i = 0; i < 5; i++) {
+                    stmt.setString(i + 1, request.getString(i));
+                }
+                break;
+            case ADD_PROGRAM:
+                stmt.setString(1, request.getString(0));   // program name
+                stmt.setInt(2, request.getInt(1));         // program year
+                stmt.setString(3, request.getString(2));   // description
+                break;
+            default:
+                throw new IllegalArgumentException("Not a batchable write: " + request.getName());
+        }
+    }
+    
+    // generatedId is only used by ADD_STUDENT and is null when no key came back
+    private static Response writeResult(Action action, int affected, Integer generatedId) {
+        boolean ok = affected > 0 || affected == Statement.SUCCESS_NO_INFO;
+        switch (action) {
+            case CREATE_EXAM:
+                return Response.status(ok ? "SUCCESS: تم إنشاء الاختبار بنجاح" : "ERROR: فشل في إنشاء الاختبار");
+            case ADD_GRADE:
+                return Response.status(ok ? "SUCCESS: تم إضافة/تعديل الدرجة" : "ERROR: فشل في إضافة الدرجة");
+            case ADD_STUDENT:
+                return Response.status(ok && generatedId != null
+                    ? "SUCCESS: تم إضافة الطالب برقم: " + generatedId : "ERROR: فشل في إضافة الطالب");
+            case ADD_PROGRAM:
+                return Response.status(ok ? "SUCCESS: تم إضافة البرنامج بنجاح" : "ERROR: فشل في إضافة البرنامج");
+            default:
+                throw new IllegalArgumentException("Not a batchable write: " + action);
+        }
+    }
+    
+    // ADD_GRADE commits together with the student's subject scores
+    private static Response handleWrite(Request request, Connection conn, SubjectAverages averages) throws Exception {
+        Action action = request.getAction();
+        Set<Integer> graded = action == Action.ADD_GRADE ? Collections.singleton(request.getInt(0)) : null;
+        if (graded != null) {
+            conn.setAutoCommit(false);
+        }
+        try {
+            if (graded != null) {
+                averages.lock(conn, graded);
+            }
+            PreparedStatement stmt = conn.prepareStatement(writeSql(action), Statement.RETURN_GENERATED_KEYS);
+            bindWrite(stmt, request);
+            
+            int affected = stmt.executeUpdate();
+            
+            Integer generatedId = null;
+            if (action == Action.ADD_STUDENT && affected > 0) {
+                ResultSet keys = stmt.getGeneratedKeys();
+                if (keys.next()) {
+                    generatedId = keys.getInt(1);
+                }
+            }
+            if (graded != null) {
+                averages.refresh(conn, graded);
+                conn.commit();
+                averages.forget(graded);
+            }
+            return writeResult(action, affected, generatedId);
+        } catch (SQLException | RuntimeException e) {
+            if (graded != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (graded != null) {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    // Runs every item on this connection inside one transaction. Consecutive
+    // items of the same action go to the database as one JDBC batch; if any
+    // statement fails the whole batch is rolled back.
+    private static Response handleBatch(Request request, Connection conn, SubjectAverages averages) throws Exception {
+        List<Request> items = request.getRequests(0);
+        Set<Integer> graded = new HashSet<>();
+        for (Request item : items) {
+            if (!BATCHABLE.contains(item.getAction())) {
+                return Response.error("Action not allowed in a batch: " + item.getName());
+            }
+            if (item.getAction() == Action.ADD_GRADE) {
+                graded.add(item.getInt(0));
+            }
+        }
+        
+        List<Map<String, String>> results = new ArrayList<>(items.size());
+        conn.setAutoCommit(false);
+        try {
+            averages.lock(conn, graded);
+            int start = 0;
+            while (start < items.size()) {
+                Action action = items.get(start).getAction();
+                int end = start + 1;
+                while (end < items.size() && items.get(end).getAction() == action) {
+                    end++;
+                }
+                executeBatch(action, items.subList(start, end), conn, results);
+                start = end;
+            }
+            averages.refresh(conn, graded);
+            conn.commit();
+            averages.forget(graded);
+        } catch (SQLException e) {
+            // No item is named: with rewriteBatchedStatements a failed multi-row
+            // INSERT marks every row of it as failed, so the counts cannot tell
+            conn.rollback();
+            return Response.error("Batch rolled back: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // A malformed item, say; nothing of the batch may stay committed
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return Response.success(results);
+    }
+    
+    // Appends one {"status": ...} row per item, in item order
+    private static void executeBatch(Action action, List<Request> items, Connection conn,
+                                     List<Map<String, String>> results) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(writeSql(action), Statement.RETURN_GENERATED_KEYS)) {
+            for (Request item : items) {
+                bindWrite(stmt, item);
+                stmt.addBatch();
+            }
+            int[] counts = stmt.executeBatch();
+            
+            ResultSet keys = action == Action.ADD_STUDENT ? stmt.getGeneratedKeys() : null;
+            for (int count : counts) {
+                Integer generatedId = null;
+                if (keys != null && count != 0 && keys.next()) {
+                    generatedId = keys.getInt(1);
+                }
+                Map<String, String> result = new HashMap<>();
+                result.put("status", writeResult(action, count, generatedId).getStatus());
+                results.add(result);
+            }
+        }
+    }
+    
+    private static Response handleCalculateSubjectAverage(Request request, Connection conn) throws Exception {
+        int studentId = request.getInt(0);
+        int subjectId = request.getInt(1);
+        
+        String sql = "SELECT AVG(g.score * e.coefficient) / SUM(e.coefficient) as subject_avg " +
+                    "FROM grades g " +
+                    "JOIN exams e ON g.exam_id = e.exam_id " +
+                    "WHERE g.student_id = ? AND e.subject_id = ?";
+        
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setInt(1, studentId);
+        stmt.setInt(2, subjectId);
+        
+        ResultSet rs = stmt.executeQuery();
+        
+        if (rs.next()) {
+            double average = rs.getDouble("subject_avg");
+            return Response.success(average);
+        } else {
+            return Response.status("ERROR: لا توجد درجات لهذه المادة");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A version per set of tables, moved forward after every write to it, so a
+// client that still holds the reply a read gave at some version can be told
+// it has not changed (see Frame.FLAG_VERSIONED). A read's version is the
+// highest of the sets it reads.
+//
+// Versions come from one clock that starts at the server's start time in
+// microseconds, so they keep growing across restarts. Only writes made
+// through this server move them; changes made straight in the database are
+// not seen. A write action missing from the table below moves every set.
+class EntityVersions {
+    enum Entity {
+        STUDENTS, GRADES, SUBJECTS, PROGRAMS, USERS, YEARS
+    }
+
+    private static final Set<Entity> ALL = EnumSet.allOf(Entity.class);
+    private static final Map<Action, Set<Entity>> READS = new EnumMap<>(Action.class);
+    private static final Map<Action, Set<Entity>> WRITES = new EnumMap<>(Action.class);
+    // Neither read nor write: sessions and the server's own counters
+    private static final Set<Action> UNVERSIONED = EnumSet.of(
+        Action.EXIT, Action.LOGIN, Action.POOL_STATS, Action.COMPRESSION_STATS, Action.METRICS,
+        Action.REFERENCE_CACHE_STATS, Action.STUDENT_CACHE_STATS, Action.DELIBERATION_PROGRESS, Action.CHECK_RANKINGS);
+
+    static {
+        read(Action.GET_STUDENT_INFO, Entity.STUDENTS, Entity.PROGRAMS, Entity.YEARS);
+        read(Action.GET_STUDENT_GRADES, Entity.GRADES, Entity.SUBJECTS);
+        read(Action.GET_OVERALL_AVERAGE, Entity.GRADES, Entity.SUBJECTS);
+        read(Action.GET_FINAL_STATUS, Entity.GRADES, Entity.STUDENTS, Entity.YEARS);
+        read(Action.CALCULATE_SUBJECT_AVERAGE, Entity.GRADES);
+        read(Action.LIST_STUDENTS, Entity.STUDENTS, Entity.PROGRAMS);
+        read(Action.LIST_USERS, Entity.USERS, Entity.STUDENTS);
+        read(Action.GET_TEACHER_GRADES, Entity.GRADES, Entity.SUBJECTS, Entity.STUDENTS);
+        read(Action.STUDENT_TRANSCRIPT, Entity.GRADES, Entity.SUBJECTS, Entity.STUDENTS);
+        read(Action.STUDENT_INFO, Entity.STUDENTS, Entity.PROGRAMS, Entity.YEARS);
+        read(Action.STUDENT_GRADES, Entity.GRADES, Entity.SUBJECTS);
+        read(Action.SUBJECT_FINAL_GRADE, Entity.GRADES);
+        read(Action.OVERALL_AVERAGE, Entity.GRADES, Entity.SUBJECTS);
+        read(Action.FINAL_STATUS, Entity.GRADES, Entity.STUDENTS, Entity.YEARS);
+        read(Action.STUDENT_STATISTICS, Entity.GRADES, Entity.SUBJECTS);
+        read(Action.STUDENT_SUBJECT_GRADES, Entity.GRADES, Entity.SUBJECTS);
+        read(Action.GRADE_DETAILS, Entity.GRADES, Entity.STUDENTS);
+        read(Action.SUBJECT_AVERAGE, Entity.GRADES);
+        read(Action.TEACHER_EXAMS, Entity.GRADES, Entity.SUBJECTS);
+        read(Action.STUDENT_RESULTS, Entity.GRADES, Entity.STUDENTS);
+        read(Action.SUBJECT_RANK, Entity.GRADES, Entity.STUDENTS);
+        read(Action.SUBJECT_LEADERBOARD, Entity.GRADES, Entity.STUDENTS);
+        read(Action.TEACHER_STUDENTS, Entity.STUDENTS, Entity.SUBJECTS);
+        read(Action.STUDENTS_BY_SUBJECT, Entity.STUDENTS, Entity.SUBJECTS);
+        read(Action.SUBJECTS_BY_STUDENT, Entity.STUDENTS, Entity.SUBJECTS, Entity.PROGRAMS);
+        read(Action.SUBJECTS_BY_TEACHER, Entity.SUBJECTS, Entity.PROGRAMS);
+        read(Action.STUDENTS_BY_SUBJECT_FOR_TEACHER, Entity.STUDENTS, Entity.SUBJECTS);
+        read(Action.STUDENT_WITH_PROGRAM, Entity.STUDENTS, Entity.PROGRAMS);
+        read(Action.STUDENT_REGISTRATIONS, Entity.STUDENTS, Entity.PROGRAMS, Entity.YEARS);
+        read(Action.ACADEMIC_YEARS, Entity.YEARS);
+        read(Action.ALL_PROGRAMS, Entity.PROGRAMS);
+        read(Action.PROGRAMS_FOR_DROPDOWN, Entity.PROGRAMS);
+        read(Action.PROGRAM_ID_BY_NAME, Entity.PROGRAMS);
+        read(Action.SUBJECT_ID_BY_NAME, Entity.SUBJECTS);
+        read(Action.SUBJECTS_BY_PROGRAM, Entity.SUBJECTS, Entity.PROGRAMS);
+        read(Action.PROGRAM_TEACHERS, Entity.SUBJECTS, Entity.PROGRAMS, Entity.USERS);
+        read(Action.PROGRAM_STRUCTURE, Entity.PROGRAMS, Entity.SUBJECTS);
+        read(Action.SUBJECTS_BY_SEMESTER, Entity.SUBJECTS);
+        read(Action.PROGRAM_SUBJECTS, Entity.SUBJECTS, Entity.PROGRAMS);
+        read(Action.PROGRAM_EXISTS, Entity.PROGRAMS);
+        read(Action.UNASSIGNED_SUBJECTS, Entity.SUBJECTS, Entity.PROGRAMS);
+        read(Action.PROGRAM_SUBJECTS_WITH_DETAILS, Entity.SUBJECTS, Entity.PROGRAMS, Entity.USERS);
+        read(Action.STUDENTS_BY_PROGRAM, Entity.STUDENTS, Entity.PROGRAMS);
+        read(Action.ALL_TEACHERS, Entity.USERS, Entity.SUBJECTS);
+        read(Action.USER_DETAILS, Entity.USERS);
+        // Statistics count across everything
+        for (Action action : EnumSet.of(Action.TEACHER_STATISTICS, Action.RESPONSABLE_STATISTICS, Action.PROGRAMS_WITH_STATS,
+                Action.PROGRAM_STATISTICS, Action.PROGRAM_SUCCESS_STATISTICS, Action.SYSTEM_STATISTICS)) {
+            READS.put(action, ALL);
+        }
+
+        for (Action action : EnumSet.of(Action.CREATE_EXAM, Action.CREATE_EXAM_FOR_SUBJECT, Action.ADD_GRADE, Action.INSERT_GRADE,
+                Action.UPDATE_STUDENT_GRADE, Action.UPDATE_EXAM, Action.DELETE_EXAM)) {
+            write(action, Entity.GRADES);
+        }
+        write(Action.ADD_STUDENT, Entity.STUDENTS, Entity.USERS);
+        write(Action.ADD_STUDENT_WITH_ACCOUNT, Entity.STUDENTS, Entity.USERS);
+        write(Action.DELETE_STUDENT, Entity.STUDENTS, Entity.USERS, Entity.GRADES);
+        for (Action action : EnumSet.of(Action.UPDATE_STUDENT_INFO, Action.REGISTER_STUDENT_TO_PROGRAM, Action.REGISTER_STUDENT,
+                Action.DELETE_REGISTRATION, Action.UPDATE_STUDENT_STATUS)) {
+            write(action, Entity.STUDENTS);
+        }
+        write(Action.SET_CURRENT_ACADEMIC_YEAR, Entity.YEARS);
+        write(Action.ADD_PROGRAM, Entity.PROGRAMS, Entity.SUBJECTS);
+        write(Action.ADD_PROGRAM_WITH_TEACHERS, Entity.PROGRAMS, Entity.SUBJECTS);
+        write(Action.CREATE_PROGRAM_WITH_STRUCTURE, Entity.PROGRAMS, Entity.SUBJECTS);
+        write(Action.UPDATE_PROGRAM, Entity.PROGRAMS);
+        write(Action.DELETE_PROGRAM, Entity.PROGRAMS, Entity.SUBJECTS, Entity.STUDENTS);
+        for (Action action : EnumSet.of(Action.ASSIGN_TEACHER_TO_PROGRAM, Action.ASSIGN_TEACHER_TO_SUBJECT,
+                Action.REMOVE_TEACHER_FROM_SUBJECT, Action.ADD_SUBJECT_TO_PROGRAM)) {
+            write(action, Entity.SUBJECTS);
+        }
+        write(Action.RECONCILE_AVERAGES, Entity.GRADES);
+        // Also moved by each chunk the run commits, through ActionRegistry.written
+        write(Action.START_DELIBERATION, Entity.STUDENTS);
+        for (Action action : EnumSet.of(Action.CREATE_USER, Action.UPDATE_USER_STATUS, Action.RESET_USER_PASSWORD)) {
+            write(action, Entity.USERS);
+        }
+    }
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final AtomicLongArray versions = new AtomicLongArray(Entity.values().length);
+
+    EntityVersions() {
+        for (int i = 0; i < versions.length(); i++) {
+            versions.set(i, clock.get());
+        }
+    }
+
+    // The version a read of this action sees now, or -1 if it is not versioned.
+    // Taken before the read runs, so a write landing during it makes the next
+    // fetch send the data again.
+    long current(Action action) {
+        Set<Entity> entities = action != null ? READS.get(action) : null;
+        if (entities == null) {
+            return -1;
+        }
+        long version = 0;
+        for (Entity entity : entities) {
+            version = Math.max(version, versions.get(entity.ordinal()));
+        }
+        return version;
+    }
+
+    // Called once a request has run, whatever its outcome
+    void written(Request request) {
+        Action action = request.getAction();
+        if (action == null || READS.containsKey(action) || UNVERSIONED.contains(action)) {
+            return;
+        }
+        if (action == Action.BATCH) {
+            for (Request item : request.getRequests(0)) {
+                written(item);
+            }
+            return;
+        }
+        long version = clock.incrementAndGet();
+        for (Entity entity : WRITES.getOrDefault(action, ALL)) {
+            versions.accumulateAndGet(entity.ordinal(), version, Math::max);
+        }
+    }
+
+    private static void read(Action action, Entity... entities) {
+        READS.put(action, EnumSet.copyOf(Arrays.asList(entities)));
+    }
+
+    private static void write(Action action, Entity... entities) {
+        WRITES.put(action, EnumSet.copyOf(Arrays.asList(entities)));
+    }
+}
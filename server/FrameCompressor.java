@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Server side of reply compression: the command-line settings, shared by
+// every session, and per-action numbers to tune the threshold with. The
+// COMPRESSION_STATS action returns them.
+class FrameCompressor {
+    final boolean enabled;
+    final int threshold;
+    private final Compression compression;
+    private final Map<Action, Counters> counters = new EnumMap<>(Action.class);
+
+    private static class Counters {
+        final LongAdder frames = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder rawBytes = new LongAdder();
+        final LongAdder compressedBytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+
+    FrameCompressor(boolean enabled, int threshold, int level) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.compression = new Compression(level);
+        for (Action action : Action.values()) {
+            counters.put(action, new Counters());
+        }
+    }
+
+    // Returns null when the payload is below the threshold or does not shrink
+    byte[] compress(Action action, byte[] payload) {
+        if (payload.length < threshold || action == null) {
+            return null;
+        }
+        Counters stats = counters.get(action);
+        long start = System.nanoTime();
+        byte[] compressed = compression.compress(payload);
+        stats.nanos.add(System.nanoTime() - start);
+        if (compressed == null) {
+            stats.skipped.increment();
+            return null;
+        }
+        stats.frames.increment();
+        stats.rawBytes.add(payload.length);
+        stats.compressedBytes.add(compressed.length);
+        return compressed;
+    }
+
+    byte[] decompress(byte[] payload) throws IOException {
+        return compression.decompress(payload);
+    }
+
+    // One row per action that has tried to compress anything
+    List<Map<String, String>> getStats() {
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (Map.Entry<Action, Counters> entry : counters.entrySet()) {
+            Counters stats = entry.getValue();
+            long frames = stats.frames.sum();
+            long skipped = stats.skipped.sum();
+            if (frames + skipped == 0) {
+                continue;
+            }
+            long raw = stats.rawBytes.sum();
+            long compressed = stats.compressedBytes.sum();
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("action", entry.getKey().name());
+            row.put("frames", String.valueOf(frames));
+            row.put("skipped", String.valueOf(skipped));
+            row.put("rawBytes", String.valueOf(raw));
+            row.put("compressedBytes", String.valueOf(compressed));
+            row.put("ratio", compressed == 0 ? "" : String.format(Locale.ROOT, "%.2f", (double) raw / compressed));
+            row.put("avgMicros", String.format(Locale.ROOT, "%.1f", stats.nanos.sum() / 1000.0 / (frames + skipped)));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
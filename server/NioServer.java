@@ -0,0 +1,454 @@
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Non-blocking server mode: a few selector threads own every socket and only
+// move bytes, while decoded frames run on a bounded worker pool. Idle clients
+// cost a SelectionKey and a read buffer instead of a parked thread.
+//
+// Only framed clients are supported here: each request is
+// [int length][payload] and each reply uses the same framing, including
+// pipelined (version 2) sessions.
+class NioServer {
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    // A streamed reply waits while more than HIGH_WATER bytes are queued for
+    // its socket, until flushing brings them down to LOW_WATER
+    private static final int HIGH_WATER = 1024 * 1024;
+    private static final int LOW_WATER = 256 * 1024;
+
+    private final int port;
+    private final IoLoop[] loops;
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final ActionRegistry actions;
+    private final FrameCompressor compressor;
+
+    NioServer(int port, int ioThreads, int workerThreads, int queueCapacity, ActionRegistry actions,
+              FrameCompressor compressor) throws IOException {
+        this.port = port;
+        this.actions = actions;
+        this.compressor = compressor;
+        this.loops = new IoLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new IoLoop();
+        }
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), namedThreads("nio-worker"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    void start() throws IOException {
+        ThreadFactory ioThreads = namedThreads("nio-io");
+        for (IoLoop loop : loops) {
+            ioThreads.newThread(loop).start();
+        }
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port), 1024);
+            System.out.println(" Server is running on port " + port + " (" + loops.length + " I/O threads, "
+                + workers.getMaximumPoolSize() + " workers)");
+
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                System.out.println("🔗 Client connected: " + channel.getRemoteAddress());
+                loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)].register(channel);
+            }
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // One selector and the sockets registered with it. All channel and key
+    // operations happen on this thread; other threads post tasks to it.
+    private class IoLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        IoLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    Session session = new Session(channel, this);
+                    session.key = channel.register(selector, SelectionKey.OP_READ, session);
+                } catch (IOException e) {
+                    System.err.println(" Client error: " + e.getMessage());
+                    closeQuietly(channel);
+                }
+            });
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Session session = (Session) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                session.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                session.flush();
+                            }
+                        } catch (IOException | CancelledKeyException e) {
+                            session.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("❌ Selector error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Per-socket state. Reads and writes are driven by the owning IoLoop.
+    // Version 1 frames are processed one at a time per session on the worker
+    // pool so replies keep request order; once a session is pipelined each
+    // frame is submitted on its own and replies go out as they complete.
+    private class Session {
+        private final SocketChannel channel;
+        private final IoLoop loop;
+        private final ClientHandler handler;
+        private SelectionKey key;
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final Deque<ByteBuffer> writeQueue = new ArrayDeque<>();
+        private boolean closeAfterWrite;
+        private boolean readPaused;
+
+        // Guarded by this
+        private final Deque<byte[]> pending = new ArrayDeque<>();
+        private boolean processing;
+        private boolean closed;
+        private int inFlight;
+        private boolean exitRequested;
+        // Bytes handed to the loop or in writeQueue and not yet written
+        private long queuedBytes;
+
+        Session(SocketChannel channel, IoLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+            this.handler = new ClientHandler(actions, compressor);
+        }
+
+        void onReadable() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            int needed = 0;
+            while (readBuffer.remaining() >= 4) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < 0 || length > ClientHandler.MAX_FRAME_SIZE) {
+                    throw new IOException("Invalid frame length: " + length);
+                }
+                if (readBuffer.remaining() < 4 + length) {
+                    needed = 4 + length;
+                    break;
+                }
+                readBuffer.getInt();
+                byte[] payload = new byte[length];
+                readBuffer.get(payload);
+                enqueue(payload);
+            }
+            readBuffer.compact();
+
+            if (needed > readBuffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(needed);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            } else if (readBuffer.capacity() > READ_BUFFER_SIZE && needed <= READ_BUFFER_SIZE
+                       && readBuffer.position() <= READ_BUFFER_SIZE) {
+                // Back to the usual size once the large frame is through
+                ByteBuffer smaller = ByteBuffer.allocate(READ_BUFFER_SIZE);
+                readBuffer.flip();
+                smaller.put(readBuffer);
+                readBuffer = smaller;
+            }
+
+            // Stop reading from clients that already have a full window running
+            synchronized (this) {
+                readPaused = inFlight >= ClientHandler.MAX_IN_FLIGHT;
+            }
+            updateInterest();
+        }
+
+        private void enqueue(byte[] payload) {
+            boolean direct = false;
+            boolean start = false;
+            synchronized (this) {
+                // Frames that arrive before the handshake has been processed
+                // stay in order behind it
+                if (handler.isPipelined() && !processing) {
+                    inFlight++;
+                    direct = true;
+                } else {
+                    pending.add(payload);
+                    start = !processing;
+                    processing = true;
+                }
+            }
+            if (direct) {
+                submit(payload);
+                return;
+            }
+            if (!start) {
+                return;
+            }
+
+            try {
+                workers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                List<byte[]> dropped;
+                synchronized (this) {
+                    dropped = new ArrayList<>(pending);
+                    pending.clear();
+                    processing = false;
+                }
+                for (byte[] request : dropped) {
+                    queueBusy(request);
+                }
+                flushQuietly();
+            }
+        }
+
+        // Pipelined frames: one worker task each, replies in completion order
+        private void submit(byte[] payload) {
+            try {
+                workers.execute(() -> process(payload));
+            } catch (RejectedExecutionException e) {
+                queueBusy(payload);
+                finished();
+                flushQuietly();
+            }
+        }
+
+        private void process(byte[] payload) {
+            try {
+                byte[] response = handler.handleFrame(payload, chunk -> {
+                    awaitRoom(chunk.length);
+                    loop.execute(() -> {
+                        queueReserved(chunk);
+                        flushQuietly();
+                    });
+                });
+                if (response == null) {
+                    synchronized (this) {
+                        exitRequested = true;
+                    }
+                } else {
+                    loop.execute(() -> {
+                        queueWrite(response);
+                        flushQuietly();
+                    });
+                }
+            } catch (Exception e) {
+                System.err.println(" Client error: " + e.getMessage());
+                loop.execute(this::close);
+            } finally {
+                finished();
+            }
+        }
+
+        // Worker side of a streamed reply: blocks while the socket is behind,
+        // so a slow reader never has the whole result set buffered here
+        private synchronized void awaitRoom(int length) throws IOException {
+            try {
+                while (queuedBytes > HIGH_WATER && !closed) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while streaming");
+            }
+            if (closed) {
+                throw new IOException("Connection closed");
+            }
+            queuedBytes += 4 + length;
+        }
+
+        private synchronized void written(int frameBytes) {
+            long before = queuedBytes;
+            queuedBytes -= frameBytes;
+            if (before > LOW_WATER && queuedBytes <= LOW_WATER) {
+                notifyAll();
+            }
+        }
+
+        // Called once per pipelined frame, whether it ran or was refused
+        private void finished() {
+            boolean resume;
+            boolean exit;
+            synchronized (this) {
+                inFlight--;
+                resume = inFlight == ClientHandler.MAX_IN_FLIGHT - 1;
+                exit = exitRequested && inFlight == 0;
+            }
+            if (exit) {
+                loop.execute(() -> {
+                    closeAfterWrite = true;
+                    flushQuietly();
+                });
+            } else if (resume) {
+                loop.execute(() -> {
+                    readPaused = false;
+                    updateInterest();
+                });
+            }
+        }
+
+        // Worker side: run queued frames through the existing handler logic
+        private void drain() {
+            while (true) {
+                byte[] payload;
+                synchronized (this) {
+                    payload = pending.poll();
+                    if (payload == null || closed) {
+                        processing = false;
+                        return;
+                    }
+                }
+
+                byte[] response;
+                try {
+                    response = handler.handleFrame(payload, null);
+                } catch (Exception e) {
+                    System.err.println(" Client error: " + e.getMessage());
+                    stopDraining();
+                    loop.execute(this::close);
+                    return;
+                }
+
+                if (response == null) {
+                    stopDraining();
+                    loop.execute(() -> {
+                        closeAfterWrite = true;
+                        flushQuietly();
+                    });
+                    return;
+                }
+                loop.execute(() -> {
+                    queueWrite(response);
+                    flushQuietly();
+                });
+            }
+        }
+
+        // The session is closing: frames still queued behind this one are not run
+        private synchronized void stopDraining() {
+            closed = true;
+            pending.clear();
+            processing = false;
+        }
+
+        private void queueBusy(byte[] request) {
+            try {
+                queueWrite(handler.busyResponse(request));
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void queueWrite(byte[] payload) {
+            synchronized (this) {
+                queuedBytes += 4 + payload.length;
+            }
+            queueReserved(payload);
+        }
+
+        // For a chunk whose bytes awaitRoom already counted
+        private void queueReserved(byte[] payload) {
+            ByteBuffer frame = ByteBuffer.allocate(4 + payload.length);
+            frame.putInt(payload.length).put(payload).flip();
+            writeQueue.add(frame);
+        }
+
+        void flush() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            while (!writeQueue.isEmpty()) {
+                ByteBuffer head = writeQueue.peek();
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    updateInterest();
+                    return;
+                }
+                written(writeQueue.poll().capacity());
+            }
+            if (closeAfterWrite) {
+                close();
+            } else {
+                updateInterest();
+            }
+        }
+
+        private void updateInterest() {
+            if (key == null || !key.isValid()) {
+                return;
+            }
+            int ops = readPaused ? 0 : SelectionKey.OP_READ;
+            if (!writeQueue.isEmpty()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+
+        private void flushQuietly() {
+            try {
+                flush();
+            } catch (IOException | CancelledKeyException e) {
+                close();
+            }
+        }
+
+        void close() {
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+            writeQueue.clear();
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+                notifyAll();
+            }
+        }
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try { channel.close(); } catch (IOException e) {}
+    }
+}
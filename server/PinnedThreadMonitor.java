@@ -0,0 +1,50 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+// Reports virtual threads that block while pinned to their carrier thread
+// (synchronized blocks or native frames around blocking I/O). Each event is
+// logged with the top of its stack so the offending lock can be found.
+class PinnedThreadMonitor {
+    private static final Duration THRESHOLD = Duration.ofMillis(20);
+    private static final int FRAMES_TO_PRINT = 6;
+
+    private static final AtomicLong pinnedEvents = new AtomicLong();
+
+    static void start() {
+        try {
+            RecordingStream stream = new RecordingStream();
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(THRESHOLD).withStackTrace();
+            stream.onEvent("jdk.VirtualThreadPinned", PinnedThreadMonitor::report);
+            stream.startAsync();
+            System.out.println(" Reporting virtual threads pinned for more than " + THRESHOLD.toMillis() + " ms");
+        } catch (Exception e) {
+            System.err.println(" Pinned-thread monitoring unavailable: " + e.getMessage());
+        }
+    }
+
+    static long getPinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    private static void report(RecordedEvent event) {
+        long count = pinnedEvents.incrementAndGet();
+        StringBuilder message = new StringBuilder();
+        message.append("⚠ Virtual thread pinned for ").append(event.getDuration().toMillis())
+               .append(" ms (#").append(count).append(")");
+
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(FRAMES_TO_PRINT, frames.size()); i++) {
+                RecordedFrame frame = frames.get(i);
+                message.append("\n    at ").append(frame.getMethod().getType().getName())
+                       .append('.').append(frame.getMethod().getName())
+                       .append(':').append(frame.getLineNumber());
+            }
+        }
+        System.err.println(message);
+    }
+}
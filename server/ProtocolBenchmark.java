@@ -0,0 +1,109 @@
+import java.util.*;
+
+// Compares the two wire codecs on a synthetic GET_STUDENT_GRADES reply:
+// payload size and encode+decode time per response. The deflate row is the
+// binary payload compressed at level 1, timed for compress+decompress only,
+// to help pick --compression-threshold.
+//
+// Usage: java ProtocolBenchmark [rows ...]   (default: 12 60 600)
+public class ProtocolBenchmark {
+    private static final String[] SUBJECTS = {
+        "Algorithmique et structures de données", "Analyse mathématique", "Algèbre linéaire",
+        "Programmation orientée objet", "Bases de données", "Réseaux informatiques",
+        "Systèmes d'exploitation", "Architecture des ordinateurs", "Génie logiciel",
+        "Probabilités et statistiques", "Anglais technique", "Compilation",
+        "Intelligence artificielle", "Développement web"
+    };
+    private static final String[][] EXAMS = {
+        { "Contrôle continu 1", "CONTROLE", "1.00" },
+        { "TP noté", "TP", "1.00" },
+        { "Contrôle continu 2", "CONTROLE", "1.00" },
+        { "Examen final", "EXAMEN", "2.00" }
+    };
+    private static final long MIN_RUN_NANOS = 1_000_000_000L;
+
+    private interface Task {
+        // Returns something derived from the result so the work is not optimized away
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+            ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+            : new int[] { 12, 60, 600 };
+
+        System.out.printf("%-8s %-14s %12s %14s%n", "rows", "codec", "bytes", "us/response");
+        for (int rows : sizes) {
+            Response response = Response.success(gradeRows(rows));
+            Map<String, long[]> results = new LinkedHashMap<>();
+            for (WireCodec codec : new WireCodec[] { WireCodec.SERIALIZATION, WireCodec.BINARY }) {
+                byte[] payload = codec.encodeResponse(Action.GET_STUDENT_GRADES, response);
+                Response decoded = codec.decodeResponse(Action.GET_STUDENT_GRADES, payload);
+                if (!decoded.getRows(0).equals(response.getRows(0))) {
+                    throw new IllegalStateException(codec.getName() + " did not round-trip the rows");
+                }
+                long nanos = time(() -> codec.decodeResponse(Action.GET_STUDENT_GRADES,
+                    codec.encodeResponse(Action.GET_STUDENT_GRADES, response)).getRows(0).size());
+                results.put(codec.getName(), new long[] { payload.length, nanos });
+                System.out.printf("%-8d %-14s %12d %14.1f%n", rows, codec.getName(), payload.length, nanos / 1000.0);
+            }
+
+            long[] serialized = results.get("serialization");
+            long[] binary = results.get("binary");
+            System.out.printf("%-8s %-14s %11.1fx %13.1fx%n", "", "improvement",
+                (double) serialized[0] / binary[0], (double) serialized[1] / binary[1]);
+
+            Compression compression = new Compression(1);
+            byte[] payload = WireCodec.BINARY.encodeResponse(Action.GET_STUDENT_GRADES, response);
+            byte[] deflated = compression.compress(payload);
+            if (deflated == null) {
+                System.out.printf("%-8s %-14s %12s%n", "", "+deflate", "no gain");
+            } else {
+                long nanos = time(() -> compression.decompress(compression.compress(payload)).length);
+                System.out.printf("%-8s %-14s %12d %14.1f%n", "", "+deflate", deflated.length, nanos / 1000.0);
+            }
+        }
+    }
+
+    // Average nanoseconds for one task run, after a warm-up run of the same length
+    private static long time(Task task) throws Exception {
+        run(task);
+        return run(task);
+    }
+
+    private static long run(Task task) throws Exception {
+        long iterations = 0;
+        long blackhole = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                blackhole += task.run();
+            }
+            iterations += 100;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MIN_RUN_NANOS);
+
+        if (blackhole == 42) {
+            System.out.print("");
+        }
+        return elapsed / iterations;
+    }
+
+    // Same columns and value formats as ClientHandler.handleGetStudentGrades
+    static List<Map<String, String>> gradeRows(int count) {
+        Random random = new Random(42);
+        List<Map<String, String>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] exam = EXAMS[i % EXAMS.length];
+            Map<String, String> grade = new HashMap<>();
+            grade.put("subject", SUBJECTS[(i / EXAMS.length) % SUBJECTS.length]);
+            grade.put("exam", exam[0]);
+            grade.put("type", exam[1]);
+            grade.put("coefficient", exam[2]);
+            grade.put("score", String.format(Locale.ROOT, "%.2f", random.nextInt(81) / 4.0));
+            rows.add(grade);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,51 @@
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Rows of a ROWS reply as a handler reads them. For an ordinary reply it
+// just collects them. For a streamed reply it hands each full chunk to the
+// session as soon as it fills, so neither end holds the whole result.
+class RowStream {
+    // Rows per chunk; also the JDBC fetch size of streamed queries
+    static final int CHUNK_ROWS = 500;
+
+    interface ChunkSink {
+        void send(List<Map<String, String>> chunk) throws IOException;
+    }
+
+    private final ChunkSink sink;
+    private List<Map<String, String>> pending = new ArrayList<>();
+
+    // Null sink: collect everything for a single reply
+    RowStream(ChunkSink sink) {
+        this.sink = sink;
+    }
+
+    static RowStream buffered() {
+        return new RowStream(null);
+    }
+
+    // Makes the driver read the result a chunk at a time (needs
+    // useCursorFetch=true on MySQL, otherwise it is only a hint)
+    void prepare(PreparedStatement stmt) throws SQLException {
+        if (sink != null) {
+            stmt.setFetchSize(CHUNK_ROWS);
+        }
+    }
+
+    void add(Map<String, String> row) throws IOException {
+        pending.add(row);
+        if (sink != null && pending.size() >= CHUNK_ROWS) {
+            sink.send(pending);
+            pending = new ArrayList<>(CHUNK_ROWS);
+        }
+    }
+
+    // Rows not sent yet; they go in the final reply
+    List<Map<String, String>> remaining() {
+        return pending;
+    }
+}
@@ -0,0 +1,289 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+// Replies to the per-student reads StudentView makes on every open and
+// refresh (info, grades, overall average, final status), kept per student
+// until a write changes that student's data. Writes name the students they
+// touch: by id for grade and student writes, through a lookup of the
+// grade's or the exam's students for UPDATE_STUDENT_GRADE, UPDATE_EXAM and
+// DELETE_EXAM. A new exam has no grades yet, so it touches nobody. Program
+// and academic year writes change every student's info and clear it all.
+//
+// The cache is bounded by an estimate of the replies' heap size; past it
+// the least recently read students are dropped first. Failed and empty
+// replies are not kept, since JdbcRepository reports a failed query as an
+// empty list.
+class StudentResultCache {
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    static final Set<Action> READS = EnumSet.of(
+        Action.GET_STUDENT_INFO, Action.GET_STUDENT_GRADES, Action.GET_OVERALL_AVERAGE, Action.GET_FINAL_STATUS,
+        Action.STUDENT_INFO, Action.STUDENT_GRADES, Action.OVERALL_AVERAGE, Action.FINAL_STATUS);
+
+    // Writes whose first argument is the student id
+    private static final Set<Action> STUDENT_WRITES = EnumSet.of(
+        Action.ADD_GRADE, Action.UPDATE_STUDENT_INFO, Action.REGISTER_STUDENT_TO_PROGRAM, Action.REGISTER_STUDENT,
+        Action.DELETE_STUDENT, Action.DELETE_REGISTRATION, Action.UPDATE_STUDENT_STATUS);
+
+    // Writes that change what every student's info or status shows
+    private static final Set<Action> GLOBAL_WRITES = EnumSet.of(
+        Action.SET_CURRENT_ACADEMIC_YEAR, Action.UPDATE_PROGRAM, Action.DELETE_PROGRAM, Action.RECONCILE_AVERAGES);
+
+    // Invalidation stamps are kept per stripe of student ids, so a read that
+    // ran across a write to its student is not kept
+    private static final int STRIPES = 4096;
+
+    private static class Student {
+        final Map<Action, Response> replies = new EnumMap<>(Action.class);
+        long bytes;
+    }
+
+    private final ConnectionPool pool;
+    private final long maxBytes;
+    // Access order, so the eldest student is the least recently read; all guarded by this
+    private final LinkedHashMap<Integer, Student> students = new LinkedHashMap<>(256, 0.75f, true);
+    private final long[] stamps = new long[STRIPES];
+    private long clock;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    StudentResultCache(ConnectionPool pool, long maxBytes) {
+        this.pool = pool;
+        this.maxBytes = maxBytes;
+    }
+
+    // A read handler that answers from the cache and runs load on a miss.
+    // The first argument of every READS action is the student id.
+    ActionRegistry.LocalHandler cached(ActionRegistry.LocalHandler load) {
+        return request -> {
+            Action action = request.getAction();
+            int studentId = request.getInt(0);
+            long stamp;
+            synchronized (this) {
+                Student student = students.get(studentId);
+                Response reply = student != null ? student.replies.get(action) : null;
+                if (reply != null) {
+                    hits++;
+                    return reply;
+                }
+                misses++;
+                stamp = stamps[stripe(studentId)];
+            }
+
+            Response reply = load.handle(request);
+            if (reply != null && reply.isSuccess() && !isEmpty(reply)) {
+                store(action, studentId, stamp, reply);
+            }
+            return reply;
+        };
+    }
+
+    // A write handler that drops the replies of the students it touches once it has run
+    ActionRegistry.Handler invalidating(ActionRegistry.Handler write) {
+        return (request, conn, rows) -> {
+            Set<Integer> touched = touched(request, conn);
+            try {
+                return write.handle(request, conn, rows);
+            } finally {
+                invalidate(touched);
+            }
+        };
+    }
+
+    ActionRegistry.LocalHandler invalidating(ActionRegistry.LocalHandler write) {
+        return request -> {
+            Set<Integer> touched;
+            if (needsLookup(request.getAction())) {
+                try (Connection conn = pool.getConnection()) {
+                    touched = touched(request, conn);
+                }
+            } else {
+                touched = touched(request, null);
+            }
+            try {
+                return write.handle(request);
+            } finally {
+                invalidate(touched);
+            }
+        };
+    }
+
+    // For writes made outside a handler, such as a deliberation's chunks
+    void forget(Collection<Integer> studentIds) {
+        invalidate(new HashSet<>(studentIds));
+    }
+    
+    synchronized Map<String, String> getStats() {
+        Map<String, String> stats = new LinkedHashMap<>();
+        long reads = hits + misses;
+        int replies = 0;
+        for (Student student : students.values()) {
+            replies += student.replies.size();
+        }
+        stats.put("hits", String.valueOf(hits));
+        stats.put("misses", String.valueOf(misses));
+        stats.put("hitRate", reads == 0 ? "0.00" : String.format(Locale.ROOT, "%.2f", hits / (double) reads));
+        stats.put("students", String.valueOf(students.size()));
+        stats.put("replies", String.valueOf(replies));
+        stats.put("bytes", String.valueOf(bytes));
+        stats.put("maxBytes", String.valueOf(maxBytes));
+        stats.put("evictions", String.valueOf(evictions));
+        stats.put("invalidations", String.valueOf(invalidations));
+        return stats;
+    }
+
+    private synchronized void store(Action action, int studentId, long stamp, Response reply) {
+        if (stamps[stripe(studentId)] != stamp) {
+            return;
+        }
+        Student student = students.computeIfAbsent(studentId, id -> new Student());
+        long size = estimate(reply);
+        Response previous = student.replies.put(action, reply);
+        if (previous != null) {
+            size -= estimate(previous);
+        }
+        student.bytes += size;
+        bytes += size;
+
+        Iterator<Student> eldest = students.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Student dropped = eldest.next();
+            eldest.remove();
+            bytes -= dropped.bytes;
+            evictions++;
+        }
+    }
+
+    // A null set means every student
+    private synchronized void invalidate(Set<Integer> touched) {
+        if (touched == null) {
+            students.clear();
+            bytes = 0;
+            clock++;
+            Arrays.fill(stamps, clock);
+            invalidations++;
+            return;
+        }
+        for (Integer studentId : touched) {
+            Student student = students.remove(studentId);
+            if (student != null) {
+                bytes -= student.bytes;
+            }
+            stamps[stripe(studentId)] = ++clock;
+            invalidations++;
+        }
+    }
+
+    private static boolean needsLookup(Action action) {
+        return action == Action.UPDATE_STUDENT_GRADE || action == Action.UPDATE_EXAM || action == Action.DELETE_EXAM;
+    }
+
+    // The students whose replies the write changes, or null for all of them.
+    // Runs before the write, while a deleted exam's grades still exist.
+    private static Set<Integer> touched(Request request, Connection conn) throws SQLException {
+        Action action = request.getAction();
+        if (STUDENT_WRITES.contains(action)) {
+            return Collections.singleton(request.getInt(0));
+        }
+        if (GLOBAL_WRITES.contains(action)) {
+            return null;
+        }
+        switch (action) {
+            case INSERT_GRADE:
+                try {
+                    return Collections.singleton(Integer.parseInt(request.getString(0)));
+                } catch (NumberFormatException e) {
+                    return Collections.emptySet();
+                }
+            case UPDATE_STUDENT_GRADE:
+                return studentIds(conn, "SELECT student_id FROM grades WHERE grade_id = ?", request.getInt(0));
+            case UPDATE_EXAM:
+                return studentIds(conn, "SELECT student_id FROM grades WHERE exam_id = ?", request.getInt(0));
+            case DELETE_EXAM:
+                try {
+                    return studentIds(conn, "SELECT student_id FROM grades WHERE exam_id = ?", Integer.parseInt(request.getString(0)));
+                } catch (NumberFormatException e) {
+                    return Collections.emptySet();
+                }
+            case BATCH: {
+                Set<Integer> all = new HashSet<>();
+                for (Request item : request.getRequests(0)) {
+                    Set<Integer> itemStudents = touched(item, conn);
+                    if (itemStudents == null) {
+                        return null;
+                    }
+                    all.addAll(itemStudents);
+                }
+                return all;
+            }
+            default:
+                return Collections.emptySet();
+        }
+    }
+
+    private static Set<Integer> studentIds(Connection conn, String sql, int id) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static int stripe(int studentId) {
+        return Math.floorMod(studentId, STRIPES);
+    }
+
+    private static boolean isEmpty(Response reply) {
+        for (Object value : reply.getValues()) {
+            if (value == null || (value instanceof Collection && ((Collection<?>) value).isEmpty())
+                    || (value instanceof Map && ((Map<?, ?>) value).isEmpty())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Rough heap size of a reply: object headers, references and UTF-16 strings
+    private static long estimate(Response reply) {
+        long size = 64 + estimate(reply.getStatus());
+        for (Object value : reply.getValues()) {
+            size += estimate(value);
+        }
+        return size;
+    }
+
+    private static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof Map) {
+            long size = 64;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 48 + estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = 40;
+            for (Object item : (Collection<?>) value) {
+                size += 8 + estimate(item);
+            }
+            return size;
+        }
+        return 24;
+    }
+}